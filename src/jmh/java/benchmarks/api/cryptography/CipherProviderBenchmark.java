@@ -0,0 +1,75 @@
+package benchmarks.api.cryptography;
+
+import de.storagesystem.api.cryptography.*;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of one small upload and download when every request creates its ciphers
+ * with the cost when the ciphers are taken from a {@link CipherPool}.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Djmh.args="CipherProviderBenchmark"}.
+ *
+ * @author Simon Brebeck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CipherProviderBenchmark {
+
+    /**
+     * The size of the file of one request in bytes.
+     */
+    @Param({"1024", "16384"})
+    private int size;
+
+    /**
+     * The format the file is encrypted in.
+     */
+    @Param({"CBC", "SEGMENTED_GCM"})
+    private EncryptionFormat format;
+
+    private SecretKey secretKey;
+    private byte[] content;
+    private FileCryptographerFactory newInstanceFactory;
+    private FileCryptographerFactory pooledFactory;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        secretKey = KeyGenerator.getInstance("AES").generateKey();
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        newInstanceFactory = new FileCryptographerFactory(new NewCipherProvider(), SegmentedAESCryptographer.DEFAULT_SEGMENT_SIZE);
+        pooledFactory = new FileCryptographerFactory(new CipherPool(64), SegmentedAESCryptographer.DEFAULT_SEGMENT_SIZE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] newCiphersPerRequest() throws Exception {
+        return roundTrip(newInstanceFactory);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] pooledCiphers() throws Exception {
+        return roundTrip(pooledFactory);
+    }
+
+    /**
+     * Encrypts and decrypts the file as one upload and one download request would.
+     * @param factory the factory the cryptographers of the requests are created with
+     * @return the decrypted file
+     */
+    private byte[] roundTrip(FileCryptographerFactory factory) throws Exception {
+        byte[] encrypted = factory.create(format, secretKey).encryptFile(content);
+        return factory.create(format, secretKey).decryptFile(encrypted);
+    }
+}
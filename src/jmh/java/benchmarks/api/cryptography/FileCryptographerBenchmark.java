@@ -0,0 +1,126 @@
+package benchmarks.api.cryptography;
+
+import de.storagesystem.api.cryptography.*;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encryption and decryption of one file with the cryptographers, across
+ * <ul>
+ *     <li>file sizes from 1 KB to 1 GB,</li>
+ *     <li>the transformations CBC, CTR and GCM of {@link FileAESCryptographer} and the segmented GCM format
+ *     of {@link SegmentedAESCryptographer},</li>
+ *     <li>a cryptographer with pooled ciphers created once versus a new cryptographer and cipher per call,</li>
+ *     <li>the byte[] api versus the stream api.</li>
+ * </ul>
+ * The time per operation divided by the size is the throughput. The benchmark profile runs JMH with
+ * {@code -prof gc}, which adds the allocation rate and allocated bytes per operation to each result.
+ * <p>
+ * Run all with {@code mvn -P benchmark test-compile exec:exec -Djmh.args=FileCryptographerBenchmark},
+ * or a subset with e.g. {@code -p size=1024,1048576 -p format=CBC,GCM}.
+ *
+ * @author Simon Brebeck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class FileCryptographerBenchmark {
+
+    /**
+     * The size of the file in bytes, from 1 KB to 1 GB.
+     */
+    @Param({"1024", "65536", "1048576", "67108864", "1073741824"})
+    private int size;
+
+    /**
+     * The format the file is encrypted in.
+     */
+    @Param({"CBC", "CTR", "GCM", "SEGMENTED_GCM"})
+    private String format;
+
+    /**
+     * Whether the cryptographer and its pooled ciphers are reused across calls,
+     * or a new cryptographer with a new cipher is created for every call.
+     */
+    @Param({"true", "false"})
+    private boolean reuse;
+
+    private SecretKey secretKey;
+    private byte[] content;
+    private byte[] encrypted;
+    private FileCryptographer reusedCryptographer;
+
+    @Setup
+    public void setup() throws Exception {
+        secretKey = KeyGenerator.getInstance("AES").generateKey();
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        reusedCryptographer = createCryptographer(new CipherPool(4));
+        encrypted = reusedCryptographer.encryptFile(content);
+    }
+
+    @TearDown
+    public void tearDown() {
+        content = null;
+        encrypted = null;
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() throws Exception {
+        return cryptographer().encryptFile(content);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() throws Exception {
+        return cryptographer().decryptFile(encrypted);
+    }
+
+    @Benchmark
+    public long encryptStream() throws Exception {
+        try (InputStream encryptedStream = cryptographer().encryptStream(new ByteArrayInputStream(content))) {
+            return encryptedStream.transferTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+
+    @Benchmark
+    public long decryptStream() throws Exception {
+        try (InputStream decryptedStream = cryptographer().decryptStream(new ByteArrayInputStream(encrypted))) {
+            return decryptedStream.transferTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+
+    /**
+     * Returns the cryptographer for one call.
+     * @return the reused cryptographer, or a new one if cryptographers are not reused
+     */
+    private FileCryptographer cryptographer() throws Exception {
+        return reuse ? reusedCryptographer : createCryptographer(new NewCipherProvider());
+    }
+
+    /**
+     * Creates a cryptographer for the format of this benchmark.
+     * @param cipherProvider the provider the cryptographer acquires its ciphers from
+     * @return the cryptographer
+     */
+    private FileCryptographer createCryptographer(CipherProvider cipherProvider) throws Exception {
+        return switch (format) {
+            case "CBC" -> new FileAESCryptographer(secretKey, "AES/CBC/PKCS5Padding", cipherProvider);
+            case "CTR" -> new FileAESCryptographer(secretKey, "AES/CTR/NoPadding", cipherProvider);
+            case "GCM" -> new FileAESCryptographer(secretKey, "AES/GCM/NoPadding", cipherProvider);
+            case "SEGMENTED_GCM" -> new SegmentedAESCryptographer(
+                    secretKey, SegmentedAESCryptographer.DEFAULT_SEGMENT_SIZE, cipherProvider);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+}
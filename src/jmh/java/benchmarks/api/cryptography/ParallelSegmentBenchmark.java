@@ -0,0 +1,83 @@
+package benchmarks.api.cryptography;
+
+import de.storagesystem.api.cryptography.CipherPool;
+import de.storagesystem.api.cryptography.SegmentedAESCryptographer;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of one large segmented upload and download when the segments are processed
+ * on the transferring thread with the throughput when they are processed on a {@link ForkJoinPool}.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Djmh.args=ParallelSegmentBenchmark}.
+ *
+ * @author Simon Brebeck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSegmentBenchmark {
+
+    /**
+     * The size of the file in bytes.
+     */
+    @Param({"67108864"})
+    private int size;
+
+    /**
+     * The number of threads the segments are processed on, 1 processes them on the transferring thread.
+     */
+    @Param({"1", "4", "8"})
+    private int parallelism;
+
+    private byte[] content;
+    private byte[] encrypted;
+    private ForkJoinPool pool;
+    private SegmentedAESCryptographer cryptographer;
+
+    @Setup
+    public void setup() throws Exception {
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        cryptographer = new SegmentedAESCryptographer(
+                secretKey,
+                SegmentedAESCryptographer.DEFAULT_SEGMENT_SIZE,
+                new CipherPool(64),
+                pool,
+                2 * parallelism);
+        encrypted = cryptographer.encryptFile(content);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if(pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public long encryptStream() throws IOException {
+        try (InputStream encryptedStream = cryptographer.encryptStream(new ByteArrayInputStream(content))) {
+            return encryptedStream.transferTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+
+    @Benchmark
+    public long decryptStream() throws IOException {
+        try (InputStream decryptedStream = cryptographer.decryptStream(new ByteArrayInputStream(encrypted))) {
+            return decryptedStream.transferTo(NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package benchmarks.api.storage;
+
+import de.storagesystem.api.util.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares renaming a folder with a large tree inside it by rewriting the paths of the tree with one update
+ * per table, as {@code StorageFolderCustomDAO.move} does, with updating the path of every item on its own.
+ * The tables are reduced to the columns the statements touch and stored in an embedded H2 database.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Djmh.args="FolderMoveBenchmark"}.
+ *
+ * @author Simon Brebeck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FolderMoveBenchmark {
+
+    /**
+     * The number of files and folders inside the renamed folder, one in a thousand is a folder.
+     */
+    @Param({"1000000"})
+    private int descendants;
+
+    private Path directory;
+    private Connection connection;
+
+    /**
+     * The current name of the renamed folder, every invocation renames it to the other name.
+     */
+    private String name = "archive";
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        directory = Files.createTempDirectory("folder-move-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("db") + ";MODE=MySQL");
+        int folders = descendants / 1000;
+        int filesPerFolder = (descendants - folders) / folders;
+
+        try(Statement statement = connection.createStatement()) {
+            for(String table : new String[] {"storage_folders", "storage_files"}) {
+                statement.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, bucket_id BIGINT NOT NULL, " +
+                        "parent_id BIGINT, path VARCHAR(255) NOT NULL, name VARCHAR(255) NOT NULL, " +
+                        "UNIQUE (bucket_id, path))");
+            }
+            statement.execute("INSERT INTO storage_folders VALUES (1, 1, NULL, '/bucket', 'bucket')");
+            statement.execute("INSERT INTO storage_folders VALUES (2, 1, 1, '/bucket/archive', 'archive')");
+            statement.execute("INSERT INTO storage_folders SELECT X + 2, 1, 2, '/bucket/archive/album' || X, 'album' || X " +
+                    "FROM SYSTEM_RANGE(1, " + folders + ")");
+            statement.execute("INSERT INTO storage_files SELECT X, 1, 3 + (X - 1) / " + filesPerFolder + ", " +
+                    "'/bucket/archive/album' || (1 + (X - 1) / " + filesPerFolder + ") || '/photo' || X || '.jpg', " +
+                    "'photo' || X || '.jpg' FROM SYSTEM_RANGE(1, " + folders * filesPerFolder + ")");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        try(var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Rewrites the paths with one update per table, the rest of a path starts at the slash after the old path.
+     */
+    @Benchmark
+    public int bulkUpdate() throws SQLException {
+        String oldPath = "/bucket/" + name;
+        String newPath = "/bucket/" + nextName();
+        int updated = 0;
+        for(String table : new String[] {"storage_folders", "storage_files"}) {
+            try(PreparedStatement statement = connection.prepareStatement("UPDATE " + table +
+                    " SET path = CONCAT(?, SUBSTRING(path, ?)) WHERE bucket_id = 1 AND path LIKE ? ESCAPE '!'")) {
+                statement.setString(1, newPath);
+                statement.setInt(2, oldPath.length() + 1);
+                statement.setString(3, Util.descendantPattern(oldPath));
+                updated += statement.executeUpdate();
+            }
+        }
+        updated += renameFolder(newPath);
+        connection.commit();
+        return updated;
+    }
+
+    /**
+     * Loads every item inside the folder and updates its path on its own, in batches of a thousand statements.
+     */
+    @Benchmark
+    public int updatePerItem() throws SQLException {
+        String oldPath = "/bucket/" + name;
+        String newPath = "/bucket/" + nextName();
+        int updated = 0;
+        for(String table : new String[] {"storage_folders", "storage_files"}) {
+            try(PreparedStatement select = connection.prepareStatement("SELECT id, path FROM " + table +
+                        " WHERE bucket_id = 1 AND path LIKE ? ESCAPE '!'");
+                PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET path = ? WHERE id = ?")) {
+                select.setString(1, Util.descendantPattern(oldPath));
+                try(ResultSet items = select.executeQuery()) {
+                    while(items.next()) {
+                        update.setString(1, newPath + items.getString(2).substring(oldPath.length()));
+                        update.setLong(2, items.getLong(1));
+                        update.addBatch();
+                        if(++updated % 1000 == 0) update.executeBatch();
+                    }
+                }
+                update.executeBatch();
+            }
+        }
+        updated += renameFolder(newPath);
+        connection.commit();
+        return updated;
+    }
+
+    private String nextName() {
+        name = name.equals("archive") ? "renamed" : "archive";
+        return name;
+    }
+
+    private int renameFolder(String newPath) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement("UPDATE storage_folders SET path = ?, name = ? WHERE id = 2")) {
+            statement.setString(1, newPath);
+            statement.setString(2, name);
+            return statement.executeUpdate();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
 import de.storagesystem.api.exceptions.InvalidTokenException;
 
 import java.io.File;
@@ -39,6 +40,21 @@ public class RSAAuthentication implements Authentication {
      */
     private final String issuer;
 
+    /**
+     * The {@link Algorithm} to sign and verify the JWTs, created once from the keys.
+     */
+    private final Algorithm algorithm;
+
+    /**
+     * The immutable and thread-safe {@link JWTVerifier} of the JWTs.
+     */
+    private final JWTVerifier verifier;
+
+    /**
+     * The cache of recently verified tokens, or null if every token is verified.
+     */
+    private final VerifiedTokenCache tokenCache;
+
     /**
      * Creates a new Authentication object with publicKeyPath and
      * privateKeyPath as paths to the private/public encryption key.
@@ -52,9 +68,34 @@ public class RSAAuthentication implements Authentication {
      */
     public RSAAuthentication(String token_issuer, String publicKeyPath, String privateKeyPath)
             throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        this(token_issuer, publicKeyPath, privateKeyPath, null);
+    }
+
+    /**
+     * Creates a new Authentication object with publicKeyPath and
+     * privateKeyPath as paths to the private/public encryption key,
+     * which skips the verification of recently verified tokens.
+     *
+     * @param token_issuer The issuer of the JWT.
+     * @param publicKeyPath path to the public key
+     * @param privateKeyPath path to the private key
+     * @param tokenCache the cache of recently verified tokens, or null to verify every token
+     * @throws IOException if the public or private key file could not be read from the  key path stored in .env
+     * @throws NoSuchAlgorithmException if the RSA algorithm is not supported by the system
+     * @throws InvalidKeySpecException if the public or private key file is not a valid RSA key
+     */
+    public RSAAuthentication(
+            String token_issuer,
+            String publicKeyPath,
+            String privateKeyPath,
+            VerifiedTokenCache tokenCache)
+            throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
         this.issuer = token_issuer;
         this.publicKey = getPublicKey(publicKeyPath);
         this.privateKey = getPrivateKey(privateKeyPath);
+        this.algorithm = Algorithm.RSA256(publicKey, privateKey);
+        this.verifier = JWT.require(algorithm).withIssuer(issuer).build();
+        this.tokenCache = tokenCache;
     }
 
     /**
@@ -65,9 +106,29 @@ public class RSAAuthentication implements Authentication {
      * @param privateKey private key
      */
     public RSAAuthentication(String token_issuer, RSAPublicKey publicKey, RSAPrivateKey privateKey) {
+        this(token_issuer, publicKey, privateKey, null);
+    }
+
+    /**
+     * Creates a new Authentication object with publicKey and
+     * privateKey as the private/public encryption key,
+     * which skips the verification of recently verified tokens.
+     *
+     * @param publicKey public key
+     * @param privateKey private key
+     * @param tokenCache the cache of recently verified tokens, or null to verify every token
+     */
+    public RSAAuthentication(
+            String token_issuer,
+            RSAPublicKey publicKey,
+            RSAPrivateKey privateKey,
+            VerifiedTokenCache tokenCache) {
         this.issuer = token_issuer;
         this.publicKey = publicKey;
         this.privateKey = privateKey;
+        this.algorithm = Algorithm.RSA256(publicKey, privateKey);
+        this.verifier = JWT.require(algorithm).withIssuer(issuer).build();
+        this.tokenCache = tokenCache;
     }
 
 
@@ -91,7 +152,6 @@ public class RSAAuthentication implements Authentication {
      */
     @Override
     public String createToken(Map<String, ?> payload) {
-        Algorithm algorithm = Algorithm.RSA256(publicKey, privateKey);
         return JWT.create()
                 .withIssuer(issuer)
                 .withPayload(payload)
@@ -100,16 +160,19 @@ public class RSAAuthentication implements Authentication {
      /**
      * {@inheritDoc}
      *
+     * Tokens found in the cache of recently verified tokens are returned without checking the signature again.
      * @return DecodedJWT if token is valid, null if token is invalid
      */
     @Override
     public DecodedJWT verifyToken(String token) throws
             JWTVerificationException {
-        Algorithm algorithm = Algorithm.RSA256(publicKey, privateKey);
-        return JWT.require(algorithm)
-                .withIssuer(issuer)
-                .build()
-                .verify(token);
+        if(tokenCache == null) return verifier.verify(token);
+
+        DecodedJWT verified = tokenCache.get(token);
+        if(verified != null) return verified;
+        verified = verifier.verify(token);
+        tokenCache.put(token, verified);
+        return verified;
     }
 
 
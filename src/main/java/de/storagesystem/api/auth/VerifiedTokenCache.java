@@ -0,0 +1,131 @@
+package de.storagesystem.api.auth;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * A bounded cache of recently verified tokens, so that repeated requests with the same token skip the
+ * signature check. Tokens are keyed by their SHA-256 hash, so the cache does not hold the bearer tokens
+ * themselves. An entry expires with its token, and at the latest after the maximum time to live.
+ *
+ * @author Simon Brebeck
+ */
+public class VerifiedTokenCache {
+
+    /**
+     * The verified tokens by the hash of the token.
+     */
+    private final Cache<String, DecodedJWT> tokens;
+
+    /**
+     * Instantiates a new VerifiedTokenCache.
+     *
+     * @param maximumSize the maximum number of cached tokens
+     * @param maxTtl the maximum time a verified token is cached
+     */
+    public VerifiedTokenCache(long maximumSize, Duration maxTtl) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a verified token if it is cached and not expired.
+     *
+     * @param token the encoded token
+     * @return the verified token, or null if the token is not cached
+     */
+    public DecodedJWT get(String token) {
+        DecodedJWT verified = tokens.getIfPresent(hash(token));
+        if(verified == null || isExpired(verified)) return null;
+        return verified;
+    }
+
+    /**
+     * Caches a verified token.
+     *
+     * @param token the encoded token
+     * @param verified the verified token
+     */
+    public void put(String token, DecodedJWT verified) {
+        if(isExpired(verified)) return;
+        tokens.put(hash(token), verified);
+    }
+
+    /**
+     * Getter for the statistics of the cache.
+     *
+     * @return the {@link CacheStats}
+     */
+    public CacheStats getStats() {
+        return tokens.stats();
+    }
+
+    /**
+     * Checks whether a token is expired.
+     *
+     * @param verified the verified token
+     * @return true if the token has an expiry date in the past
+     */
+    private static boolean isExpired(DecodedJWT verified) {
+        Instant expiresAt = verified.getExpiresAtAsInstant();
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * Hashes a token with SHA-256.
+     *
+     * @param token the encoded token
+     * @return the Base64 encoded hash of the token
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Expires a cached token when the token expires, but after the maximum time to live at the latest.
+     */
+    private static final class TokenExpiry implements Expiry<String, DecodedJWT> {
+
+        private final long maxTtlNanos;
+
+        TokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, DecodedJWT verified, long currentTime) {
+            Instant expiresAt = verified.getExpiresAtAsInstant();
+            if(expiresAt == null) return maxTtlNanos;
+            long untilExpiry = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedJWT verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedJWT verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package de.storagesystem.api.cryptography;
+
+/**
+ * An inclusive range of bytes inside a file.
+ *
+ * @param start the position of the first byte
+ * @param end the position of the last byte
+ * @author Simon Brebeck
+ */
+public record ByteRange(long start, long end) {
+
+    /**
+     * Returns the number of bytes inside the range.
+     * @return the number of bytes
+     */
+    public long length() {
+        return end - start + 1;
+    }
+}
@@ -0,0 +1,129 @@
+package de.storagesystem.api.cryptography;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe {@link CipherProvider} that keeps released {@link Cipher} instances per transformation
+ * and hands them out again, so that the provider lookup of {@link Cipher#getInstance(String)} is only paid
+ * when the pool is empty. The AES implementation of the JDK also keeps the expanded key schedule of the last
+ * key, so a reused cipher skips the key expansion when it is initialized with the same key again.
+ * <p>
+ * Ciphers are borrowed per operation rather than bound to a thread, because streamed operations are
+ * started on the request thread and finished on the thread that writes the response.
+ *
+ * @author Simon Brebeck
+ */
+public class CipherPool implements CipherProvider {
+
+    /**
+     * The idle ciphers per transformation.
+     */
+    private final Map<String, Idle> idle = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of idle ciphers kept per transformation.
+     */
+    private final int maxIdle;
+
+    /**
+     * The number of ciphers that were handed out from the pool.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of ciphers that had to be created because the pool was empty.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Instantiates a new CipherPool.
+     *
+     * @param maxIdle the maximum number of idle ciphers kept per transformation
+     */
+    public CipherPool(int maxIdle) {
+        if(maxIdle < 1) throw new IllegalArgumentException("The pool must keep at least one cipher");
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cipher acquire(String transformation) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        Cipher cipher = idleCiphers(transformation).poll();
+        if(cipher != null) {
+            hits.increment();
+            return cipher;
+        }
+        misses.increment();
+        return Cipher.getInstance(transformation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String transformation, Cipher cipher) {
+        if(cipher == null) return;
+        idleCiphers(transformation).offer(cipher);
+    }
+
+    /**
+     * Getter for the number of ciphers that were handed out from the pool.
+     *
+     * @return the number of ciphers that were handed out from the pool
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for the number of ciphers that had to be created because the pool was empty.
+     *
+     * @return the number of ciphers that had to be created
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the idle ciphers of a transformation.
+     *
+     * @param transformation the transformation
+     * @return the idle ciphers of the transformation
+     */
+    private Idle idleCiphers(String transformation) {
+        return idle.computeIfAbsent(transformation, t -> new Idle());
+    }
+
+    /**
+     * The bounded stack of idle ciphers of one transformation. The most recently released cipher is handed out
+     * first, because it most likely still holds the key schedule of an active user.
+     */
+    private final class Idle {
+
+        private final ConcurrentLinkedDeque<Cipher> ciphers = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        Cipher poll() {
+            Cipher cipher = ciphers.pollFirst();
+            if(cipher != null) size.decrementAndGet();
+            return cipher;
+        }
+
+        void offer(Cipher cipher) {
+            if(size.incrementAndGet() > maxIdle) {
+                size.decrementAndGet();
+                return;
+            }
+            ciphers.offerFirst(cipher);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.storagesystem.api.cryptography;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Provides {@link Cipher} instances to the cryptographers. A cipher is used by one operation at a time
+ * and handed back with {@link #release(String, Cipher)} once the operation is finished.
+ *
+ * @author Simon Brebeck
+ */
+public interface CipherProvider {
+
+    /**
+     * Acquires a cipher for a transformation, which is exclusively used by the caller until it is released.
+     *
+     * @param transformation the transformation of the cipher, e.g. AES/CBC/PKCS5Padding
+     * @return the {@link Cipher}
+     * @throws NoSuchPaddingException if the padding of the transformation is not supported
+     * @throws NoSuchAlgorithmException if the algorithm of the transformation is not supported
+     */
+    Cipher acquire(String transformation) throws NoSuchPaddingException, NoSuchAlgorithmException;
+
+    /**
+     * Hands back a cipher acquired with {@link #acquire(String)}. The cipher must not be used afterwards.
+     *
+     * @param transformation the transformation the cipher was acquired for
+     * @param cipher the {@link Cipher} to hand back
+     */
+    void release(String transformation, Cipher cipher);
+}
@@ -0,0 +1,48 @@
+package de.storagesystem.api.cryptography;
+
+import javax.crypto.Cipher;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that hands its {@link Cipher} back to the {@link CipherProvider} once it is closed.
+ *
+ * @author Simon Brebeck
+ */
+class CipherReleasingInputStream extends FilterInputStream {
+
+    private final CipherProvider cipherProvider;
+    private final String transformation;
+    private final Cipher cipher;
+    private boolean released = false;
+
+    /**
+     * Instantiates a new CipherReleasingInputStream.
+     * @param in the stream that uses the cipher
+     * @param cipherProvider the provider the cipher was acquired from
+     * @param transformation the transformation the cipher was acquired for
+     * @param cipher the cipher used by the stream
+     */
+    CipherReleasingInputStream(InputStream in, CipherProvider cipherProvider, String transformation, Cipher cipher) {
+        super(in);
+        this.cipherProvider = cipherProvider;
+        this.transformation = transformation;
+        this.cipher = cipher;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if(!released) {
+                released = true;
+                cipherProvider.release(transformation, cipher);
+            }
+        }
+    }
+}
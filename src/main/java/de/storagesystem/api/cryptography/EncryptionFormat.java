@@ -0,0 +1,31 @@
+package de.storagesystem.api.cryptography;
+
+/**
+ * The formats in which files are stored encrypted on the storage servers.
+ *
+ * @author Simon Brebeck
+ */
+public enum EncryptionFormat {
+    /**
+     * IV length, IV and a single AES/CBC/PKCS5Padding cipher text, see {@link FileAESCryptographer}.
+     */
+    CBC("AES/CBC/PKCS5Padding"),
+    /**
+     * Header and independently authenticated AES/GCM segments, see {@link SegmentedAESCryptographer}.
+     */
+    SEGMENTED_GCM("AES/GCM/NoPadding");
+
+    private final String transformation;
+
+    EncryptionFormat(String transformation) {
+        this.transformation = transformation;
+    }
+
+    /**
+     * Getter for the cipher transformation used by the format
+     * @return the cipher transformation
+     */
+    public String getTransformation() {
+        return transformation;
+    }
+}
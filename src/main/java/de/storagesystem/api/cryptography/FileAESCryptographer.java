@@ -1,31 +1,61 @@
 package de.storagesystem.api.cryptography;
 
 import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
 
 /**
  * @author Simon Brebeck
  */
 public class FileAESCryptographer implements FileCryptographer {
 
+    /**
+     * The length of the authentication tag in bytes if the transformation uses GCM.
+     */
+    private static final int GCM_TAG_LENGTH = 16;
+
     /**
      * An {@link SecretKey} instance used for encryption and decryption.
      */
     private final SecretKey secretKey;
+
     /**
-     * An {@link Cipher} algorithm instance to encrypt and decrypt files.
+     * The transformation of the ciphers, e.g. AES/CBC/PKCS5Padding.
      */
-    private final Cipher cipher;
+    private final String transformation;
+
+    /**
+     * The {@link CipherProvider} the ciphers are acquired from for each operation.
+     */
+    private final CipherProvider cipherProvider;
 
     public FileAESCryptographer(SecretKey secretKey, String transformation) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        this(secretKey, transformation, new NewCipherProvider());
+    }
+
+    /**
+     * Instantiates a new FileAESCryptographer that acquires its ciphers from a {@link CipherProvider}.
+     * @param secretKey the key used for encryption and decryption
+     * @param transformation the transformation of the ciphers
+     * @param cipherProvider the provider the ciphers are acquired from
+     * @throws NoSuchPaddingException if the padding of the transformation is not supported
+     * @throws NoSuchAlgorithmException if the algorithm of the transformation is not supported
+     */
+    public FileAESCryptographer(SecretKey secretKey, String transformation, CipherProvider cipherProvider)
+            throws NoSuchPaddingException, NoSuchAlgorithmException {
         this.secretKey = secretKey;
-        this.cipher = Cipher.getInstance(transformation);
+        this.transformation = transformation;
+        this.cipherProvider = cipherProvider;
+        // Fail on unsupported transformations here instead of during the first operation
+        cipherProvider.release(transformation, cipherProvider.acquire(transformation));
     }
 
     /**
@@ -33,18 +63,19 @@ public class FileAESCryptographer implements FileCryptographer {
      */
     @Override
     public byte[] decryptFile(byte[] encryptedBytes) {
+        Cipher cipher = acquireCipher();
         try {
             ByteBuffer byteBuffer = ByteBuffer.wrap(encryptedBytes);
             int ivLength = byteBuffer.getInt();
             byte[] iv = new byte[ivLength];
             byteBuffer.get(iv);
-            byte[] encryptedData = new byte[byteBuffer.remaining()];
-            byteBuffer.get(encryptedData);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
-            return cipher.doFinal(encryptedData);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec(iv));
+            return cipher.doFinal(encryptedBytes, byteBuffer.position(), byteBuffer.remaining());
         } catch (IllegalBlockSizeException | BadPaddingException | InvalidKeyException |
                  InvalidAlgorithmParameterException e) {
             throw new RuntimeException(e);
+        } finally {
+            cipherProvider.release(transformation, cipher);
         }
     }
     /**
@@ -54,20 +85,100 @@ public class FileAESCryptographer implements FileCryptographer {
      */
     @Override
     public byte[] encryptFile(byte[] contentBytes) {
+        Cipher cipher = acquireCipher();
         try {
             cipher.init(Cipher.ENCRYPT_MODE, secretKey);
             byte[] iv = cipher.getIV();
-            byte[] encryptedData;
-            encryptedData = cipher.doFinal(contentBytes);
-            ByteBuffer byteBuffer = ByteBuffer.allocate(4 + iv.length + encryptedData.length);
+            byte[] encryptedData = new byte[4 + iv.length + cipher.getOutputSize(contentBytes.length)];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(encryptedData);
             byteBuffer.putInt(iv.length);
             byteBuffer.put(iv);
-            byteBuffer.put(encryptedData);
-            return byteBuffer.array();
-        } catch (InvalidKeyException | IllegalBlockSizeException | BadPaddingException e) {
+            int length = cipher.doFinal(contentBytes, 0, contentBytes.length, encryptedData, byteBuffer.position());
+            int totalLength = byteBuffer.position() + length;
+            return totalLength == encryptedData.length ? encryptedData : Arrays.copyOf(encryptedData, totalLength);
+        } catch (InvalidKeyException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new RuntimeException(e);
+        } finally {
+            cipherProvider.release(transformation, cipher);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The header (IV length and IV) is emitted first, followed by the cipher text
+     * which is produced block by block while the returned stream is read.
+     * The cipher is handed back to the {@link CipherProvider} when the returned stream is closed.
+     */
+    @Override
+    public InputStream encryptStream(InputStream contentStream) {
+        Cipher cipher = acquireCipher();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            byte[] iv = cipher.getIV();
+            ByteBuffer header = ByteBuffer.allocate(4 + iv.length);
+            header.putInt(iv.length);
+            header.put(iv);
+            return new CipherReleasingInputStream(
+                    new SequenceInputStream(
+                            new ByteArrayInputStream(header.array()),
+                            new CipherInputStream(contentStream, cipher)),
+                    cipherProvider, transformation, cipher);
+        } catch (InvalidKeyException e) {
+            cipherProvider.release(transformation, cipher);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The header (IV length and IV) is read immediately, the cipher text is decrypted
+     * block by block while the returned stream is read.
+     * The cipher is handed back to the {@link CipherProvider} when the returned stream is closed.
+     */
+    @Override
+    public InputStream decryptStream(InputStream encryptedStream) throws IOException {
+        DataInputStream dataStream = new DataInputStream(encryptedStream);
+        int ivLength = dataStream.readInt();
+        Cipher cipher = acquireCipher();
+        try {
+            if(ivLength <= 0 || ivLength > cipher.getBlockSize()) throw new IOException("Invalid IV length: " + ivLength);
+            byte[] iv = new byte[ivLength];
+            dataStream.readFully(iv);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec(iv));
+            return new CipherReleasingInputStream(
+                    new CipherInputStream(encryptedStream, cipher),
+                    cipherProvider, transformation, cipher);
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+            cipherProvider.release(transformation, cipher);
             throw new RuntimeException(e);
+        } catch (IOException e) {
+            cipherProvider.release(transformation, cipher);
+            throw e;
         }
     }
 
+    /**
+     * Creates the parameters to decrypt with a stored IV. GCM needs the length of its tag in addition to the IV.
+     * @param iv the stored IV
+     * @return the {@link AlgorithmParameterSpec}
+     */
+    private AlgorithmParameterSpec parameterSpec(byte[] iv) {
+        if(transformation.toUpperCase().contains("/GCM/")) return new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
+        return new IvParameterSpec(iv);
+    }
+
+    /**
+     * Acquires a cipher for the transformation of this cryptographer.
+     * @return the {@link Cipher}
+     */
+    private Cipher acquireCipher() {
+        try {
+            return cipherProvider.acquire(transformation);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
 }
@@ -1,5 +1,8 @@
 package de.storagesystem.api.cryptography;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * @author Simon Brebeck
  */
@@ -20,4 +23,23 @@ public interface FileCryptographer {
      * @return The decrypted bytes
      */
     byte[] decryptFile(byte[] encryptedContentBytes);
+
+    /**
+     * Wraps a stream of plain bytes into a stream that returns the encrypted bytes in the same format as
+     * {@link #encryptFile(byte[])}, without loading the whole content into memory.
+     *
+     * @param contentStream The stream of bytes to encrypt
+     * @return The stream of encrypted bytes
+     */
+    InputStream encryptStream(InputStream contentStream);
+
+    /**
+     * Wraps a stream of encrypted bytes, as produced by {@link #encryptStream(InputStream)}, into a stream
+     * that returns the decrypted bytes while it is read.
+     *
+     * @param encryptedStream The stream of bytes to decrypt
+     * @return The stream of decrypted bytes
+     * @throws IOException if the header of the encrypted stream could not be read
+     */
+    InputStream decryptStream(InputStream encryptedStream) throws IOException;
 }
@@ -0,0 +1,98 @@
+package de.storagesystem.api.cryptography;
+
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates the {@link FileCryptographer} for an {@link EncryptionFormat}. All cryptographers created by one
+ * factory share its {@link CipherProvider}, so a {@link CipherPool} reuses the ciphers across requests.
+ * The factory is thread-safe.
+ *
+ * @author Simon Brebeck
+ */
+public class FileCryptographerFactory {
+
+    /**
+     * The {@link CipherProvider} shared by all created cryptographers.
+     */
+    private final CipherProvider cipherProvider;
+
+    /**
+     * The size of the plain segments of files encrypted with {@link EncryptionFormat#SEGMENTED_GCM}.
+     */
+    private final int segmentSize;
+
+    /**
+     * The {@link ExecutorService} the segments of segmented files are processed on, or null to process them
+     * on the reading thread.
+     */
+    private final ExecutorService segmentExecutor;
+
+    /**
+     * The maximum number of segments of one stream that are processed ahead of the reader.
+     */
+    private final int segmentWindow;
+
+    /**
+     * Instantiates a new FileCryptographerFactory.
+     *
+     * @param cipherProvider the {@link CipherProvider} shared by all created cryptographers
+     * @param segmentSize the size of the plain segments of files encrypted with {@link EncryptionFormat#SEGMENTED_GCM}
+     */
+    public FileCryptographerFactory(CipherProvider cipherProvider, int segmentSize) {
+        this(cipherProvider, segmentSize, null, 1);
+    }
+
+    /**
+     * Instantiates a new FileCryptographerFactory whose segmented cryptographers process the segments of a file
+     * in parallel.
+     *
+     * @param cipherProvider the {@link CipherProvider} shared by all created cryptographers
+     * @param segmentSize the size of the plain segments of files encrypted with {@link EncryptionFormat#SEGMENTED_GCM}
+     * @param segmentExecutor the executor the segments are processed on, or null to process them on the reading thread
+     * @param segmentWindow the maximum number of segments of one stream that are processed ahead of the reader
+     */
+    public FileCryptographerFactory(
+            CipherProvider cipherProvider,
+            int segmentSize,
+            ExecutorService segmentExecutor,
+            int segmentWindow) {
+        this.cipherProvider = cipherProvider;
+        this.segmentSize = segmentSize;
+        this.segmentExecutor = segmentExecutor;
+        this.segmentWindow = segmentWindow;
+    }
+
+    /**
+     * Creates a {@link FileCryptographer} for a format.
+     *
+     * @param format the format in which the file is encrypted
+     * @param secretKey the key of the user who owns the file
+     * @return the {@link FileCryptographer}
+     * @throws NoSuchPaddingException if the padding of the format is not supported
+     * @throws NoSuchAlgorithmException if the algorithm of the format is not supported
+     */
+    public FileCryptographer create(EncryptionFormat format, SecretKey secretKey)
+            throws NoSuchPaddingException, NoSuchAlgorithmException {
+        return switch (format) {
+            case CBC -> new FileAESCryptographer(secretKey, format.getTransformation(), cipherProvider);
+            case SEGMENTED_GCM -> new SegmentedAESCryptographer(
+                    secretKey,
+                    segmentSize,
+                    cipherProvider,
+                    segmentExecutor,
+                    segmentWindow);
+        };
+    }
+
+    /**
+     * Getter for the {@link CipherProvider} shared by all created cryptographers.
+     *
+     * @return the {@link CipherProvider}
+     */
+    public CipherProvider getCipherProvider() {
+        return cipherProvider;
+    }
+}
@@ -0,0 +1,28 @@
+package de.storagesystem.api.cryptography;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A {@link CipherProvider} that creates a new {@link Cipher} for every operation.
+ *
+ * @author Simon Brebeck
+ */
+public class NewCipherProvider implements CipherProvider {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cipher acquire(String transformation) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        return Cipher.getInstance(transformation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String transformation, Cipher cipher) {
+    }
+}
@@ -0,0 +1,44 @@
+package de.storagesystem.api.cryptography;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link FileCryptographer} whose encrypted format allows decrypting a range of the file
+ * without reading the file from the beginning.
+ *
+ * @author Simon Brebeck
+ */
+public interface SeekableFileCryptographer extends FileCryptographer {
+
+    /**
+     * Returns the number of bytes at the start of each encrypted file that contain its header.
+     * @return the length of the header in bytes
+     */
+    int headerLength();
+
+    /**
+     * Calculates which range of the encrypted file is needed to decrypt a range of the plain file.
+     *
+     * @param header The header of the encrypted file
+     * @param plainLength The length of the plain file
+     * @param plainRange The range of the plain file
+     * @return The range of the encrypted file
+     * @throws IOException if the header is invalid
+     */
+    ByteRange encryptedRange(byte[] header, long plainLength, ByteRange plainRange) throws IOException;
+
+    /**
+     * Wraps the encrypted bytes of the range calculated by {@link #encryptedRange(byte[], long, ByteRange)}
+     * into a stream that returns exactly the bytes of the range of the plain file.
+     *
+     * @param header The header of the encrypted file
+     * @param encryptedStream The stream of encrypted bytes, starting at the encrypted range
+     * @param plainLength The length of the plain file
+     * @param plainRange The range of the plain file
+     * @return The stream of decrypted bytes of the range
+     * @throws IOException if the header is invalid
+     */
+    InputStream decryptRange(byte[] header, InputStream encryptedStream, long plainLength, ByteRange plainRange)
+            throws IOException;
+}
@@ -0,0 +1,123 @@
+package de.storagesystem.api.cryptography;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Objects;
+
+/**
+ * An {@link InputStream} that reads a source stream segment by segment and returns the transformed segments.
+ * Subclasses load the next transformed segment into {@link #segment} when {@link #loadSegment()} is called.
+ *
+ * @author Simon Brebeck
+ */
+abstract class SegmentInputStream extends InputStream {
+
+    /**
+     * The stream the segments are read from
+     */
+    protected final PushbackInputStream source;
+
+    /**
+     * The buffer containing the current transformed segment
+     */
+    protected byte[] segment = new byte[0];
+
+    /**
+     * The number of valid bytes in {@link #segment}
+     */
+    protected int segmentLength = 0;
+
+    /**
+     * The position of the next byte to return from {@link #segment}
+     */
+    private int position = 0;
+
+    /**
+     * Whether the last segment has been loaded
+     */
+    private boolean finished = false;
+
+    /**
+     * Instantiates a new SegmentInputStream.
+     * @param source the stream the segments are read from
+     */
+    protected SegmentInputStream(InputStream source) {
+        this.source = new PushbackInputStream(source, 1);
+    }
+
+    /**
+     * Loads the next transformed segment into {@link #segment} and sets {@link #segmentLength}.
+     * @return true if a segment was loaded, false if there are no more segments
+     * @throws IOException if the source could not be read or the segment could not be transformed
+     */
+    protected abstract boolean loadSegment() throws IOException;
+
+    /**
+     * Checks whether the source stream has no more bytes, without consuming a byte.
+     * @return true if the end of the source stream is reached
+     * @throws IOException if the source could not be read
+     */
+    protected boolean isSourceExhausted() throws IOException {
+        int next = source.read();
+        if(next == -1) return true;
+        source.unread(next);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if(!fill()) return -1;
+        return segment[position++] & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if(len == 0) return 0;
+        if(!fill()) return -1;
+
+        int count = Math.min(len, segmentLength - position);
+        System.arraycopy(segment, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+        return segmentLength - position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Loads segments until there is at least one unread byte.
+     * @return true if there is an unread byte, false if the end of the stream is reached
+     * @throws IOException if a segment could not be loaded
+     */
+    private boolean fill() throws IOException {
+        while(position >= segmentLength) {
+            if(finished || !loadSegment()) {
+                finished = true;
+                return false;
+            }
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,708 @@
+package de.storagesystem.api.cryptography;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Encrypts files as a sequence of independently authenticated AES/GCM segments, so that any range of a file
+ * can be decrypted by reading only the segments that contain it.
+ * <p>
+ * The encrypted file starts with a header of {@value #HEADER_LENGTH} bytes: the magic bytes {@code SSEG},
+ * the format version, the plain segment size, a random salt and a random nonce prefix of the file. It is followed
+ * by the segments, each being the cipher text of up to one plain segment and a {@value #TAG_LENGTH} byte tag.
+ * The segments are encrypted with a key of their own for each file, derived from the key of the user and the salt
+ * with HKDF-SHA256, so the short nonce prefixes never repeat under the same key. The IV of a segment consists of
+ * the nonce prefix, the index of the segment and a flag marking the last segment, so segments can neither be
+ * reordered, exchanged between files nor cut off unnoticed.
+ * <p>
+ * Files of the first version of the format have a header of {@value #V1_HEADER_LENGTH} bytes without a salt,
+ * their segments are encrypted with the key of the user. They can still be decrypted, but are no longer created.
+ * <p>
+ * As the segments are independent of each other, the segments of large files can be encrypted and decrypted
+ * in parallel on an {@link ExecutorService}.
+ *
+ * @author Simon Brebeck
+ */
+public class SegmentedAESCryptographer implements SeekableFileCryptographer {
+
+    /**
+     * The length of the header of newly encrypted files in bytes.
+     */
+    public static final int HEADER_LENGTH = 48;
+
+    /**
+     * The length of the header of files of the first version of the format in bytes.
+     */
+    private static final int V1_HEADER_LENGTH = 16;
+
+    /**
+     * The length of the magic bytes and the format version at the start of each header in bytes.
+     */
+    private static final int PREFIX_LENGTH = 5;
+
+    /**
+     * The default size of the plain segments in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    /**
+     * The length of the authentication tag of each segment in bytes.
+     */
+    private static final int TAG_LENGTH = 16;
+
+    /**
+     * The length of the random nonce prefix in bytes.
+     */
+    private static final int NONCE_PREFIX_LENGTH = 7;
+
+    /**
+     * The length of the random salt the key of a file is derived with in bytes.
+     */
+    private static final int SALT_LENGTH = 32;
+
+    /**
+     * The magic bytes at the start of each encrypted file.
+     */
+    private static final byte[] MAGIC = {'S', 'S', 'E', 'G'};
+
+    /**
+     * The version of the format of newly encrypted files.
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * The version of the format whose segments are encrypted with the key of the user.
+     */
+    private static final byte V1 = 1;
+
+    /**
+     * The context the keys of the files are derived with.
+     */
+    private static final byte[] KEY_INFO = {'S', 'S', 'E', 'G', VERSION};
+
+    /**
+     * The {@link SecureRandom} used to create the salts and nonce prefixes.
+     */
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * An {@link SecretKey} instance used for encryption and decryption.
+     */
+    private final SecretKey secretKey;
+
+    /**
+     * The MAC the keys of the files are derived with.
+     */
+    private static final String KEY_DERIVATION = "HmacSHA256";
+
+    /**
+     * The transformation of the ciphers that encrypt and decrypt the segments.
+     */
+    private static final String TRANSFORMATION = EncryptionFormat.SEGMENTED_GCM.getTransformation();
+
+    /**
+     * The {@link CipherProvider} the ciphers are acquired from for each stream.
+     */
+    private final CipherProvider cipherProvider;
+
+    /**
+     * The size of the plain segments of newly encrypted files.
+     */
+    private final int segmentSize;
+
+    /**
+     * The {@link ExecutorService} the segments are encrypted and decrypted on, or null to process them
+     * on the thread that reads the stream.
+     */
+    private final ExecutorService segmentExecutor;
+
+    /**
+     * The maximum number of segments of one stream that are processed ahead of the reader.
+     */
+    private final int segmentWindow;
+
+    /**
+     * Instantiates a new SegmentedAESCryptographer.
+     * @param secretKey the key used for encryption and decryption
+     * @param segmentSize the size of the plain segments of newly encrypted files
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws NoSuchAlgorithmException if AES/GCM is not supported
+     */
+    public SegmentedAESCryptographer(SecretKey secretKey, int segmentSize) throws NoSuchPaddingException, NoSuchAlgorithmException {
+        this(secretKey, segmentSize, new NewCipherProvider());
+    }
+
+    /**
+     * Instantiates a new SegmentedAESCryptographer that acquires its ciphers from a {@link CipherProvider}.
+     * @param secretKey the key used for encryption and decryption
+     * @param segmentSize the size of the plain segments of newly encrypted files
+     * @param cipherProvider the provider the ciphers are acquired from
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws NoSuchAlgorithmException if AES/GCM is not supported
+     */
+    public SegmentedAESCryptographer(SecretKey secretKey, int segmentSize, CipherProvider cipherProvider)
+            throws NoSuchPaddingException, NoSuchAlgorithmException {
+        this(secretKey, segmentSize, cipherProvider, null, 1);
+    }
+
+    /**
+     * Instantiates a new SegmentedAESCryptographer that encrypts and decrypts the segments of each stream
+     * in parallel on an {@link ExecutorService}, while the segments are still returned in order.
+     * @param secretKey the key used for encryption and decryption
+     * @param segmentSize the size of the plain segments of newly encrypted files
+     * @param cipherProvider the provider the ciphers are acquired from
+     * @param segmentExecutor the executor the segments are processed on, or null to process them on the reading thread
+     * @param segmentWindow the maximum number of segments of one stream that are processed ahead of the reader
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws NoSuchAlgorithmException if AES/GCM is not supported
+     */
+    public SegmentedAESCryptographer(
+            SecretKey secretKey,
+            int segmentSize,
+            CipherProvider cipherProvider,
+            ExecutorService segmentExecutor,
+            int segmentWindow)
+            throws NoSuchPaddingException, NoSuchAlgorithmException {
+        if(segmentSize <= 0) throw new IllegalArgumentException("Segment size must be greater than 0");
+        if(segmentWindow <= 0) throw new IllegalArgumentException("Segment window must be greater than 0");
+        this.secretKey = secretKey;
+        this.segmentSize = segmentSize;
+        this.cipherProvider = cipherProvider;
+        this.segmentExecutor = segmentExecutor;
+        this.segmentWindow = segmentWindow;
+        // Fail on an unsupported transformation here instead of during the first operation
+        cipherProvider.release(TRANSFORMATION, cipherProvider.acquire(TRANSFORMATION));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encryptFile(byte[] contentBytes) {
+        try (InputStream encryptedStream = encryptStream(new ByteArrayInputStream(contentBytes))) {
+            return encryptedStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] decryptFile(byte[] encryptedContentBytes) {
+        try (InputStream decryptedStream = decryptStream(new ByteArrayInputStream(encryptedContentBytes))) {
+            return decryptedStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream encryptStream(InputStream contentStream) {
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        random.nextBytes(salt);
+        random.nextBytes(noncePrefix);
+        return new EncryptingStream(contentStream, new Header(VERSION, segmentSize, salt, noncePrefix, deriveKey(salt)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream decryptStream(InputStream encryptedStream) throws IOException {
+        byte[] prefix = encryptedStream.readNBytes(PREFIX_LENGTH);
+        if(prefix.length < PREFIX_LENGTH) throw new IOException("Encrypted file header is truncated");
+        byte[] rest = encryptedStream.readNBytes(headerLength(prefix[MAGIC.length]) - PREFIX_LENGTH);
+        byte[] bytes = Arrays.copyOf(prefix, PREFIX_LENGTH + rest.length);
+        System.arraycopy(rest, 0, bytes, PREFIX_LENGTH, rest.length);
+        Header header = parseHeader(bytes);
+        return new DecryptingStream(encryptedStream, header, 0, Long.MAX_VALUE, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The header of files of the first version of the format is shorter, the bytes following it are ignored.
+     */
+    @Override
+    public int headerLength() {
+        return HEADER_LENGTH;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteRange encryptedRange(byte[] header, long plainLength, ByteRange plainRange) throws IOException {
+        Header parsedHeader = parseHeader(header);
+        checkRange(plainLength, plainRange);
+
+        int headerLength = parsedHeader.length();
+        long encryptedSegmentSize = parsedHeader.segmentSize() + TAG_LENGTH;
+        long firstSegment = plainRange.start() / parsedHeader.segmentSize();
+        long lastSegment = plainRange.end() / parsedHeader.segmentSize();
+        long start = headerLength + firstSegment * encryptedSegmentSize;
+        long end = Math.min(headerLength + (lastSegment + 1) * encryptedSegmentSize,
+                encryptedLength(headerLength, parsedHeader.segmentSize(), plainLength)) - 1;
+        return new ByteRange(start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream decryptRange(byte[] header, InputStream encryptedStream, long plainLength, ByteRange plainRange)
+            throws IOException {
+        Header parsedHeader = parseHeader(header);
+        checkRange(plainLength, plainRange);
+
+        int plainSegmentSize = parsedHeader.segmentSize();
+        long firstSegment = plainRange.start() / plainSegmentSize;
+        long lastSegment = plainRange.end() / plainSegmentSize;
+        long finalSegment = Math.max(0, (plainLength - 1) / plainSegmentSize);
+
+        InputStream decryptedStream = new DecryptingStream(encryptedStream, parsedHeader, firstSegment, lastSegment, finalSegment);
+        decryptedStream.skipNBytes(plainRange.start() - firstSegment * plainSegmentSize);
+        return new BoundedInputStream(decryptedStream, plainRange.length());
+    }
+
+    /**
+     * Calculates the length of a newly encrypted file.
+     * @param segmentSize the size of the plain segments
+     * @param plainLength the length of the plain file
+     * @return the length of the encrypted file in bytes
+     */
+    public static long encryptedLength(int segmentSize, long plainLength) {
+        return encryptedLength(HEADER_LENGTH, segmentSize, plainLength);
+    }
+
+    private static long encryptedLength(int headerLength, int segmentSize, long plainLength) {
+        long segments = Math.max(1, (plainLength + segmentSize - 1) / segmentSize);
+        return headerLength + plainLength + segments * TAG_LENGTH;
+    }
+
+    /**
+     * Returns the length of the header of a format version.
+     * @param version the format version
+     * @return the length of the header in bytes
+     * @throws IOException if the version is not supported
+     */
+    private static int headerLength(byte version) throws IOException {
+        return switch(version) {
+            case VERSION -> HEADER_LENGTH;
+            case V1 -> V1_HEADER_LENGTH;
+            default -> throw new IOException("Unsupported segmented format version " + version);
+        };
+    }
+
+    /**
+     * Derives the key of a file from the key of the user and the salt of the file with HKDF-SHA256 (RFC 5869).
+     * The derived key has the length of the key of the user.
+     * @param salt the salt of the file
+     * @return the key the segments of the file are encrypted with
+     */
+    private SecretKey deriveKey(byte[] salt) {
+        try {
+            Mac mac = Mac.getInstance(KEY_DERIVATION);
+            mac.init(new SecretKeySpec(salt, KEY_DERIVATION));
+            byte[] pseudoRandomKey = mac.doFinal(secretKey.getEncoded());
+            mac.init(new SecretKeySpec(pseudoRandomKey, KEY_DERIVATION));
+            mac.update(KEY_INFO);
+            mac.update((byte) 1);
+            byte[] key = Arrays.copyOf(mac.doFinal(), secretKey.getEncoded().length);
+            return new SecretKeySpec(key, "AES");
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parses the header of an encrypted file and derives the key of the file.
+     * @param bytes the bytes at the start of the file, at least the header
+     * @return the header
+     * @throws IOException if the bytes are no valid header
+     */
+    private Header parseHeader(byte[] bytes) throws IOException {
+        if(bytes.length < PREFIX_LENGTH) throw new IOException("Encrypted file header is truncated");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if(!Arrays.equals(magic, MAGIC)) throw new IOException("Encrypted file is not segmented");
+        byte version = buffer.get();
+        if(bytes.length < headerLength(version)) throw new IOException("Encrypted file header is truncated");
+        int segmentSize = buffer.getInt();
+        if(segmentSize <= 0) throw new IOException("Invalid segment size " + segmentSize);
+        byte[] salt = new byte[version == V1 ? 0 : SALT_LENGTH];
+        buffer.get(salt);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        buffer.get(noncePrefix);
+        SecretKey fileKey = (version == V1) ? secretKey : deriveKey(salt);
+        return new Header(version, segmentSize, salt, noncePrefix, fileKey);
+    }
+
+    /**
+     * Checks if a range lies inside a file.
+     * @param plainLength the length of the plain file
+     * @param plainRange the range to check
+     * @throws IllegalArgumentException if the range is empty or exceeds the file
+     */
+    private void checkRange(long plainLength, ByteRange plainRange) {
+        if(plainRange.start() < 0 || plainRange.end() < plainRange.start() || plainRange.end() >= plainLength)
+            throw new IllegalArgumentException("Invalid range " + plainRange + " for length " + plainLength);
+    }
+
+    /**
+     * Acquires a cipher for the segments of one stream.
+     * @return the {@link Cipher}
+     */
+    private Cipher acquireCipher() {
+        try {
+            return cipherProvider.acquire(TRANSFORMATION);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Initializes the cipher for a segment.
+     * @param cipher the cipher to initialize
+     * @param mode the cipher mode
+     * @param header the header of the file
+     * @param index the index of the segment
+     * @param last whether the segment is the last segment of the file
+     * @throws IOException if the segment index exceeds the format
+     */
+    private void initCipher(Cipher cipher, int mode, Header header, long index, boolean last) throws IOException {
+        if(index > Integer.MAX_VALUE) throw new IOException("File exceeds the maximum number of segments");
+        ByteBuffer iv = ByteBuffer.allocate(NONCE_PREFIX_LENGTH + 5);
+        iv.put(header.noncePrefix());
+        iv.putInt((int) index);
+        iv.put((byte) (last ? 1 : 0));
+        try {
+            cipher.init(mode, header.key(), new GCMParameterSpec(TAG_LENGTH * 8, iv.array()));
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The header of an encrypted file.
+     * @param version the format version
+     * @param segmentSize the size of the plain segments
+     * @param salt the random salt the key of the file is derived with, empty for the first version
+     * @param noncePrefix the random nonce prefix of the file
+     * @param key the key the segments of the file are encrypted with
+     */
+    private record Header(byte version, int segmentSize, byte[] salt, byte[] noncePrefix, SecretKey key) {
+
+        /**
+         * Returns the length of the header.
+         * @return the length of the header in bytes
+         */
+        int length() {
+            return PREFIX_LENGTH + 4 + salt.length + noncePrefix.length;
+        }
+
+        /**
+         * Serializes the header.
+         * @return the bytes of the header
+         */
+        byte[] toBytes() {
+            return ByteBuffer.allocate(length())
+                    .put(MAGIC)
+                    .put(version)
+                    .putInt(segmentSize)
+                    .put(salt)
+                    .put(noncePrefix)
+                    .array();
+        }
+    }
+
+    /**
+     * A segment read from the source stream, waiting to be encrypted or decrypted.
+     * @param index the index of the segment
+     * @param last whether the segment is the last segment of the file
+     * @param data the buffer holding the segment
+     * @param length the number of valid bytes in the buffer
+     */
+    private record RawSegment(long index, boolean last, byte[] data, int length) { }
+
+    /**
+     * A {@link SegmentInputStream} that reads raw segments from its source and returns them encrypted or decrypted.
+     * <p>
+     * Without an executor, the segments are processed one after another on the reading thread with a single
+     * cipher held for the lifetime of the stream. With an executor, up to {@link #segmentWindow} segments are
+     * submitted ahead of the reader, each one with a cipher of its own, and the results are returned in the
+     * order of the segments. A file that consists of a single segment is always processed on the reading thread.
+     */
+    private abstract class SegmentTransformingStream extends SegmentInputStream {
+
+        /**
+         * The segments submitted to the executor, in the order of the file.
+         */
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        /**
+         * The buffer the raw segments are read into when they are processed on the reading thread.
+         */
+        private final byte[] rawBuffer;
+
+        /**
+         * The buffer the segments are transformed into when they are processed on the reading thread.
+         */
+        private final byte[] transformedBuffer;
+
+        /**
+         * The cipher of the reading thread, acquired when it is needed first.
+         */
+        private Cipher cipher;
+
+        /**
+         * Instantiates a new SegmentTransformingStream.
+         * @param source the stream the raw segments are read from
+         * @param rawSegmentSize the size of the raw segments in bytes
+         * @param transformedSegmentSize the maximum size of the transformed segments in bytes
+         */
+        SegmentTransformingStream(InputStream source, int rawSegmentSize, int transformedSegmentSize) {
+            super(source);
+            this.rawBuffer = new byte[rawSegmentSize];
+            this.transformedBuffer = new byte[transformedSegmentSize];
+            this.segment = transformedBuffer;
+        }
+
+        /**
+         * Reads the next raw segment from the source.
+         * @param buffer the buffer to read the segment into
+         * @return the raw segment, or null if there are no more segments
+         * @throws IOException if the source could not be read or is truncated
+         */
+        protected abstract RawSegment readSegment(byte[] buffer) throws IOException;
+
+        /**
+         * Checks whether {@link #readSegment(byte[])} returns further segments.
+         * @return true if there are segments left to read
+         */
+        protected abstract boolean hasMoreSegments();
+
+        /**
+         * Encrypts or decrypts a raw segment.
+         * @param cipher the cipher to use
+         * @param raw the raw segment
+         * @param output the buffer the result is written to
+         * @return the number of bytes written to the buffer
+         * @throws IOException if the segment could not be transformed
+         */
+        protected abstract int transform(Cipher cipher, RawSegment raw, byte[] output) throws IOException;
+
+        @Override
+        protected boolean loadSegment() throws IOException {
+            if(segmentExecutor == null || segmentWindow == 1) return loadSegmentInline(readSegment(rawBuffer));
+
+            while(pending.size() < segmentWindow) {
+                RawSegment raw = readSegment(new byte[rawBuffer.length]);
+                if(raw == null) break;
+                // Small files do not pay for handing their only segment to another thread
+                if(pending.isEmpty() && !hasMoreSegments()) return loadSegmentInline(raw);
+                pending.addLast(segmentExecutor.submit(() -> transformWithOwnCipher(raw)));
+            }
+
+            Future<byte[]> next = pending.pollFirst();
+            if(next == null) return false;
+            segment = await(next);
+            segmentLength = segment.length;
+            return true;
+        }
+
+        /**
+         * Transforms a raw segment on the reading thread into {@link #segment}.
+         * @param raw the raw segment, or null if there are no more segments
+         * @return true if a segment was loaded
+         * @throws IOException if the segment could not be transformed
+         */
+        private boolean loadSegmentInline(RawSegment raw) throws IOException {
+            if(raw == null) return false;
+            if(cipher == null) cipher = acquireCipher();
+            segment = transformedBuffer;
+            segmentLength = transform(cipher, raw, segment);
+            return true;
+        }
+
+        /**
+         * Transforms a raw segment on the executor with a cipher acquired for this segment only.
+         * @param raw the raw segment
+         * @return the transformed segment
+         * @throws IOException if the segment could not be transformed
+         */
+        private byte[] transformWithOwnCipher(RawSegment raw) throws IOException {
+            Cipher segmentCipher = acquireCipher();
+            try {
+                byte[] output = new byte[transformedBuffer.length];
+                int length = transform(segmentCipher, raw, output);
+                return length == output.length ? output : Arrays.copyOf(output, length);
+            } finally {
+                cipherProvider.release(TRANSFORMATION, segmentCipher);
+            }
+        }
+
+        /**
+         * Waits for a segment submitted to the executor.
+         * @param future the future of the segment
+         * @return the transformed segment
+         * @throws IOException if the segment could not be transformed
+         */
+        private byte[] await(Future<byte[]> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a segment");
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof IOException ioException) throw ioException;
+                throw new IOException("Could not transform segment", e.getCause());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                pending.forEach(future -> future.cancel(false));
+                pending.clear();
+                if(cipher != null) {
+                    cipherProvider.release(TRANSFORMATION, cipher);
+                    cipher = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the header followed by the encrypted segments of a plain stream.
+     */
+    private final class EncryptingStream extends SegmentTransformingStream {
+
+        private final Header header;
+        private long index = 0;
+        private boolean headerWritten = false;
+        private boolean lastRead = false;
+
+        EncryptingStream(InputStream contentStream, Header header) {
+            super(contentStream, header.segmentSize(), Math.max(HEADER_LENGTH, header.segmentSize() + TAG_LENGTH));
+            this.header = header;
+        }
+
+        @Override
+        protected boolean loadSegment() throws IOException {
+            if(!headerWritten) {
+                byte[] headerBytes = header.toBytes();
+                System.arraycopy(headerBytes, 0, segment, 0, headerBytes.length);
+                segmentLength = headerBytes.length;
+                headerWritten = true;
+                return true;
+            }
+            return super.loadSegment();
+        }
+
+        @Override
+        protected RawSegment readSegment(byte[] buffer) throws IOException {
+            if(lastRead) return null;
+            int length = source.readNBytes(buffer, 0, buffer.length);
+            boolean last = length < buffer.length || isSourceExhausted();
+            lastRead = last;
+            return new RawSegment(index++, last, buffer, length);
+        }
+
+        @Override
+        protected boolean hasMoreSegments() {
+            return !lastRead;
+        }
+
+        @Override
+        protected int transform(Cipher cipher, RawSegment raw, byte[] output) throws IOException {
+            initCipher(cipher, Cipher.ENCRYPT_MODE, header, raw.index(), raw.last());
+            try {
+                return cipher.doFinal(raw.data(), 0, raw.length(), output, 0);
+            } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+                throw new IOException("Could not encrypt segment " + raw.index(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the decrypted segments of an encrypted stream.
+     */
+    private final class DecryptingStream extends SegmentTransformingStream {
+
+        private final Header header;
+        private final long lastIndex;
+        private final long finalIndex;
+        private long index;
+        private boolean done = false;
+
+        /**
+         * Instantiates a new DecryptingStream.
+         * @param encryptedStream the encrypted stream, positioned at the first segment to decrypt
+         * @param header the header of the file
+         * @param firstIndex the index of the first segment to decrypt
+         * @param lastIndex the index of the last segment to decrypt
+         * @param finalIndex the index of the last segment of the file, or -1 if it is detected by the end of the stream
+         */
+        DecryptingStream(InputStream encryptedStream, Header header, long firstIndex, long lastIndex, long finalIndex) {
+            super(encryptedStream, header.segmentSize() + TAG_LENGTH, header.segmentSize());
+            this.header = header;
+            this.index = firstIndex;
+            this.lastIndex = lastIndex;
+            this.finalIndex = finalIndex;
+        }
+
+        @Override
+        protected RawSegment readSegment(byte[] buffer) throws IOException {
+            if(done) return null;
+
+            int length = source.readNBytes(buffer, 0, buffer.length);
+            if(length < TAG_LENGTH) throw new IOException("Encrypted file is truncated at segment " + index);
+            boolean last = (finalIndex >= 0)
+                    ? index == finalIndex
+                    : length < buffer.length || isSourceExhausted();
+            done = last || index >= lastIndex;
+            return new RawSegment(index++, last, buffer, length);
+        }
+
+        @Override
+        protected boolean hasMoreSegments() {
+            return !done;
+        }
+
+        @Override
+        protected int transform(Cipher cipher, RawSegment raw, byte[] output) throws IOException {
+            initCipher(cipher, Cipher.DECRYPT_MODE, header, raw.index(), raw.last());
+            try {
+                return cipher.doFinal(raw.data(), 0, raw.length(), output, 0);
+            } catch (AEADBadTagException e) {
+                throw new IOException("Segment " + raw.index() + " of the encrypted file failed authentication", e);
+            } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+                throw new IOException("Could not decrypt segment " + raw.index(), e);
+            }
+        }
+    }
+}
@@ -54,6 +54,18 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
                 "message", e.getMessage()));
     }
 
+    /**
+     * Handles {@link PermissionDeniedException} and returns a 403 status code with an error message.
+     * @param e {@link PermissionDeniedException} to handle
+     * @return A {@link ResponseEntity} with a 403 status code
+     */
+    @ExceptionHandler(PermissionDeniedException.class)
+    public ResponseEntity<Map<String, String>> handlePermissionDeniedException(PermissionDeniedException e) {
+        return ResponseEntity.status(403).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()));
+    }
+
     /**
      * Handles {@link UserInputValidationException} and returns a 400 status code with an error message.
      * @param e {@link UserInputValidationException} to handle
@@ -0,0 +1,15 @@
+package de.storagesystem.api.exceptions;
+
+/**
+ * @author Simon Brebeck
+ */
+public class PermissionDeniedException extends Exception {
+    /**
+     * Creates a new instance of <code>PermissionDeniedException</code> with the specified detail message.
+     * @param message the detail message. Stored for later retrieval by the {@link #getMessage()} method.
+     */
+    public PermissionDeniedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,32 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the administration of this server.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class AdminProperty {
+
+    /**
+     * The ids of the users that may read the statistics of this server and reload its storage servers.
+     */
+    @NotNull
+    private List<Long> users = new ArrayList<>();
+
+    public List<Long> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<Long> users) {
+        this.users = users;
+    }
+}
@@ -0,0 +1,103 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory caches of this server.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class CacheProperty {
+
+    /**
+     * The maximum number of verified tokens kept, 0 verifies every token.
+     */
+    @Min(0)
+    private long tokenMaximumSize = 10_000;
+
+    /**
+     * The maximum time a verified token is kept, even if the token expires later.
+     */
+    @NotNull
+    private Duration tokenMaxTtl = Duration.ofMinutes(5);
+
+    /**
+     * The maximum number of users kept, 0 loads the user on every request.
+     */
+    @Min(0)
+    private long userMaximumSize = 10_000;
+
+    /**
+     * The time a user is kept after it was loaded.
+     */
+    @NotNull
+    private Duration userTtl = Duration.ofSeconds(30);
+
+    /**
+     * The maximum number of resolved folder paths kept, 0 resolves the path on every request.
+     */
+    @Min(0)
+    private long pathMaximumSize = 100_000;
+
+    /**
+     * The time a resolved folder path is kept after it was last used.
+     */
+    @NotNull
+    private Duration pathTtl = Duration.ofMinutes(10);
+
+    public long getTokenMaximumSize() {
+        return tokenMaximumSize;
+    }
+
+    public void setTokenMaximumSize(long tokenMaximumSize) {
+        this.tokenMaximumSize = tokenMaximumSize;
+    }
+
+    public Duration getTokenMaxTtl() {
+        return tokenMaxTtl;
+    }
+
+    public void setTokenMaxTtl(Duration tokenMaxTtl) {
+        this.tokenMaxTtl = tokenMaxTtl;
+    }
+
+    public long getUserMaximumSize() {
+        return userMaximumSize;
+    }
+
+    public void setUserMaximumSize(long userMaximumSize) {
+        this.userMaximumSize = userMaximumSize;
+    }
+
+    public Duration getUserTtl() {
+        return userTtl;
+    }
+
+    public void setUserTtl(Duration userTtl) {
+        this.userTtl = userTtl;
+    }
+
+    public long getPathMaximumSize() {
+        return pathMaximumSize;
+    }
+
+    public void setPathMaximumSize(long pathMaximumSize) {
+        this.pathMaximumSize = pathMaximumSize;
+    }
+
+    public Duration getPathTtl() {
+        return pathTtl;
+    }
+
+    public void setPathTtl(Duration pathTtl) {
+        this.pathTtl = pathTtl;
+    }
+
+}
@@ -0,0 +1,129 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Settings for the pooled connections to the storage servers of the File Access Layer.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class ConnectionPoolProperty {
+
+    /**
+     * The maximum number of open connections to all storage servers.
+     */
+    @Min(1)
+    private int maxTotal = 200;
+
+    /**
+     * The maximum number of open connections to a single storage server (host and port).
+     */
+    @Min(1)
+    private int maxPerRoute = 50;
+
+    /**
+     * The timeout in milliseconds to establish a connection.
+     */
+    @Min(0)
+    private int connectTimeout = 5_000;
+
+    /**
+     * The timeout in milliseconds to wait for data on an established connection.
+     */
+    @Min(0)
+    private int socketTimeout = 60_000;
+
+    /**
+     * The timeout in milliseconds to wait for a free connection from the pool.
+     */
+    @Min(0)
+    private int connectionRequestTimeout = 5_000;
+
+    /**
+     * The time in milliseconds after which idle connections are closed.
+     */
+    @Min(1)
+    private long idleTimeout = 30_000;
+
+    /**
+     * The time in milliseconds a connection is kept alive if the storage server does not specify it.
+     */
+    @Min(1)
+    private long keepAlive = 30_000;
+
+    /**
+     * The time in milliseconds of inactivity after which a pooled connection is validated before it is reused.
+     */
+    @Min(1)
+    private int validateAfterInactivity = 2_000;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+}
@@ -0,0 +1,74 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Settings for the encryption and decryption of files.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class CryptographyProperty {
+
+    /**
+     * Whether ciphers are pooled and reused across requests instead of being created for every request.
+     */
+    private boolean cipherPooling = true;
+
+    /**
+     * The maximum number of idle ciphers kept per transformation when ciphers are pooled.
+     */
+    @Min(1)
+    private int maxIdleCiphers = 64;
+
+    /**
+     * The number of threads the segments of segmented files are encrypted and decrypted on.
+     * With 1 the segments are processed on the thread that transfers the file.
+     */
+    @Min(1)
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of segments of one file that are processed ahead of the transfer.
+     * Bounds the memory of one transfer to about twice this many segments.
+     */
+    @Min(1)
+    private int segmentWindow = 2 * Runtime.getRuntime().availableProcessors();
+
+    public boolean isCipherPooling() {
+        return cipherPooling;
+    }
+
+    public void setCipherPooling(boolean cipherPooling) {
+        this.cipherPooling = cipherPooling;
+    }
+
+    public int getMaxIdleCiphers() {
+        return maxIdleCiphers;
+    }
+
+    public void setMaxIdleCiphers(int maxIdleCiphers) {
+        this.maxIdleCiphers = maxIdleCiphers;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getSegmentWindow() {
+        return segmentWindow;
+    }
+
+    public void setSegmentWindow(int segmentWindow) {
+        this.segmentWindow = segmentWindow;
+    }
+
+}
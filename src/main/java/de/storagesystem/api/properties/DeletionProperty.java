@@ -0,0 +1,102 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for the deletion of files from the storage servers.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class DeletionProperty {
+
+    /**
+     * Whether a deleted file is only marked as deleted and removed from its storage server in the background,
+     * instead of removing it while the client waits. Files of deleted folders are always removed in the background.
+     */
+    private boolean asynchronous = true;
+
+    /**
+     * The maximum number of deleted files removed from the storage servers in one run.
+     */
+    @Min(1)
+    private int batchSize = 100;
+
+    /**
+     * The maximum number of files or folders of a deleted folder that are deleted with one statement.
+     */
+    @Min(1)
+    private int folderBatchSize = 1000;
+
+    /**
+     * The time between two runs that remove deleted files from the storage servers.
+     */
+    @NotNull
+    private Duration interval = Duration.ofSeconds(10);
+
+    /**
+     * The time until a file that could not be removed is tried again, doubled with every failed attempt.
+     */
+    @NotNull
+    private Duration backoff = Duration.ofSeconds(30);
+
+    /**
+     * The maximum time until a file that could not be removed is tried again.
+     */
+    @NotNull
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getFolderBatchSize() {
+        return folderBatchSize;
+    }
+
+    public void setFolderBatchSize(int folderBatchSize) {
+        this.folderBatchSize = folderBatchSize;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(Duration backoff) {
+        this.backoff = backoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
@@ -0,0 +1,132 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for the health checks of the storage servers.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class HealthProperty {
+
+    /**
+     * Whether the storage servers are checked, otherwise their online status is only read from the database.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The path of the health endpoint of the storage servers.
+     */
+    @NotNull
+    private String path = "/api/health";
+
+    /**
+     * The time between two checks of all storage servers.
+     */
+    @NotNull
+    private Duration interval = Duration.ofSeconds(10);
+
+    /**
+     * The time a storage server has to answer a check.
+     */
+    @NotNull
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /**
+     * The number of checks in a row a storage server has to fail to be taken offline.
+     */
+    @Min(1)
+    private int failureThreshold = 2;
+
+    /**
+     * The weight of the latest response time in the average response time of a storage server.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double responseTimeWeight = 0.2;
+
+    /**
+     * The average response time above which a storage server only receives uploads if no other server can.
+     */
+    @NotNull
+    private Duration slowResponseTime = Duration.ofMillis(500);
+
+    /**
+     * The number of storage servers checked at the same time.
+     */
+    @Min(1)
+    private int parallelism = 8;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public double getResponseTimeWeight() {
+        return responseTimeWeight;
+    }
+
+    public void setResponseTimeWeight(double responseTimeWeight) {
+        this.responseTimeWeight = responseTimeWeight;
+    }
+
+    public Duration getSlowResponseTime() {
+        return slowResponseTime;
+    }
+
+    public void setSlowResponseTime(Duration slowResponseTime) {
+        this.slowResponseTime = slowResponseTime;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+}
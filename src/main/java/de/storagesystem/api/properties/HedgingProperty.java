@@ -0,0 +1,132 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for hedged downloads of files that are stored on several storage servers.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class HedgingProperty {
+
+    /**
+     * Whether a second replica is requested if the first one did not answer within the hedge delay.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The percentile of the recent response times of the storage servers that is used as hedge delay.
+     */
+    @DecimalMin("50.0")
+    @DecimalMax("100.0")
+    private double percentile = 95.0;
+
+    /**
+     * The number of recent response times the percentile is calculated of.
+     */
+    @Min(20)
+    private int window = 1000;
+
+    /**
+     * The hedge delay until enough response times are recorded.
+     */
+    @NotNull
+    private Duration initialDelay = Duration.ofMillis(100);
+
+    /**
+     * The shortest hedge delay, so that fast responses do not double the load on the storage servers.
+     */
+    @NotNull
+    private Duration minDelay = Duration.ofMillis(10);
+
+    /**
+     * The longest hedge delay.
+     */
+    @NotNull
+    private Duration maxDelay = Duration.ofSeconds(2);
+
+    /**
+     * The number of requests to storage servers that hedged downloads run at the same time.
+     */
+    @Min(1)
+    private int parallelism = 64;
+
+    /**
+     * The number of hedged requests that wait for a thread, further downloads are not hedged.
+     */
+    @Min(0)
+    private int queueCapacity = 64;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
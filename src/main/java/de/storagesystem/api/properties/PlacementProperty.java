@@ -0,0 +1,60 @@
+package de.storagesystem.api.properties;
+
+import de.storagesystem.api.servers.PlacementStrategyType;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for the placement of uploaded files on the storage servers.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class PlacementProperty {
+
+    /**
+     * The strategy that chooses the storage server of an upload.
+     */
+    @NotNull
+    private PlacementStrategyType strategy = PlacementStrategyType.POWER_OF_TWO_CHOICES;
+
+    /**
+     * The time between two reloads of the storage servers from the database.
+     */
+    @NotNull
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * The time between two writes of the used and freed storage of the servers to the database.
+     */
+    @NotNull
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    public PlacementStrategyType getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(PlacementStrategyType strategy) {
+        this.strategy = strategy;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+}
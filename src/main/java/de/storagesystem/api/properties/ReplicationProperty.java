@@ -0,0 +1,58 @@
+package de.storagesystem.api.properties;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Settings for the replication of files over several storage servers.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class ReplicationProperty {
+
+    /**
+     * The number of storage servers a file is stored on, for buckets that do not set their own replication factor.
+     */
+    @Min(1)
+    private int factor = 1;
+
+    /**
+     * The highest replication factor a bucket can set.
+     */
+    @Min(1)
+    private int maxFactor = 5;
+
+    /**
+     * The number of uploads to storage servers that run at the same time, including replicas finished in the background.
+     */
+    @Min(1)
+    private int parallelism = 16;
+
+    public int getFactor() {
+        return factor;
+    }
+
+    public void setFactor(int factor) {
+        this.factor = factor;
+    }
+
+    public int getMaxFactor() {
+        return maxFactor;
+    }
+
+    public void setMaxFactor(int maxFactor) {
+        this.maxFactor = maxFactor;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+}
@@ -17,10 +17,80 @@ public class StorageServerConfigProperty {
     @NotNull
     private StorageProperty storage;
 
+    @NotNull
+    private TransferProperty transfer = new TransferProperty();
+
+    @NotNull
+    private ConnectionPoolProperty pool = new ConnectionPoolProperty();
+
+    @NotNull
+    private CryptographyProperty cryptography = new CryptographyProperty();
+
+    @NotNull
+    private CacheProperty cache = new CacheProperty();
+
+    @NotNull
+    private DeletionProperty deletion = new DeletionProperty();
+
+    @NotNull
+    private PlacementProperty placement = new PlacementProperty();
+
+    @NotNull
+    private HealthProperty health = new HealthProperty();
+
+    @NotNull
+    private ReplicationProperty replication = new ReplicationProperty();
+
+    @NotNull
+    private HedgingProperty hedging = new HedgingProperty();
+
+    @NotNull
+    private AdminProperty admin = new AdminProperty();
+
     public StorageProperty getStorage() {
         return storage;
     }
 
+    public TransferProperty getTransfer() {
+        return transfer;
+    }
+
+    public ConnectionPoolProperty getPool() {
+        return pool;
+    }
+
+    public CryptographyProperty getCryptography() {
+        return cryptography;
+    }
+
+    public CacheProperty getCache() {
+        return cache;
+    }
+
+    public DeletionProperty getDeletion() {
+        return deletion;
+    }
+
+    public PlacementProperty getPlacement() {
+        return placement;
+    }
+
+    public HealthProperty getHealth() {
+        return health;
+    }
+
+    public ReplicationProperty getReplication() {
+        return replication;
+    }
+
+    public HedgingProperty getHedging() {
+        return hedging;
+    }
+
+    public AdminProperty getAdmin() {
+        return admin;
+    }
+
     public ServerProperty getServer() {
         return server;
     }
@@ -32,4 +102,44 @@ public class StorageServerConfigProperty {
     public void setStorage(StorageProperty storage) {
         this.storage = storage;
     }
+
+    public void setTransfer(TransferProperty transfer) {
+        this.transfer = transfer;
+    }
+
+    public void setPool(ConnectionPoolProperty pool) {
+        this.pool = pool;
+    }
+
+    public void setCryptography(CryptographyProperty cryptography) {
+        this.cryptography = cryptography;
+    }
+
+    public void setCache(CacheProperty cache) {
+        this.cache = cache;
+    }
+
+    public void setDeletion(DeletionProperty deletion) {
+        this.deletion = deletion;
+    }
+
+    public void setPlacement(PlacementProperty placement) {
+        this.placement = placement;
+    }
+
+    public void setHealth(HealthProperty health) {
+        this.health = health;
+    }
+
+    public void setReplication(ReplicationProperty replication) {
+        this.replication = replication;
+    }
+
+    public void setHedging(HedgingProperty hedging) {
+        this.hedging = hedging;
+    }
+
+    public void setAdmin(AdminProperty admin) {
+        this.admin = admin;
+    }
 }
@@ -0,0 +1,75 @@
+package de.storagesystem.api.properties;
+
+import de.storagesystem.api.cryptography.EncryptionFormat;
+import de.storagesystem.api.cryptography.SegmentedAESCryptographer;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Settings for transferring files between this server and the File Access Layer.
+ *
+ * @author Simon Brebeck
+ */
+@Validated
+@Component
+public class TransferProperty {
+
+    /**
+     * Whether files are piped through the cipher and sent chunked instead of being buffered in memory.
+     */
+    private boolean streaming = true;
+
+    /**
+     * The size of the chunks in bytes when files are streamed to the File Access Layer.
+     */
+    @Min(1024)
+    private int chunkSize = 64 * 1024;
+
+    /**
+     * The format in which newly uploaded files are encrypted.
+     */
+    @NotNull
+    private EncryptionFormat encryptionFormat = EncryptionFormat.SEGMENTED_GCM;
+
+    /**
+     * The size of the plain segments in bytes of files encrypted with {@link EncryptionFormat#SEGMENTED_GCM}.
+     */
+    @Min(1024)
+    private int segmentSize = SegmentedAESCryptographer.DEFAULT_SEGMENT_SIZE;
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public EncryptionFormat getEncryptionFormat() {
+        return encryptionFormat;
+    }
+
+    public void setEncryptionFormat(EncryptionFormat encryptionFormat) {
+        this.encryptionFormat = encryptionFormat;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+}
@@ -0,0 +1,79 @@
+package de.storagesystem.api.servers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Storage reserved on a server for an upload. The reservation is committed once the file is stored, or released
+ * if the upload failed. Closing a reservation that was not committed releases it, so it can be used with
+ * try-with-resources.
+ *
+ * @author Simon Brebeck
+ */
+public class CapacityReservation implements AutoCloseable {
+
+    /**
+     * The server the storage is reserved on.
+     */
+    private final RegisteredServer server;
+
+    /**
+     * The reserved bytes.
+     */
+    private final long bytes;
+
+    /**
+     * Whether the reservation was committed or released.
+     */
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    /**
+     * Instantiates a new CapacityReservation.
+     *
+     * @param server the server the storage is reserved on
+     * @param bytes the reserved bytes
+     */
+    CapacityReservation(RegisteredServer server, long bytes) {
+        this.server = server;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Getter for the storage server the storage is reserved on.
+     *
+     * @return the {@link StorageServer}
+     */
+    public StorageServer getServer() {
+        return server.getServer();
+    }
+
+    /**
+     * Getter for the reserved bytes.
+     *
+     * @return the reserved bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Uses the reserved storage for the stored file. Does nothing if the reservation is already finished.
+     */
+    public void commit() {
+        if(finished.compareAndSet(false, true)) server.commit(bytes);
+    }
+
+    /**
+     * Gives the reserved storage back. Does nothing if the reservation is already finished.
+     */
+    public void release() {
+        if(finished.compareAndSet(false, true)) server.release(bytes);
+    }
+
+    /**
+     * Releases the reservation, if it was not committed.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+}
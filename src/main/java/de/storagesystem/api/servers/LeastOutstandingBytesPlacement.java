@@ -0,0 +1,28 @@
+package de.storagesystem.api.servers;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chooses the server with the fewest bytes in transfer, or the one with the most available storage
+ * if several servers transfer the same amount.
+ *
+ * @author Simon Brebeck
+ */
+public class LeastOutstandingBytesPlacement implements PlacementStrategy {
+
+    /**
+     * Orders the servers by their bytes in transfer, then by their available storage in descending order.
+     */
+    private static final Comparator<RegisteredServer> ORDER = Comparator
+            .comparingLong(RegisteredServer::getOutstandingBytes)
+            .thenComparing(Comparator.comparingLong(RegisteredServer::getAvailableStorage).reversed());
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RegisteredServer choose(List<RegisteredServer> candidates, long bytes) {
+        return candidates.stream().min(ORDER).orElseThrow();
+    }
+}
@@ -0,0 +1,21 @@
+package de.storagesystem.api.servers;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chooses the server with the most available storage, the placement of the former database query.
+ * Bytes in transfer count as used, so a server is no longer chosen once its uploads would fill it below the others.
+ *
+ * @author Simon Brebeck
+ */
+public class MostAvailableStoragePlacement implements PlacementStrategy {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RegisteredServer choose(List<RegisteredServer> candidates, long bytes) {
+        return candidates.stream().max(Comparator.comparingLong(RegisteredServer::getAvailableStorage)).orElseThrow();
+    }
+}
@@ -0,0 +1,21 @@
+package de.storagesystem.api.servers;
+
+import java.util.List;
+
+/**
+ * Chooses the storage server an uploaded file is stored on. Strategies are called concurrently by all uploads,
+ * so they must be thread-safe and must not query the database.
+ *
+ * @author Simon Brebeck
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Chooses one of the candidates for an upload.
+     *
+     * @param candidates the online servers with enough available storage for the upload, never empty
+     * @param bytes the size of the upload in bytes
+     * @return the chosen {@link RegisteredServer}
+     */
+    RegisteredServer choose(List<RegisteredServer> candidates, long bytes);
+}
@@ -0,0 +1,25 @@
+package de.storagesystem.api.servers;
+
+/**
+ * The strategies that choose the storage server of an upload, see {@link PlacementStrategy}.
+ *
+ * @author Simon Brebeck
+ */
+public enum PlacementStrategyType {
+    /**
+     * Two random servers, the one with fewer bytes in transfer wins, see {@link PowerOfTwoChoicesPlacement}.
+     */
+    POWER_OF_TWO_CHOICES,
+    /**
+     * A random server, weighted by its available storage, see {@link WeightedRandomPlacement}.
+     */
+    WEIGHTED_RANDOM,
+    /**
+     * The server with the fewest bytes in transfer, see {@link LeastOutstandingBytesPlacement}.
+     */
+    LEAST_OUTSTANDING_BYTES,
+    /**
+     * The server with the most available storage, see {@link MostAvailableStoragePlacement}.
+     */
+    MOST_AVAILABLE_STORAGE
+}
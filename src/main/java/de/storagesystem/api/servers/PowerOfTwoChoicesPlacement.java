@@ -0,0 +1,34 @@
+package de.storagesystem.api.servers;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares two random servers and chooses the one with fewer bytes in transfer, or the one with more available
+ * storage if both transfer the same amount. A server that receives many uploads loses most comparisons,
+ * so concurrent uploads spread over the cluster instead of piling onto one server.
+ *
+ * @author Simon Brebeck
+ */
+public class PowerOfTwoChoicesPlacement implements PlacementStrategy {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RegisteredServer choose(List<RegisteredServer> candidates, long bytes) {
+        if(candidates.size() == 1) return candidates.get(0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        // Draw the second server from the others, so both choices are distinct
+        int second = random.nextInt(candidates.size() - 1);
+        if(second >= first) second++;
+
+        RegisteredServer a = candidates.get(first);
+        RegisteredServer b = candidates.get(second);
+        if(a.getOutstandingBytes() != b.getOutstandingBytes()) {
+            return a.getOutstandingBytes() < b.getOutstandingBytes() ? a : b;
+        }
+        return a.getAvailableStorage() >= b.getAvailableStorage() ? a : b;
+    }
+}
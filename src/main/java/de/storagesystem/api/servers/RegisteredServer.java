@@ -0,0 +1,270 @@
+package de.storagesystem.api.servers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A storage server in the {@link StorageServerRegistry} together with its capacity and health as seen by this instance.
+ * The bytes reserved by running uploads and the changes of the free storage that are not yet written to the
+ * database are kept in striped counters, so concurrent uploads do not contend on one value.
+ *
+ * @author Simon Brebeck
+ */
+public class RegisteredServer {
+
+    /**
+     * The last loaded state of the storage server.
+     */
+    private volatile StorageServer server;
+
+    /**
+     * The free storage of the server in the database, including the changes written by this instance.
+     */
+    private final AtomicLong freeStorage;
+
+    /**
+     * The bytes reserved by the uploads to the server that have not finished yet.
+     */
+    private final LongAdder reservedBytes = new LongAdder();
+
+    /**
+     * The change of the free storage that is not yet written to the database.
+     */
+    private final LongAdder pendingDelta = new LongAdder();
+
+    /**
+     * Whether the server is online.
+     */
+    private volatile boolean online;
+
+    /**
+     * The average response time of the server to health checks in milliseconds, NaN if it was not checked.
+     */
+    private volatile double responseTime;
+
+    /**
+     * Whether the average response time of the server is above the slow response time.
+     */
+    private volatile boolean slow = false;
+
+    /**
+     * The number of health checks in a row the server failed, only changed by the health monitor.
+     */
+    private volatile int failedChecks = 0;
+
+    /**
+     * Instantiates a new RegisteredServer.
+     *
+     * @param server the loaded storage server
+     */
+    public RegisteredServer(StorageServer server) {
+        this.server = server;
+        this.freeStorage = new AtomicLong(server.getFreeStorage());
+        this.online = server.isOnline();
+        this.responseTime = server.getResponseTime() != null ? server.getResponseTime() : Double.NaN;
+    }
+
+    /**
+     * Getter for the storage server, which is not attached to a persistence context.
+     * Its free storage is the one of the last load, see {@link #getAvailableStorage()} for the current one.
+     *
+     * @return the {@link StorageServer}
+     */
+    public StorageServer getServer() {
+        return server;
+    }
+
+    /**
+     * Replaces the storage server with a newly loaded state, reservations and pending changes are kept.
+     *
+     * @param server the loaded storage server
+     */
+    void update(StorageServer server) {
+        this.server = server;
+        this.freeStorage.set(server.getFreeStorage());
+        this.online = server.isOnline();
+        this.responseTime = server.getResponseTime() != null ? server.getResponseTime() : Double.NaN;
+    }
+
+    /**
+     * Applies the health of the server that was written to the database. A reported free storage replaces
+     * the free storage and the pending changes, since it already contains them.
+     *
+     * @param health the written health of the server
+     */
+    void applyHealth(ServerHealth health) {
+        this.online = health.online();
+        this.responseTime = health.responseTime();
+        if(health.freeStorage() != null) {
+            freeStorage.set(health.freeStorage());
+            takePendingDelta();
+        }
+        // The snapshot is only read, its total storage is replaced to not write it again before the next reload
+        if(health.totalStorage() != null) server.setTotalStorage(health.totalStorage());
+    }
+
+    /**
+     * Getter for whether the server is online.
+     *
+     * @return true if the server is online
+     */
+    public boolean isOnline() {
+        return online;
+    }
+
+    /**
+     * Getter for the average response time of the server to health checks.
+     *
+     * @return the average response time in milliseconds, NaN if the server was not checked
+     */
+    public double getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * Getter for whether the average response time of the server is above the slow response time.
+     * Slow servers only receive uploads if no other server can take them.
+     *
+     * @return true if the server is slow
+     */
+    public boolean isSlow() {
+        return slow;
+    }
+
+    /**
+     * Setter for whether the average response time of the server is above the slow response time.
+     *
+     * @param slow true if the server is slow
+     */
+    void setSlow(boolean slow) {
+        this.slow = slow;
+    }
+
+    /**
+     * Getter for the number of health checks in a row the server failed.
+     *
+     * @return the number of failed checks
+     */
+    public int getFailedChecks() {
+        return failedChecks;
+    }
+
+    /**
+     * Setter for the number of health checks in a row the server failed.
+     *
+     * @param failedChecks the number of failed checks
+     */
+    void setFailedChecks(int failedChecks) {
+        this.failedChecks = failedChecks;
+    }
+
+    /**
+     * Getter for the bytes reserved by the uploads to the server that have not finished yet.
+     *
+     * @return the bytes in transfer
+     */
+    public long getOutstandingBytes() {
+        return reservedBytes.sum();
+    }
+
+    /**
+     * Getter for the change of the free storage that is not yet written to the database.
+     *
+     * @return the pending change in bytes, negative if storage was used
+     */
+    public long getPendingDelta() {
+        return pendingDelta.sum();
+    }
+
+    /**
+     * Getter for the free storage of the server including the changes that are not yet written to the database.
+     *
+     * @return the free storage in bytes, without the reserved bytes
+     */
+    long getFreeStorage() {
+        return freeStorage.get() + pendingDelta.sum();
+    }
+
+    /**
+     * Getter for the free storage of the server including the pending changes, minus the reserved bytes.
+     *
+     * @return the available storage in bytes
+     */
+    public long getAvailableStorage() {
+        return freeStorage.get() + pendingDelta.sum() - reservedBytes.sum();
+    }
+
+    /**
+     * Reserves storage for an upload to the server, if the server has enough available storage.
+     * Concurrent reservations may both succeed if they are only checked against the available storage together.
+     *
+     * @param bytes the size of the upload in bytes
+     * @return the {@link CapacityReservation}, or null if the server has not enough available storage
+     */
+    public CapacityReservation reserve(long bytes) {
+        reservedBytes.add(bytes);
+        if(getAvailableStorage() < 0) {
+            reservedBytes.add(-bytes);
+            return null;
+        }
+        return new CapacityReservation(this, bytes);
+    }
+
+    /**
+     * Releases reserved bytes without using them.
+     *
+     * @param bytes the reserved bytes
+     */
+    void release(long bytes) {
+        reservedBytes.add(-bytes);
+    }
+
+    /**
+     * Turns reserved bytes into used storage, which is written to the database with the next flush.
+     *
+     * @param bytes the reserved bytes
+     */
+    void commit(long bytes) {
+        pendingDelta.add(-bytes);
+        reservedBytes.add(-bytes);
+    }
+
+    /**
+     * Counts storage that was freed on the server, which is written to the database with the next flush.
+     *
+     * @param bytes the freed bytes
+     */
+    void free(long bytes) {
+        pendingDelta.add(bytes);
+    }
+
+    /**
+     * Takes the pending change of the free storage to write it to the database.
+     * Changes counted concurrently stay pending for the next flush.
+     *
+     * @return the taken change in bytes
+     */
+    long takePendingDelta() {
+        long delta = pendingDelta.sum();
+        pendingDelta.add(-delta);
+        return delta;
+    }
+
+    /**
+     * Puts a taken change back after it could not be written to the database.
+     *
+     * @param delta the taken change in bytes
+     */
+    void restorePendingDelta(long delta) {
+        pendingDelta.add(delta);
+    }
+
+    /**
+     * Adds a change that was written to the database to the free storage.
+     *
+     * @param delta the written change in bytes
+     */
+    void applyFlushedDelta(long delta) {
+        freeStorage.addAndGet(delta);
+    }
+}
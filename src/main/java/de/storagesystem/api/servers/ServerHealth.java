@@ -0,0 +1,15 @@
+package de.storagesystem.api.servers;
+
+/**
+ * The changed health of a storage server, as it is written to the database after a health check.
+ *
+ * @param serverId the id of the storage server
+ * @param online whether the server is online
+ * @param responseTime the average response time of the server in milliseconds
+ * @param freeStorage the free storage reported by the server in bytes, or null if it did not report it
+ * @param totalStorage the total storage reported by the server in bytes, or null if it did not report it
+ *
+ * @author Simon Brebeck
+ */
+public record ServerHealth(long serverId, boolean online, double responseTime, Long freeStorage, Long totalStorage) {
+}
@@ -62,6 +62,11 @@ public class StorageServer {
     @NotNull
     private boolean online;
 
+    /**
+     * The average response time of the storage server to health checks in milliseconds, null if it was not checked
+     */
+    private Double responseTime;
+
     /**
      * Instantiates a new Storage server.
      */
@@ -188,4 +193,20 @@ public class StorageServer {
     public void setOnline(boolean online) {
         this.online = online;
     }
+
+    /**
+     * Getter for the average response time of the storage server to health checks
+     * @return the average response time in milliseconds, or null if the server was not checked
+     */
+    public Double getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * Setter for the average response time of the storage server to health checks
+     * @param responseTime the average response time in milliseconds
+     */
+    public void setResponseTime(Double responseTime) {
+        this.responseTime = responseTime;
+    }
 }
@@ -0,0 +1,188 @@
+package de.storagesystem.api.servers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.storagesystem.api.properties.ConnectionPoolProperty;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import de.storagesystem.api.properties.TransferProperty;
+import de.storagesystem.api.util.ResponseBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared client for the requests to the storage servers of the File Access Layer.
+ * Connections are pooled per storage server (host and port) and kept alive between requests,
+ * so that small files do not pay for a new TCP and TLS handshake on every request.
+ *
+ * @author Simon Brebeck
+ */
+@Component
+public class StorageServerClient {
+
+    /**
+     * The {@link Logger} for this class
+     */
+    private static final Logger logger = LogManager.getLogger(StorageServerClient.class);
+
+    /**
+     * The pool of connections to the storage servers.
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * The {@link CloseableHttpClient} that uses the pooled connections.
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * The {@link RestTemplate} that sends its requests through the pooled {@link CloseableHttpClient}.
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * Creates the connection pool and the client with the configured settings.
+     *
+     * @param storageServerConfigProperties the configuration of this server
+     */
+    public StorageServerClient(StorageServerConfigProperty storageServerConfigProperties) {
+        ConnectionPoolProperty pool = storageServerConfigProperties.getPool();
+        TransferProperty transfer = storageServerConfigProperties.getTransfer();
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(pool.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(pool.getValidateAfterInactivity());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setBufferSize(transfer.getChunkSize())
+                .build());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(pool.getConnectTimeout())
+                .setSocketTimeout(pool.getSocketTimeout())
+                .setConnectionRequestTimeout(pool.getConnectionRequestTimeout())
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(pool.getKeepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(pool.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        // Streamed bodies are written chunked instead of being buffered in memory
+        requestFactory.setBufferRequestBody(!transfer.isStreaming());
+        restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Creates a {@link ConnectionKeepAliveStrategy} that uses the keep alive of the storage server,
+     * or the given default if the storage server does not specify one.
+     *
+     * @param defaultKeepAlive the default keep alive in milliseconds
+     * @return the {@link ConnectionKeepAliveStrategy}
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAlive) {
+        return (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? keepAlive : defaultKeepAlive;
+        };
+    }
+
+    /**
+     * Getter for the {@link RestTemplate} that uses the pooled connections.
+     *
+     * @return the {@link RestTemplate}
+     */
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    /**
+     * Sends a request through the pooled connections and returns the open response, whose body can be streamed.
+     * Unlike the responses of the {@link RestTemplate}, the response can be aborted without transferring its body.
+     * The caller is responsible for closing or aborting the response.
+     *
+     * @param request the request to a storage server
+     * @return the open {@link StorageServerResponse}
+     * @throws IOException if the storage server could not be reached or the request was aborted
+     */
+    public StorageServerResponse execute(HttpUriRequest request) throws IOException {
+        return new StorageServerResponse(request, httpClient.execute(request));
+    }
+
+    /**
+     * Creates a {@link RestTemplate} that uses the pooled connections with shorter timeouts, for small requests
+     * that have to fail fast.
+     *
+     * @param timeout the connect, socket and connection request timeout in milliseconds
+     * @return the {@link RestTemplate}
+     */
+    public RestTemplate createRestTemplate(int timeout) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        requestFactory.setConnectionRequestTimeout(timeout);
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Collects the statistics of the connection pool, in total and per storage server.
+     *
+     * @return the statistics as a json object
+     */
+    public ObjectNode getPoolStatistics() {
+        ObjectNode routes = new ResponseBuilder().build();
+        for(HttpRoute route : connectionManager.getRoutes()) {
+            routes.set(route.getTargetHost().toHostString(), toJson(connectionManager.getStats(route)));
+        }
+        return new ResponseBuilder()
+                .add("total", toJson(connectionManager.getTotalStats()))
+                .add("servers", routes)
+                .build();
+    }
+
+    /**
+     * Converts the statistics of a pool to a json object.
+     *
+     * @param stats the statistics of the pool
+     * @return the statistics as a json object
+     */
+    private static ObjectNode toJson(PoolStats stats) {
+        return new ResponseBuilder()
+                .add("leased", stats.getLeased())
+                .add("available", stats.getAvailable())
+                .add("pending", stats.getPending())
+                .add("max", stats.getMax())
+                .build();
+    }
+
+    /**
+     * Closes the client and all pooled connections on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the storage server client", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.storagesystem.api.servers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.storagesystem.api.exceptions.InvalidTokenException;
+import de.storagesystem.api.exceptions.PermissionDeniedException;
+import de.storagesystem.api.exceptions.UserNotFoundException;
+import de.storagesystem.api.storage.folders.FolderPathCache;
+import de.storagesystem.api.users.UserCache;
+import de.storagesystem.api.users.UserService;
+import de.storagesystem.api.util.ResponseBuilder;
+import de.storagesystem.api.util.ResponseState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.List;
+
+/**
+ * The statistics and the registry of the storage servers, only accessible to the administrators of this server.
+ *
+ * @author Simon Brebeck
+ */
+@Controller
+@RequestMapping("/api/servers")
+public class StorageServerController {
+
+    /**
+     * The {@link StorageServerClient} that is used to communicate with the storage servers.
+     */
+    private final StorageServerClient storageServerClient;
+
+    /**
+     * The {@link UserService} that is used to access the users.
+     */
+    private final UserService userService;
+
+    /**
+     * The {@link UserCache} that resolves the users of the requests.
+     */
+    private final UserCache userCache;
+
+    /**
+     * The {@link FolderPathCache} that resolves the folders of the requests.
+     */
+    private final FolderPathCache folderPathCache;
+
+    /**
+     * The {@link StorageServerRegistry} that chooses the storage servers of the uploads.
+     */
+    private final StorageServerRegistry storageServerRegistry;
+
+    /**
+     * Creates a new instance of {@link StorageServerController}.
+     *
+     * @param storageServerClient The {@link StorageServerClient} that is used to communicate with the storage servers.
+     * @param userService The {@link UserService} that is used to access the users.
+     * @param userCache The {@link UserCache} that resolves the users of the requests.
+     * @param folderPathCache The {@link FolderPathCache} that resolves the folders of the requests.
+     * @param storageServerRegistry The {@link StorageServerRegistry} that chooses the storage servers of the uploads.
+     */
+    @Autowired
+    public StorageServerController(
+            StorageServerClient storageServerClient,
+            UserService userService,
+            UserCache userCache,
+            FolderPathCache folderPathCache,
+            StorageServerRegistry storageServerRegistry) {
+        this.storageServerClient = storageServerClient;
+        this.userService = userService;
+        this.userCache = userCache;
+        this.folderPathCache = folderPathCache;
+        this.storageServerRegistry = storageServerRegistry;
+    }
+
+    /**
+     * Returns the statistics of the connection pool to the storage servers.
+     *
+     * @param authentication The authentication of the administrator.
+     * @return The ResponseEntity with the statistics of the connection pool.
+     * @throws UserNotFoundException If the user does not exist.
+     * @throws InvalidTokenException If the token is invalid.
+     * @throws PermissionDeniedException If the user is no administrator.
+     */
+    @GetMapping("/pool")
+    public ResponseEntity<ObjectNode> getPoolStatistics(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication)
+            throws UserNotFoundException, InvalidTokenException, PermissionDeniedException {
+        userService.getAdminId(authentication);
+        ObjectNode response = new ResponseBuilder()
+                .add("pool", storageServerClient.getPoolStatistics())
+                .build(ResponseState.OK);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the hit and miss statistics of the caches that resolve the users and folders of the requests.
+     *
+     * @param authentication The authentication of the administrator.
+     * @return The ResponseEntity with the statistics of the caches.
+     * @throws UserNotFoundException If the user does not exist.
+     * @throws InvalidTokenException If the token is invalid.
+     * @throws PermissionDeniedException If the user is no administrator.
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<ObjectNode> getCacheStatistics(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication)
+            throws UserNotFoundException, InvalidTokenException, PermissionDeniedException {
+        userService.getAdminId(authentication);
+        ObjectNode response = new ResponseBuilder()
+                .add("users", cacheStatistics(userCache.getStats()))
+                .add("paths", cacheStatistics(folderPathCache.getStats()).put("size", folderPathCache.size()))
+                .build(ResponseState.OK);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the storage servers known to the placement of uploads with their bytes in transfer.
+     *
+     * @param authentication The authentication of the administrator.
+     * @return The ResponseEntity with the registered storage servers.
+     * @throws UserNotFoundException If the user does not exist.
+     * @throws InvalidTokenException If the token is invalid.
+     * @throws PermissionDeniedException If the user is no administrator.
+     */
+    @GetMapping("/registry")
+    public ResponseEntity<ObjectNode> getRegistry(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication)
+            throws UserNotFoundException, InvalidTokenException, PermissionDeniedException {
+        userService.getAdminId(authentication);
+        return ResponseEntity.ok(registry());
+    }
+
+    /**
+     * Reloads the storage servers known to the placement of uploads, after servers were added or changed.
+     *
+     * @param authentication The authentication of the administrator.
+     * @return The ResponseEntity with the reloaded storage servers.
+     * @throws UserNotFoundException If the user does not exist.
+     * @throws InvalidTokenException If the token is invalid.
+     * @throws PermissionDeniedException If the user is no administrator.
+     */
+    @PostMapping("/registry")
+    public ResponseEntity<ObjectNode> refreshRegistry(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication)
+            throws UserNotFoundException, InvalidTokenException, PermissionDeniedException {
+        userService.getAdminId(authentication);
+        storageServerRegistry.refresh();
+        return ResponseEntity.ok(registry());
+    }
+
+    private ObjectNode registry() {
+        List<ObjectNode> servers = storageServerRegistry.getServers().stream()
+                .map(registered -> new ResponseBuilder()
+                        .add("id", registered.getServer().getId())
+                        .add("name", registered.getServer().getName())
+                        .add("online", registered.isOnline())
+                        .add("slow", registered.isSlow())
+                        .add("responseTime", registered.getResponseTime())
+                        .add("failedChecks", registered.getFailedChecks())
+                        .add("availableStorage", registered.getAvailableStorage())
+                        .add("outstandingBytes", registered.getOutstandingBytes())
+                        .build())
+                .toList();
+        return new ResponseBuilder()
+                .add("strategy", storageServerRegistry.getPlacementStrategy().getClass().getSimpleName())
+                .addArray("servers", servers)
+                .build(ResponseState.OK);
+    }
+
+    private ObjectNode cacheStatistics(CacheStats stats) {
+        return new ResponseBuilder()
+                .add("hits", stats.hitCount())
+                .add("misses", stats.missCount())
+                .add("hitRate", stats.hitRate())
+                .add("evictions", stats.evictionCount())
+                .build();
+    }
+}
@@ -1,5 +1,7 @@
 package de.storagesystem.api.servers;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,4 +24,16 @@ public interface StorageServerCustomDAO {
      */
     Optional<StorageServer> findStorageServerByFreeCapacity(long freeBytes);
 
+    /**
+     * Atomically adds deltas to the free storage of servers in one transaction.
+     * @param deltas The change of the free storage in bytes by the id of the server, negative for used storage.
+     */
+    void addFreeStorage(Map<Long, Long> deltas);
+
+    /**
+     * Writes the changed health of servers in one transaction.
+     * @param changes The changed health of the servers.
+     */
+    void updateHealth(List<ServerHealth> changes);
+
 }
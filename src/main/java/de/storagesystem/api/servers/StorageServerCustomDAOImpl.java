@@ -1,9 +1,13 @@
 package de.storagesystem.api.servers;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -45,5 +49,37 @@ public class StorageServerCustomDAOImpl implements StorageServerCustomDAO {
                 .findFirst();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void addFreeStorage(Map<Long, Long> deltas) {
+        for(Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            em.createQuery("UPDATE StorageServer s SET s.freeStorage = s.freeStorage + :delta WHERE s.id = :id")
+                    .setParameter("delta", delta.getValue())
+                    .setParameter("id", delta.getKey())
+                    .executeUpdate();
+        }
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void updateHealth(List<ServerHealth> changes) {
+        for(ServerHealth health : changes) {
+            Query query = em.createQuery("UPDATE StorageServer s SET s.online = :online, s.responseTime = :responseTime" +
+                            (health.freeStorage() != null ? ", s.freeStorage = :freeStorage" : "") +
+                            (health.totalStorage() != null ? ", s.totalStorage = :totalStorage" : "") +
+                            " WHERE s.id = :id")
+                    .setParameter("online", health.online())
+                    .setParameter("responseTime", health.responseTime())
+                    .setParameter("id", health.serverId());
+            if(health.freeStorage() != null) query.setParameter("freeStorage", health.freeStorage());
+            if(health.totalStorage() != null) query.setParameter("totalStorage", health.totalStorage());
+            query.executeUpdate();
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package de.storagesystem.api.servers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.storagesystem.api.properties.HealthProperty;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the health endpoint of all storage servers periodically and in parallel.
+ * A server is taken offline after it failed several checks in a row and back online after one successful check.
+ * The response times are averaged exponentially, servers above the slow response time are avoided for uploads.
+ * Only changed servers are written to the database, all of them in one transaction per round.
+ *
+ * @author Simon Brebeck
+ */
+@Component
+public class StorageServerHealthMonitor {
+
+    private static final Logger logger = LogManager.getLogger(StorageServerHealthMonitor.class);
+
+    /**
+     * The relative change of the average response time above which it is written to the database.
+     */
+    private static final double RESPONSE_TIME_TOLERANCE = 0.1;
+
+    private final HealthProperty healthProperties;
+
+    private final StorageServerClient storageServerClient;
+
+    private final StorageServerRegistry storageServerRegistry;
+
+    private RestTemplate restTemplate;
+
+    private String protocol;
+
+    private String storageAuth;
+
+    private ScheduledExecutorService checkExecutor;
+
+    /**
+     * The executor the servers of one round are checked with.
+     */
+    private ExecutorService probeExecutor;
+
+    /**
+     * Instantiates a new StorageServerHealthMonitor.
+     *
+     * @param storageServerConfigProperties the configuration of this server
+     * @param storageServerClient the client for the storage servers
+     * @param storageServerRegistry the registry of the storage servers
+     */
+    public StorageServerHealthMonitor(
+            StorageServerConfigProperty storageServerConfigProperties,
+            StorageServerClient storageServerClient,
+            StorageServerRegistry storageServerRegistry) {
+        this.healthProperties = storageServerConfigProperties.getHealth();
+        this.storageServerClient = storageServerClient;
+        this.storageServerRegistry = storageServerRegistry;
+    }
+
+    /**
+     * Starts checking the servers periodically if the checks are enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if(!healthProperties.isEnabled()) return;
+        Dotenv dotenv = Dotenv.load();
+        protocol = dotenv.get("TRANSFER_PROTOCOL");
+        storageAuth = dotenv.get("STORAGE_AUTH");
+        restTemplate = storageServerClient.createRestTemplate((int) healthProperties.getTimeout().toMillis());
+        probeExecutor = Executors.newFixedThreadPool(healthProperties.getParallelism());
+        checkExecutor = Executors.newSingleThreadScheduledExecutor();
+        long interval = healthProperties.getInterval().toMillis();
+        checkExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                checkServers();
+            } catch (RuntimeException e) {
+                logger.error("Could not check the storage servers", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking the servers.
+     */
+    @PreDestroy
+    public void destroy() {
+        if(checkExecutor != null) checkExecutor.shutdownNow();
+        if(probeExecutor != null) probeExecutor.shutdownNow();
+    }
+
+    /**
+     * Checks all registered servers in parallel and writes the changed servers.
+     */
+    public void checkServers() {
+        List<CompletableFuture<ServerHealth>> checks = new ArrayList<>();
+        for(RegisteredServer server : storageServerRegistry.getServers()) {
+            checks.add(CompletableFuture.supplyAsync(() -> check(server), probeExecutor));
+        }
+        List<ServerHealth> changes = new ArrayList<>();
+        for(CompletableFuture<ServerHealth> check : checks) {
+            ServerHealth health = check.join();
+            if(health != null) changes.add(health);
+        }
+        if(!changes.isEmpty()) storageServerRegistry.applyHealth(changes);
+    }
+
+    /**
+     * Requests the health endpoint of a server and measures the response time.
+     *
+     * @param server the checked server
+     * @return the changed health of the server, or null if nothing has to be written
+     */
+    private ServerHealth check(RegisteredServer server) {
+        StorageServer storageServer = server.getServer();
+        String url = protocol + "://" + storageServer.getHost() + ":" + storageServer.getPort() + healthProperties.getPath();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(storageAuth);
+        long start = System.nanoTime();
+        boolean reachable;
+        JsonNode body = null;
+        try {
+            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class);
+            reachable = response.getStatusCode().is2xxSuccessful();
+            body = response.getBody();
+        } catch (RestClientException e) {
+            logger.debug("Health check of storage server " + storageServer.getId() + " failed: " + e.getMessage());
+            reachable = false;
+        }
+        return evaluate(server, reachable, (System.nanoTime() - start) / 1_000_000.0, body);
+    }
+
+    /**
+     * Updates the failed checks and the slow flag of a server with the result of a check
+     * and collects the health that has to be written.
+     *
+     * @param server the checked server
+     * @param reachable whether the server answered the check successfully
+     * @param responseTime the response time of the check in milliseconds
+     * @param body the body of the answer, may be null
+     * @return the changed health of the server, or null if nothing has to be written
+     */
+    public ServerHealth evaluate(RegisteredServer server, boolean reachable, double responseTime, JsonNode body) {
+        boolean online;
+        double averageResponseTime = server.getResponseTime();
+        if(reachable) {
+            server.setFailedChecks(0);
+            online = true;
+            double weight = healthProperties.getResponseTimeWeight();
+            averageResponseTime = Double.isNaN(averageResponseTime)
+                    ? responseTime
+                    : weight * responseTime + (1 - weight) * averageResponseTime;
+        } else {
+            server.setFailedChecks(server.getFailedChecks() + 1);
+            online = server.isOnline() && server.getFailedChecks() < healthProperties.getFailureThreshold();
+        }
+        server.setSlow(averageResponseTime > healthProperties.getSlowResponseTime().toMillis());
+
+        Long freeStorage = reachable ? readLong(body, "freeStorage") : null;
+        Long totalStorage = reachable ? readLong(body, "totalStorage") : null;
+        boolean changed = online != server.isOnline()
+                || (freeStorage != null && freeStorage != server.getFreeStorage())
+                || (totalStorage != null && !totalStorage.equals(server.getServer().getTotalStorage()))
+                || responseTimeChanged(server.getResponseTime(), averageResponseTime);
+        return changed
+                ? new ServerHealth(server.getServer().getId(), online, averageResponseTime, freeStorage, totalStorage)
+                : null;
+    }
+
+    private boolean responseTimeChanged(double written, double current) {
+        if(Double.isNaN(current)) return false;
+        return Double.isNaN(written) || Math.abs(current - written) > written * RESPONSE_TIME_TOLERANCE;
+    }
+
+    private Long readLong(JsonNode body, String field) {
+        if(body == null || !body.hasNonNull(field) || !body.get(field).canConvertToLong()) return null;
+        return body.get(field).asLong();
+    }
+}
@@ -0,0 +1,308 @@
+package de.storagesystem.api.servers;
+
+import de.storagesystem.api.properties.PlacementProperty;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the storage servers in memory, so the server of an upload is chosen by a {@link PlacementStrategy}
+ * without a query to the database. The servers are reloaded periodically, when a server is registered,
+ * and when no server can take an upload.
+ * <p>
+ * Uploads reserve their storage in memory before the transfer. The used and freed storage is collected per server
+ * and written to the database periodically as atomic deltas, instead of updating the row of a server per upload.
+ *
+ * @author Simon Brebeck
+ */
+@Component
+public class StorageServerRegistry {
+
+    private static final Logger logger = LogManager.getLogger(StorageServerRegistry.class);
+
+    private final StorageServerDAO storageServerRepository;
+
+    private final PlacementProperty placementProperties;
+
+    /**
+     * The {@link PlacementStrategy} that chooses the server of an upload.
+     */
+    private final PlacementStrategy placementStrategy;
+
+    /**
+     * The registered servers by their id, replaced as a whole when the servers are reloaded.
+     */
+    private volatile Map<Long, RegisteredServer> servers = Map.of();
+
+    /**
+     * The executor that reloads the servers from the database.
+     */
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * Instantiates a new StorageServerRegistry.
+     *
+     * @param storageServerRepository the storage server repository
+     * @param storageServerConfigProperties the configuration of this server
+     */
+    @Autowired
+    public StorageServerRegistry(
+            StorageServerDAO storageServerRepository,
+            StorageServerConfigProperty storageServerConfigProperties) {
+        this(storageServerRepository, storageServerConfigProperties.getPlacement(),
+                createStrategy(storageServerConfigProperties.getPlacement().getStrategy()));
+    }
+
+    /**
+     * Instantiates a new StorageServerRegistry with a custom {@link PlacementStrategy}.
+     *
+     * @param storageServerRepository the storage server repository
+     * @param placementProperties the settings of the placement
+     * @param placementStrategy the strategy that chooses the server of an upload
+     */
+    public StorageServerRegistry(
+            StorageServerDAO storageServerRepository,
+            PlacementProperty placementProperties,
+            PlacementStrategy placementStrategy) {
+        this.storageServerRepository = storageServerRepository;
+        this.placementProperties = placementProperties;
+        this.placementStrategy = placementStrategy;
+    }
+
+    /**
+     * Creates the {@link PlacementStrategy} of a type.
+     *
+     * @param type the type of the strategy
+     * @return the {@link PlacementStrategy}
+     */
+    public static PlacementStrategy createStrategy(PlacementStrategyType type) {
+        return switch (type) {
+            case POWER_OF_TWO_CHOICES -> new PowerOfTwoChoicesPlacement();
+            case WEIGHTED_RANDOM -> new WeightedRandomPlacement();
+            case LEAST_OUTSTANDING_BYTES -> new LeastOutstandingBytesPlacement();
+            case MOST_AVAILABLE_STORAGE -> new MostAvailableStoragePlacement();
+        };
+    }
+
+    /**
+     * Loads the servers and starts reloading them periodically.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.error("Could not load the storage servers", e);
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+        long interval = placementProperties.getRefreshInterval().toMillis();
+        refreshExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.error("Could not reload the storage servers", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        long flushInterval = placementProperties.getFlushInterval().toMillis();
+        refreshExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Could not write the storage of the servers", e);
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops reloading the servers and writes the pending storage changes.
+     */
+    @PreDestroy
+    public void destroy() {
+        if(refreshExecutor != null) refreshExecutor.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Could not write the storage of the servers", e);
+        }
+    }
+
+    /**
+     * Reloads the servers from the database, the bytes in transfer of known servers are kept.
+     */
+    public synchronized void refresh() {
+        Map<Long, RegisteredServer> current = servers;
+        Map<Long, RegisteredServer> loaded = new HashMap<>();
+        for(StorageServer server : storageServerRepository.findAll()) {
+            RegisteredServer registered = current.get(server.getId());
+            if(registered != null) {
+                registered.update(server);
+            } else {
+                registered = new RegisteredServer(server);
+            }
+            loaded.put(server.getId(), registered);
+        }
+        servers = Collections.unmodifiableMap(loaded);
+    }
+
+    /**
+     * Writes the used and freed storage of the servers to the database with one atomic update per server.
+     * Changes that could not be written stay pending for the next flush.
+     */
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        for(RegisteredServer server : servers.values()) {
+            long delta = server.takePendingDelta();
+            if(delta != 0) deltas.put(server.getServer().getId(), delta);
+        }
+        if(deltas.isEmpty()) return;
+
+        try {
+            storageServerRepository.addFreeStorage(deltas);
+        } catch (RuntimeException e) {
+            deltas.forEach((id, delta) -> servers.get(id).restorePendingDelta(delta));
+            throw e;
+        }
+        deltas.forEach((id, delta) -> servers.get(id).applyFlushedDelta(delta));
+    }
+
+    /**
+     * Reserves storage for an upload on a server chosen by the {@link PlacementStrategy}.
+     * The caller commits the reservation once the file is stored, or releases it if the upload failed.
+     *
+     * @param bytes the size of the upload in bytes
+     * @return the {@link CapacityReservation}, or an empty {@link Optional} if no server can take the upload
+     */
+    public Optional<CapacityReservation> reserve(long bytes) {
+        return reserve(bytes, 1).stream().findFirst();
+    }
+
+    /**
+     * Reserves storage for the replicas of an upload on distinct servers, each chosen by the {@link PlacementStrategy}.
+     * The caller commits or releases every reservation.
+     *
+     * @param bytes the size of the upload in bytes
+     * @param count the number of servers to reserve the storage on
+     * @return the reservations, fewer than requested if not enough servers can take the upload
+     */
+    public List<CapacityReservation> reserve(long bytes, int count) {
+        List<CapacityReservation> reservations = new ArrayList<>(count);
+        Set<Long> chosen = new HashSet<>();
+        // Concurrent uploads may have taken the storage of a chosen server, then another server is chosen
+        for(int attempt = 0; attempt < count + 2 && reservations.size() < count; attempt++) {
+            Optional<RegisteredServer> server = choose(bytes, chosen);
+            if(server.isEmpty()) break;
+            CapacityReservation reservation = server.get().reserve(bytes);
+            if(reservation != null) {
+                reservations.add(reservation);
+                chosen.add(server.get().getServer().getId());
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Counts storage that was freed on a server, it is written to the database with the next flush.
+     *
+     * @param serverId the id of the server
+     * @param bytes the freed bytes
+     */
+    public void free(long serverId, long bytes) {
+        RegisteredServer server = servers.get(serverId);
+        if(server == null) {
+            refresh();
+            server = servers.get(serverId);
+        }
+        if(server != null) {
+            server.free(bytes);
+        } else {
+            logger.warn("Freed storage of unknown storage server " + serverId);
+        }
+    }
+
+    /**
+     * Chooses the server for an upload among the online servers with enough available storage.
+     *
+     * @param bytes the size of the upload in bytes
+     * @param excluded the ids of servers that already hold a replica of the upload
+     * @return the chosen {@link RegisteredServer}, or an empty {@link Optional} if no server can take the upload
+     */
+    private Optional<RegisteredServer> choose(long bytes, Set<Long> excluded) {
+        List<RegisteredServer> candidates = candidates(bytes, excluded);
+        if(candidates.isEmpty() && excluded.isEmpty()) {
+            // A server may have been added or freed since the last reload
+            refresh();
+            candidates = candidates(bytes, excluded);
+        }
+        if(candidates.isEmpty()) return Optional.empty();
+        return Optional.of(placementStrategy.choose(candidates, bytes));
+    }
+
+    /**
+     * Returns the registered server with an id.
+     *
+     * @param id the id of the server
+     * @return an optional containing the {@link RegisteredServer}, if it is registered
+     */
+    public Optional<RegisteredServer> find(long id) {
+        return Optional.ofNullable(servers.get(id));
+    }
+
+    /**
+     * Getter for all registered servers.
+     *
+     * @return the registered servers
+     */
+    public Collection<RegisteredServer> getServers() {
+        return servers.values();
+    }
+
+    /**
+     * Getter for the strategy that chooses the server of an upload.
+     *
+     * @return the {@link PlacementStrategy}
+     */
+    public PlacementStrategy getPlacementStrategy() {
+        return placementStrategy;
+    }
+
+    /**
+     * Writes the changed health of servers to the database and applies it to the registered servers.
+     *
+     * @param changes the changed health of the servers
+     */
+    public synchronized void applyHealth(List<ServerHealth> changes) {
+        storageServerRepository.updateHealth(changes);
+        for(ServerHealth health : changes) {
+            RegisteredServer server = servers.get(health.serverId());
+            if(server != null) server.applyHealth(health);
+        }
+    }
+
+    /**
+     * Collects the online servers with enough available storage for an upload, slow servers only if no other
+     * server can take the upload.
+     *
+     * @param bytes the size of the upload in bytes
+     * @param excluded the ids of servers that already hold a replica of the upload
+     * @return the candidates for the upload
+     */
+    private List<RegisteredServer> candidates(long bytes, Set<Long> excluded) {
+        List<RegisteredServer> candidates = new ArrayList<>();
+        List<RegisteredServer> slowCandidates = new ArrayList<>();
+        for(RegisteredServer server : servers.values()) {
+            if(!server.isOnline() || server.getAvailableStorage() < bytes) continue;
+            if(excluded.contains(server.getServer().getId())) continue;
+            (server.isSlow() ? slowCandidates : candidates).add(server);
+        }
+        return candidates.isEmpty() ? slowCandidates : candidates;
+    }
+}
@@ -0,0 +1,138 @@
+package de.storagesystem.api.servers;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.AbstractClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The open response of a storage server, which can either be closed or aborted. Closing reads the rest of the body,
+ * so that the connection is returned to the pool. Aborting shuts the connection down without reading the rest,
+ * for responses whose body is not needed anymore.
+ *
+ * @author Simon Brebeck
+ */
+public class StorageServerResponse extends AbstractClientHttpResponse {
+
+    /**
+     * The request the storage server answered.
+     */
+    private final HttpUriRequest request;
+
+    /**
+     * The response of the storage server.
+     */
+    private final CloseableHttpResponse response;
+
+    private HttpHeaders headers;
+
+    private InputStream body;
+
+    private volatile boolean aborted = false;
+
+    /**
+     * Whether the response was closed or aborted.
+     */
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    /**
+     * Instantiates a new StorageServerResponse.
+     *
+     * @param request the request the storage server answered
+     * @param response the response of the storage server
+     */
+    StorageServerResponse(HttpUriRequest request, CloseableHttpResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRawStatusCode() {
+        return response.getStatusLine().getStatusCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getStatusText() {
+        return response.getStatusLine().getReasonPhrase();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HttpHeaders getHeaders() {
+        if(headers == null) {
+            headers = new HttpHeaders();
+            for(Header header : response.getAllHeaders()) {
+                headers.add(header.getName(), header.getValue());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getBody() throws IOException {
+        if(body == null) {
+            HttpEntity entity = response.getEntity();
+            InputStream content = (entity != null) ? entity.getContent() : InputStream.nullInputStream();
+            body = new FilterInputStream(content) {
+                @Override
+                public void close() throws IOException {
+                    // Closing the body reads its rest, which is not possible anymore after an abort
+                    if(!aborted) super.close();
+                }
+            };
+        }
+        return body;
+    }
+
+    /**
+     * Reads the rest of the body and returns the connection to the pool. Does nothing if the response is already
+     * closed or aborted.
+     */
+    @Override
+    public void close() {
+        if(!finished.compareAndSet(false, true)) return;
+        try {
+            try {
+                EntityUtils.consume(response.getEntity());
+            } finally {
+                response.close();
+            }
+        } catch (IOException e) {
+            // The connection is not reused then
+        }
+    }
+
+    /**
+     * Shuts the connection down without reading the rest of the body. The body can still be closed afterwards.
+     * Does nothing if the response is already closed or aborted.
+     */
+    public void abort() {
+        if(!finished.compareAndSet(false, true)) return;
+        aborted = true;
+        request.abort();
+        try {
+            response.close();
+        } catch (IOException e) {
+            // The connection is already shut down
+        }
+    }
+}
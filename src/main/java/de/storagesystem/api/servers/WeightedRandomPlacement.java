@@ -0,0 +1,31 @@
+package de.storagesystem.api.servers;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses a random server with a probability proportional to its available storage, so emptier servers fill up
+ * faster without receiving every upload.
+ *
+ * @author Simon Brebeck
+ */
+public class WeightedRandomPlacement implements PlacementStrategy {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RegisteredServer choose(List<RegisteredServer> candidates, long bytes) {
+        long total = 0;
+        for(RegisteredServer candidate : candidates) total += Math.max(candidate.getAvailableStorage(), 0);
+        if(total <= 0) return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+
+        long position = ThreadLocalRandom.current().nextLong(total);
+        for(RegisteredServer candidate : candidates) {
+            position -= Math.max(candidate.getAvailableStorage(), 0);
+            if(position < 0) return candidate;
+        }
+        // The available storage changed while it was summed up
+        return candidates.get(candidates.size() - 1);
+    }
+}
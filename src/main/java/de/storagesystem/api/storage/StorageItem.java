@@ -33,13 +33,13 @@ public class StorageItem {
      * The {@link Bucket} where the storage item is located
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Bucket bucket;
 
     /**
      * The {@link StorageFolder} where the storage item is located
      */
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private StorageFolder parent = null;
 
     /**
@@ -58,7 +58,7 @@ public class StorageItem {
      * The {@link User} who created the storage item
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User creator;
 
 
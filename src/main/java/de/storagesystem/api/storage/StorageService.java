@@ -1,11 +1,18 @@
 package de.storagesystem.api.storage;
 
 import de.storagesystem.api.exceptions.StorageEntityCreationException;
+import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
+import de.storagesystem.api.exceptions.UserNotFoundException;
 import de.storagesystem.api.storage.buckets.BucketDAO;
+import de.storagesystem.api.storage.files.StorageFile;
 import de.storagesystem.api.storage.files.StorageFileDAO;
+import de.storagesystem.api.storage.folders.FolderPathCache;
+import de.storagesystem.api.storage.folders.StorageFolder;
 import de.storagesystem.api.storage.folders.StorageFolderDAO;
 import de.storagesystem.api.servers.StorageServer;
 import de.storagesystem.api.servers.StorageServerDAO;
+import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
 import de.storagesystem.api.users.UserDAO;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.apache.logging.log4j.LogManager;
@@ -67,6 +74,16 @@ public class StorageService {
     @Autowired
     protected final UserDAO userRepository;
 
+    /**
+     * The {@link UserCache} that resolves the users of the requests
+     */
+    protected final UserCache userCache;
+
+    /**
+     * The {@link FolderPathCache} that remembers the folders the paths of the requests resolved to
+     */
+    protected final FolderPathCache folderPathCache;
+
     /**
      * The {@link BucketDAO} bucket repository
      */
@@ -103,18 +120,24 @@ public class StorageService {
      * @param storageFileRepository the storage file repository
      * @param bucketRepository the bucket repository
      * @param userRepository the user repository
+     * @param userCache the user cache
+     * @param folderPathCache the folder path cache
      */
     public StorageService(
             StorageServerDAO storageServerRepository,
             StorageFolderDAO bucketFolderRepository,
             StorageFileDAO storageFileRepository,
             BucketDAO bucketRepository,
-            UserDAO userRepository) {
+            UserDAO userRepository,
+            UserCache userCache,
+            FolderPathCache folderPathCache) {
         this.storageServerRepository = storageServerRepository;
         this.bucketFolderRepository = bucketFolderRepository;
         this.storageFileRepository = storageFileRepository;
         this.bucketRepository = bucketRepository;
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.folderPathCache = folderPathCache;
     }
 
     /**
@@ -140,6 +163,72 @@ public class StorageService {
     }
 
 
+    /**
+     * Get the user with the given id, from the {@link UserCache} if it was resolved recently
+     * @param userId The id of the user
+     * @return The user
+     * @throws UserNotFoundException if the user does not exist
+     */
+    protected User getUser(long userId) throws UserNotFoundException {
+        return userCache.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+
+    /**
+     * Resolve the folder at a path inside a bucket of a user by the id it resolved to before,
+     * or with a single query on its path
+     * @param user The user who created the bucket
+     * @param bucketName The name of the bucket
+     * @param path The path to the folder
+     * @return The folder with its bucket
+     * @throws StorageEntityNotFoundException if the bucket or the folder does not exist
+     */
+    protected StorageFolder resolveFolder(User user, String bucketName, String path) throws StorageEntityNotFoundException {
+        Optional<StorageFolder> cached = folderPathCache.findFolderId(user.getId(), bucketName, path)
+                .flatMap(bucketFolderRepository::findByIdWithBucket);
+        // A folder that was moved by another instance of this server is resolved by its path again
+        if(cached.isPresent() && isRequestedFolder(cached.get(), bucketName, path)) return cached.get();
+
+        Optional<StorageFolder> folder = bucketFolderRepository.resolveFolder(user.getId(), bucketName, path);
+        if(folder.isPresent()) {
+            folderPathCache.put(user.getId(), bucketName, path, folder.get());
+            return folder.get();
+        }
+
+        // Only tell apart a missing bucket from a missing folder if the resolution failed
+        bucketRepository.getBucketByName(user, bucketName);
+        throw new StorageEntityNotFoundException("Directory not found", "Directory " + path);
+    }
+
+    /**
+     * Checks if a folder loaded by a cached id is still the folder at the requested path
+     * @param folder The folder
+     * @param bucketName The name of the requested bucket
+     * @param path The requested path
+     * @return true if the folder is in the bucket and, unless the root folder was requested, at the path
+     */
+    private boolean isRequestedFolder(StorageFolder folder, String bucketName, String path) {
+        if(!folder.getBucket().getName().equals(bucketName)) return false;
+        if(path == null || path.equalsIgnoreCase("/")) return folder.getParent() == null;
+        return folder.getPath().equals(path);
+    }
+
+    /**
+     * Resolve the file at a path inside a bucket of a user with a single query
+     * @param user The user who created the bucket
+     * @param bucketName The name of the bucket
+     * @param path The path to the file
+     * @return The file with its bucket, parent folder and storage server
+     * @throws StorageEntityNotFoundException if the bucket or the file does not exist
+     */
+    protected StorageFile resolveFile(User user, String bucketName, String path) throws StorageEntityNotFoundException {
+        Optional<StorageFile> file = storageFileRepository.resolveFile(user.getId(), bucketName, path);
+        if(file.isPresent()) return file.get();
+
+        // Only tell apart a missing bucket from a missing file if the resolution failed
+        bucketRepository.getBucketByName(user, bucketName);
+        throw new StorageEntityNotFoundException("File not found", "File " + path);
+    }
+
     /**
      * Generate a path where a file can be stored for a user
      * @param userId The id of the user
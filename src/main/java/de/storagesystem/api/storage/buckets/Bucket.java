@@ -36,7 +36,7 @@ public class Bucket {
      * @see User
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User creator;
 
     /**
@@ -61,9 +61,51 @@ public class Bucket {
     @ManyToMany
     private List<User> users;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private StorageFolder rootFolder;
 
+    /**
+     * The number of files in the bucket, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long objectCount = 0;
+
+    /**
+     * The number of folders in the bucket without the root folder, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long folderCount = 0;
+
+    /**
+     * The size of all files in the bucket in bytes, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long totalBytes = 0;
+
+    /**
+     * The number of {@link User}s that can access the bucket.
+     */
+    @Column(nullable = false)
+    private long memberCount = 0;
+
+    /**
+     * Whether the counters were calculated from the content of the bucket, false for buckets created before the
+     * counters were maintained until they are calculated once on startup.
+     */
+    @Column(nullable = false, updatable = false)
+    private boolean countersInitialized = true;
+
+    /**
+     * The number of storage servers the files of the bucket are stored on, or null to use the configured factor.
+     */
+    private Integer replicationFactor;
+
+    /**
+     * The number of storage servers that have to store an uploaded file before the upload succeeds,
+     * or null for a majority of the replication factor.
+     */
+    private Integer writeQuorum;
+
     /**
      * The default constructor of the bucket to create a new bucket
      */
@@ -203,6 +245,7 @@ public class Bucket {
      */
     public void setUsers(List<User> users) {
         this.users = users;
+        this.memberCount = users.size();
     }
 
     /**
@@ -213,6 +256,7 @@ public class Bucket {
      */
     public void addUser(User user) {
         users.add(user);
+        memberCount++;
     }
 
     /**
@@ -222,7 +266,7 @@ public class Bucket {
      * @see User
      */
     public void removeUser(User user) {
-        users.remove(user);
+        if(users.remove(user)) memberCount--;
     }
 
     public StorageFolder getRootFolder() {
@@ -233,6 +277,70 @@ public class Bucket {
         this.rootFolder = rootFolder;
     }
 
+    /**
+     * Getter for the number of files in the bucket
+     * @return long the number of files in the bucket
+     */
+    public long getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Getter for the number of folders in the bucket without the root folder
+     * @return long the number of folders in the bucket
+     */
+    public long getFolderCount() {
+        return folderCount;
+    }
+
+    /**
+     * Getter for the size of all files in the bucket
+     * @return long the size of all files in the bucket in bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Getter for the number of {@link User}s that can access the bucket
+     * @return long the number of {@link User}s that can access the bucket
+     */
+    public long getMemberCount() {
+        return memberCount;
+    }
+
+    /**
+     * Getter for the number of storage servers the files of the bucket are stored on
+     * @return Integer the replication factor, or null if the configured factor is used
+     */
+    public Integer getReplicationFactor() {
+        return replicationFactor;
+    }
+
+    /**
+     * Setter for the number of storage servers the files of the bucket are stored on
+     * @param replicationFactor the replication factor, or null to use the configured factor
+     */
+    public void setReplicationFactor(Integer replicationFactor) {
+        this.replicationFactor = replicationFactor;
+    }
+
+    /**
+     * Getter for the number of storage servers that have to store an uploaded file before the upload succeeds
+     * @return Integer the write quorum, or null for a majority of the replication factor
+     */
+    public Integer getWriteQuorum() {
+        return writeQuorum;
+    }
+
+    /**
+     * Setter for the number of storage servers that have to store an uploaded file before the upload succeeds
+     * @param writeQuorum the write quorum, or null for a majority of the replication factor
+     */
+    public void setWriteQuorum(Integer writeQuorum) {
+        this.writeQuorum = writeQuorum;
+    }
+
     /**
      * {@inheritDoc}
      */
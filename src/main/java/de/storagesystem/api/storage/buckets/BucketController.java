@@ -54,6 +54,8 @@ public class BucketController {
      *
      * @param authentication The authentication of the user.
      * @param bucketName The name of the bucket.
+     * @param replicationFactor The number of storage servers the files of the bucket are stored on.
+     * @param writeQuorum The number of storage servers that have to store an uploaded file before the upload succeeds.
      * @return The ResponseEntity with the status code.
      * @throws StorageEntityAlreadyExistsException If the bucket already exists.
      * @throws UserInputValidationException If the bucket name is not valid.
@@ -62,7 +64,9 @@ public class BucketController {
     @PostMapping(value = "/")
     public ResponseEntity<ObjectNode> handleBucketCreation(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
-            @RequestParam("bucket") String bucketName)
+            @RequestParam("bucket") String bucketName,
+            @RequestParam(value = "replicationFactor", required = false) Integer replicationFactor,
+            @RequestParam(value = "writeQuorum", required = false) Integer writeQuorum)
             throws
             UserInputValidationException,
             UserNotFoundException,
@@ -76,7 +80,7 @@ public class BucketController {
         logger.info("Creating bucket: " + bucketName);
 
         // Create bucket
-        return storageService.createBucket(userService.getUserId(authentication), bucketName);
+        return storageService.createBucket(userService.getUserId(authentication), bucketName, replicationFactor, writeQuorum);
     }
 
     /**
@@ -114,8 +118,10 @@ public class BucketController {
      * Lists all buckets for user.
      *
      * @param authentication The authentication of the user.
-     * @param page The page number.
+     * @param cursor The cursor returned by the previous page, continues after its last bucket.
+     * @param page The page number, if no cursor is given.
      * @param limit The limit of buckets per page.
+     * @param total Whether the total number of buckets is counted, by default only for pages selected by number.
      * @return The ResponseEntity with the status code and the list of buckets.
      * @throws UserNotFoundException If the user does not exist.
      * @throws InvalidTokenException If the token is invalid.
@@ -123,19 +129,23 @@ public class BucketController {
     @GetMapping(value = "/")
     public ResponseEntity<ObjectNode> handleBucketList(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "limit", defaultValue = "100") int limit)
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "total", required = false) Boolean total)
             throws
             UserNotFoundException,
             InvalidTokenException {
 
         // Validate user input
-        if(page < 0 || limit < 0) throw new IllegalArgumentException("Page and limit must be greater than 0");
+        if(page < 0) throw new IllegalArgumentException("Page must not be negative");
+        if(limit < 1) throw new IllegalArgumentException("Limit must be greater than 0");
         if(limit > 100) throw new IllegalArgumentException("Cannot get more than 100 buckets at once");
 
         logger.info("Getting bucket list");
         // Get bucket list
-        return storageService.loadPage(userService.getUserId(authentication), page, limit);
+        boolean withTotal = (total != null) ? total : cursor == null;
+        return storageService.loadPage(userService.getUserId(authentication), cursor, page, limit, withTotal);
     }
 
     /**
@@ -2,6 +2,7 @@ package de.storagesystem.api.storage.buckets;
 
 import de.storagesystem.api.users.User;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -27,6 +28,16 @@ public interface BucketCustomDAO {
      */
     Stream<Bucket> findPageByUser(User user, int page, int limit);
 
+    /**
+     * Returns the buckets owned by the given user whose id follows the given id, ordered by id.
+     * The query seeks on the index of the owner, so every page costs the same.
+     * @param user The owner of the buckets.
+     * @param afterId The id of the last bucket of the previous page, or null to start at the first bucket.
+     * @param limit The maximum amount of buckets to return.
+     * @return The buckets following the given id.
+     */
+    List<Bucket> findPageByUserAfter(User user, Long afterId, int limit);
+
     /**
      * Returns the number of buckets owned by the given user.
      * @param user The owner of the buckets.
@@ -34,6 +45,13 @@ public interface BucketCustomDAO {
      */
     long countBucketsByUser(User user);
 
+    /**
+     * Calculates the counters of the buckets created before the counters were maintained from their content.
+     * Buckets whose counters are initialized are not changed, so later calls do nothing.
+     * @return the number of buckets whose counters were calculated.
+     */
+    int initializeCounters();
+
     /**
      * Returns the bucket with the given name and owner, if it exists.
      *
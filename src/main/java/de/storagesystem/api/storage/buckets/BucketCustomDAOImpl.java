@@ -4,9 +4,11 @@ import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
 import de.storagesystem.api.exceptions.UserNotFoundException;
 import de.storagesystem.api.users.User;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -39,13 +41,26 @@ public class BucketCustomDAOImpl implements BucketCustomDAO {
      */
     @Override
     public Stream<Bucket> findPageByUser(User user, int page, int limit) {
-        return em.createQuery("SELECT b FROM Bucket b WHERE b.creator.id = :user ORDER BY b.id", Bucket.class)
+        return em.createQuery("SELECT b FROM Bucket b JOIN FETCH b.rootFolder WHERE b.creator.id = :user ORDER BY b.id", Bucket.class)
                 .setParameter("user", user.getId())
                 .setFirstResult(page * limit)
                 .setMaxResults(limit)
                 .getResultStream();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Bucket> findPageByUserAfter(User user, Long afterId, int limit) {
+        return em.createQuery("SELECT b FROM Bucket b JOIN FETCH b.rootFolder WHERE b.creator.id = :user " +
+                        "AND b.id > :afterId ORDER BY b.id", Bucket.class)
+                .setParameter("user", user.getId())
+                .setParameter("afterId", afterId != null ? afterId : 0L)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -67,4 +82,20 @@ public class BucketCustomDAOImpl implements BucketCustomDAO {
         return findByName(user, bucketName)
                 .orElseThrow(() -> new StorageEntityNotFoundException("Bucket not found", "Bucket " + bucketName));
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int initializeCounters() {
+        return em.createQuery("UPDATE Bucket b SET " +
+                        "b.objectCount = (SELECT COUNT(f) FROM StorageFile f WHERE f.bucket = b AND f.storedPath IS NOT NULL), " +
+                        "b.totalBytes = (SELECT COALESCE(SUM(f.size), 0) FROM StorageFile f WHERE f.bucket = b AND f.storedPath IS NOT NULL), " +
+                        "b.folderCount = (SELECT COUNT(f) FROM StorageFolder f WHERE f.bucket = b AND f <> b.rootFolder), " +
+                        "b.memberCount = SIZE(b.users), " +
+                        "b.countersInitialized = true " +
+                        "WHERE b.countersInitialized = false")
+                .executeUpdate();
+    }
 }
@@ -3,7 +3,6 @@ package de.storagesystem.api.storage.buckets;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
-import de.storagesystem.api.storage.files.StorageFile;
 import org.springframework.boot.jackson.JsonComponent;
 
 /**
@@ -28,9 +27,14 @@ public class BucketSerializer extends JsonSerializer<Bucket> {
         jsonGenerator.writeStartObject();
         jsonGenerator.writeNumberField("id", bucket.getId());
         jsonGenerator.writeStringField("name", bucket.getName());
-        jsonGenerator.writeNumberField("folders", bucket.getRootFolder().getFolders().size());
-        jsonGenerator.writeNumberField("files", bucket.getRootFolder().getFiles().size());
-        jsonGenerator.writeNumberField("users", bucket.getUsers().size());
+        jsonGenerator.writeNumberField("folders", bucket.getRootFolder().getFolderCount());
+        jsonGenerator.writeNumberField("files", bucket.getRootFolder().getFileCount());
+        jsonGenerator.writeNumberField("users", bucket.getMemberCount());
+        jsonGenerator.writeNumberField("totalFolders", bucket.getFolderCount());
+        jsonGenerator.writeNumberField("totalFiles", bucket.getObjectCount());
+        jsonGenerator.writeNumberField("size", bucket.getTotalBytes());
+        jsonGenerator.writeObjectField("replicationFactor", bucket.getReplicationFactor());
+        jsonGenerator.writeObjectField("writeQuorum", bucket.getWriteQuorum());
         jsonGenerator.writeEndObject();
     }
 }
\ No newline at end of file
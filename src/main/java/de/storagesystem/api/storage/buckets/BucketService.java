@@ -18,9 +18,13 @@ public interface BucketService {
      *
      * @param userId     The id of the user.
      * @param bucketName The name of the bucket.
+     * @param replicationFactor The number of storage servers the files of the bucket are stored on,
+     *                          or null to use the configured factor.
+     * @param writeQuorum The number of storage servers that have to store an uploaded file,
+     *                    or null for a majority of the replication factor.
      * @return true if the bucket was created successfully, false otherwise.
      */
-    ResponseEntity<ObjectNode> createBucket(Long userId, String bucketName);
+    ResponseEntity<ObjectNode> createBucket(Long userId, String bucketName, Integer replicationFactor, Integer writeQuorum);
 
     /**
      * Deletes a bucket from a user.
@@ -35,11 +39,13 @@ public interface BucketService {
      * Loads all buckets from a user.
      *
      * @param userId The id of the user.
-     * @param page  The page to load.
+     * @param cursor The cursor returned by the previous page, or null to load the page by its number.
+     * @param page  The page to load, if no cursor is given.
      * @param limit The limit of buckets to load per page.
+     * @param withTotal Whether the total number of buckets of the user is counted.
      * @return Stream of paths to the files
      */
-    ResponseEntity<ObjectNode> loadPage(Long userId, int page, int limit);
+    ResponseEntity<ObjectNode> loadPage(Long userId, String cursor, int page, int limit, boolean withTotal);
 
     /**
      * Loads a bucket from a user.
@@ -4,15 +4,18 @@ package de.storagesystem.api.storage.buckets;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
 import de.storagesystem.api.storage.StorageItem;
 import de.storagesystem.api.storage.StorageService;
 import de.storagesystem.api.storage.files.StorageFile;
 import de.storagesystem.api.storage.folders.StorageFolder;
+import de.storagesystem.api.storage.folders.FolderPathCache;
 import de.storagesystem.api.storage.folders.StorageFolderDAO;
 import de.storagesystem.api.storage.files.StorageFileDAO;
 import de.storagesystem.api.exceptions.UserNotFoundException;
 import de.storagesystem.api.servers.StorageServerDAO;
 import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
 import de.storagesystem.api.users.UserDAO;
 import de.storagesystem.api.util.ResponseBuilder;
 import de.storagesystem.api.util.ResponseState;
@@ -27,7 +30,6 @@ import javax.annotation.PostConstruct;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 /**
  * @author Simon Brebeck
@@ -42,48 +44,75 @@ public class BucketServiceImpl extends StorageService implements BucketService {
 
     ObjectMapper mapper;
 
+    private final StorageServerConfigProperty storageServerConfigProperties;
+
     /**
      * Instantiates a new Bucket service.
      *
+     * @param storageServerConfigProperties the configuration of this server
      * @param storageServerRepository the storage server repository
      * @param bucketFolderRepository the bucket folder repository
      * @param storageFileRepository the storage file repository
      * @param bucketRepository the bucket repository
      * @param userRepository the user repository
+     * @param userCache the user cache
+     * @param folderPathCache the folder path cache
      */
     @Autowired
     public BucketServiceImpl(
+            StorageServerConfigProperty storageServerConfigProperties,
             StorageServerDAO storageServerRepository,
             StorageFolderDAO bucketFolderRepository,
             StorageFileDAO storageFileRepository,
             BucketDAO bucketRepository,
             UserDAO userRepository,
+            UserCache userCache,
+            FolderPathCache folderPathCache,
             ObjectMapper mapper) {
-        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository);
+        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository, userCache, folderPathCache);
         this.mapper = mapper;
+        this.storageServerConfigProperties = storageServerConfigProperties;
     }
     /**
      * {@inheritDoc}
+     * Calculates the counters of buckets created before the counters were maintained.
      */
     @Override
     @PostConstruct
     public void init() {
         super.init();
+        try {
+            int initialized = bucketRepository.initializeCounters();
+            if(initialized > 0) logger.info("Initialized the counters of " + initialized + " buckets");
+        } catch (RuntimeException e) {
+            logger.error("Could not initialize the counters of buckets", e);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<ObjectNode> createBucket(Long userId, String bucketName) throws UserNotFoundException {
+    public ResponseEntity<ObjectNode> createBucket(Long userId, String bucketName, Integer replicationFactor, Integer writeQuorum)
+            throws UserNotFoundException {
+        int maxFactor = storageServerConfigProperties.getReplication().getMaxFactor();
+        if(replicationFactor != null && (replicationFactor < 1 || replicationFactor > maxFactor))
+            throw new IllegalArgumentException("Replication factor must be between 1 and " + maxFactor);
+        int factor = (replicationFactor != null) ? replicationFactor : storageServerConfigProperties.getReplication().getFactor();
+        if(writeQuorum != null && (writeQuorum < 1 || writeQuorum > factor))
+            throw new IllegalArgumentException("Write quorum must be between 1 and the replication factor " + factor);
+
         // Fetch the user from the database, throw an exception if the user does not exist
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = getUser(userId);
 
         // Check if the bucket already exists
         boolean existsInDatabase = bucketRepository.findByName(user, bucketName).isPresent();
         if(!existsInDatabase) {
             // Create the bucket in the database if it does not exist
-            bucketRepository.save(new Bucket(bucketName, user));
+            Bucket bucket = new Bucket(bucketName, user);
+            bucket.setReplicationFactor(replicationFactor);
+            bucket.setWriteQuorum(writeQuorum);
+            bucketRepository.save(bucket);
             logger.info("Created bucket" + bucketName);
 
             ObjectNode response = new ResponseBuilder().build(ResponseState.OK, "Bucket successfully created.");
@@ -104,12 +133,13 @@ public class BucketServiceImpl extends StorageService implements BucketService {
     public ResponseEntity<ObjectNode> deleteBucket(Long userId, String bucketName)
             throws UserNotFoundException {
         // Fetch the user from the database, throw an exception if the user does not exist
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = getUser(userId);
 
         Optional<Bucket> bucket = bucketRepository.findByName(user, bucketName);
         if(bucket.isPresent()) {
             // Delete the bucket from the database
             bucketRepository.delete(bucket.get());
+            folderPathCache.invalidateBucket(bucket.get().getId());
             logger.info("Deleted bucket" + bucketName);
 
             ObjectNode response = new ResponseBuilder().build(ResponseState.OK, "Bucket successfully deleted.");
@@ -127,32 +157,44 @@ public class BucketServiceImpl extends StorageService implements BucketService {
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<ObjectNode> loadPage(Long userId, int page, int limit)
+    public ResponseEntity<ObjectNode> loadPage(Long userId, String cursor, int page, int limit, boolean withTotal)
             throws UserNotFoundException {
         // Fetch the user from the database, throw an exception if the user does not exist
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = getUser(userId);
 
-        // Fetch all buckets from the database
-        Stream<Bucket> buckets = bucketRepository.findPageByUser(user, page, limit);
+        ResponseBuilder response = new ResponseBuilder()
+                .setStatus(ResponseState.OK)
+                .setMessage("Buckets successfully loaded.");
+        List<Bucket> buckets;
+        boolean hasMore;
+        if(cursor != null) {
+            // Seek behind the last bucket of the previous page, one more bucket tells if there are further buckets
+            buckets = bucketRepository.findPageByUserAfter(user, Long.parseLong(Util.decodeCursor(cursor)), limit + 1);
+            hasMore = buckets.size() > limit;
+            if(hasMore) buckets = buckets.subList(0, limit);
+        } else {
+            buckets = bucketRepository.findPageByUser(user, page, limit).toList();
+            hasMore = !buckets.isEmpty() && buckets.size() == limit;
+            response.add("page", page);
+        }
 
-        // Fetch the total amount of buckets
-        long totalBucketsByUser = bucketRepository.countBucketsByUser(user);
-        long totalPages = Util.calculateTotalPages(totalBucketsByUser, limit);
-        long bucketCount = Util.calculateItemCount(totalPages, totalBucketsByUser, page, limit);
+        if(withTotal) {
+            // Fetch the total amount of buckets
+            long totalBucketsByUser = bucketRepository.countBucketsByUser(user);
+            response.add("total", totalBucketsByUser);
+            if(cursor == null) {
+                long totalPages = Util.calculateTotalPages(totalBucketsByUser, limit);
+                response.add("pages", totalPages);
+                hasMore = !buckets.isEmpty() && page + 1 < totalPages;
+            }
+        }
 
-        // Create a new response object
-        ObjectNode response = new ResponseBuilder()
-                .setStatus(ResponseState.OK)
-                .setMessage("Buckets successfully loaded.")
-                .addArray("data", buckets)
-                .add("count", bucketCount)
-                .add("total", totalBucketsByUser)
-                .add("page", page)
-                .add("pages", totalPages)
-                .build();
+        response.addArray("data", buckets)
+                .add("count", buckets.size())
+                .add("cursor", hasMore ? Util.encodeCursor(String.valueOf(buckets.get(buckets.size() - 1).getId())) : null);
 
-        logger.info("Loaded page " + page + " with " + bucketCount + " buckets for user " + user.getFirstname() + " " + user.getLastname());
-        return ResponseEntity.ok(response);
+        logger.info("Loaded " + buckets.size() + " buckets for user " + user.getFirstname() + " " + user.getLastname());
+        return ResponseEntity.ok(response.build());
     }
 
     /**
@@ -161,8 +203,7 @@ public class BucketServiceImpl extends StorageService implements BucketService {
     @Override
     public ResponseEntity<ObjectNode> loadBucketInfo(Long userId, String bucketName)
             throws UserNotFoundException, StorageEntityNotFoundException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = getUser(userId);
         Bucket bucket = bucketRepository.findByName(user, bucketName)
                 .orElseThrow(() -> new StorageEntityNotFoundException("Bucket not found"));
 
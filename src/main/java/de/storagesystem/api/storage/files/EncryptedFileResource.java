@@ -0,0 +1,46 @@
+package de.storagesystem.api.storage.files;
+
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.InputStream;
+
+/**
+ * A {@link InputStreamResource} for an encrypted file stream that is sent to the File Access Layer
+ * as a multipart file. The length is unknown up front, so the resource is transferred chunked.
+ *
+ * @author Simon Brebeck
+ */
+public class EncryptedFileResource extends InputStreamResource {
+
+    /**
+     * The original name of the file
+     */
+    private final String filename;
+
+    /**
+     * Instantiates a new EncryptedFileResource.
+     * @param encryptedStream the stream of the encrypted file content
+     * @param filename the original name of the file
+     */
+    public EncryptedFileResource(InputStream encryptedStream, String filename) {
+        super(encryptedStream);
+        this.filename = filename;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Returns -1 as the length of the encrypted stream is not known without reading it.
+     * @return -1
+     */
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+}
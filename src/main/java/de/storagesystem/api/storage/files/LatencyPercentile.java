@@ -0,0 +1,64 @@
+package de.storagesystem.api.storage.files;
+
+import java.util.Arrays;
+
+/**
+ * A percentile of the most recent latencies, kept in a ring buffer. The percentile is recalculated after every
+ * twentieth of the window, so recording a latency is cheap and reading the percentile does not sort.
+ *
+ * @author Simon Brebeck
+ */
+public class LatencyPercentile {
+
+    private final long[] latencies;
+
+    private final double percentile;
+
+    /**
+     * The number of latencies after which the percentile is recalculated.
+     */
+    private final int interval;
+
+    private long recorded = 0;
+
+    private volatile long value;
+
+    /**
+     * Instantiates a new LatencyPercentile.
+     *
+     * @param window the number of recent latencies the percentile is calculated of
+     * @param percentile the percentile between 0 and 100
+     * @param initialValue the value until the first twentieth of the window is recorded
+     */
+    public LatencyPercentile(int window, double percentile, long initialValue) {
+        this.latencies = new long[window];
+        this.percentile = percentile;
+        this.interval = Math.max(1, window / 20);
+        this.value = initialValue;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latency the latency in any unit, as long as all latencies use the same
+     */
+    public synchronized void record(long latency) {
+        latencies[(int) (recorded % latencies.length)] = latency;
+        recorded++;
+        if(recorded % interval == 0) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(recorded, latencies.length));
+            Arrays.sort(window);
+            int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+            value = window[Math.max(0, index)];
+        }
+    }
+
+    /**
+     * Getter for the percentile of the recent latencies.
+     *
+     * @return the percentile, or the initial value if not enough latencies are recorded
+     */
+    public long getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,158 @@
+package de.storagesystem.api.storage.files;
+
+import de.storagesystem.api.servers.CapacityReservation;
+import de.storagesystem.api.servers.StorageServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The upload of an encrypted file to several storage servers at the same time, which succeeds as soon as a quorum
+ * of the servers stored the file. Every upload is handled exactly once: uploads that finish before the outcome is
+ * decided belong to the outcome, uploads that finish later are handed to a callback in the background. As the caller
+ * records the outcome after the quorum is reached, late copies are held back until the caller settles whether the
+ * file was recorded.
+ *
+ * @author Simon Brebeck
+ */
+public class ReplicatedUpload {
+
+    private static final Logger logger = LogManager.getLogger(ReplicatedUpload.class);
+
+    /**
+     * A copy of the file that a storage server stored.
+     *
+     * @param reservation the storage reserved on the server
+     * @param storedPath the path of the stored copy
+     */
+    public record StoredReplica(CapacityReservation reservation, String storedPath) {
+    }
+
+    private final int quorum;
+
+    private final List<CapacityReservation> reservations;
+
+    /**
+     * The callback for copies that were stored after the outcome was decided, with whether the file was recorded.
+     */
+    private final BiConsumer<StoredReplica, Boolean> lateReplica;
+
+    /**
+     * Completed with the first copies of the quorum, or exceptionally once the quorum cannot be reached anymore.
+     */
+    private final CompletableFuture<List<StoredReplica>> acknowledged = new CompletableFuture<>();
+
+    private final List<StoredReplica> stored = new ArrayList<>();
+
+    private int failed = 0;
+
+    /**
+     * Whether the file was recorded, or null until the caller settled the upload.
+     */
+    private Boolean recorded = null;
+
+    /**
+     * The copies stored after the quorum was reached but before the upload was settled.
+     */
+    private final List<StoredReplica> unsettled = new ArrayList<>();
+
+    /**
+     * Instantiates a new ReplicatedUpload.
+     *
+     * @param reservations the storage reserved on the servers, one upload per reservation
+     * @param quorum the number of servers that have to store the file, at most the number of reservations
+     * @param lateReplica the callback for copies that were stored after the outcome was decided,
+     *                    with whether the file was recorded
+     */
+    public ReplicatedUpload(List<CapacityReservation> reservations, int quorum, BiConsumer<StoredReplica, Boolean> lateReplica) {
+        this.reservations = reservations;
+        this.quorum = quorum;
+        this.lateReplica = lateReplica;
+    }
+
+    /**
+     * Starts the uploads. Failed uploads release their reservation.
+     *
+     * @param upload the upload to a server, returns the path of the stored copy
+     * @param executor the executor the uploads run on
+     * @return a future that completes once every upload finished
+     */
+    public CompletableFuture<Void> start(Function<StorageServer, String> upload, Executor executor) {
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
+        for(CapacityReservation reservation : reservations) {
+            CompletableFuture<String> copy = CompletableFuture.supplyAsync(() -> upload.apply(reservation.getServer()), executor);
+            copy.whenComplete((storedPath, error) -> finish(reservation, storedPath, error));
+            uploads.add(copy);
+        }
+        return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Waits until the quorum of servers stored the file.
+     *
+     * @return the copies of the quorum
+     * @throws java.util.concurrent.CompletionException if the quorum cannot be reached
+     */
+    public List<StoredReplica> awaitQuorum() {
+        return acknowledged.join();
+    }
+
+    /**
+     * Settles a successful upload once the caller recorded the file or failed to, and hands the copies that were
+     * stored in the meantime to the callback.
+     *
+     * @param fileRecorded whether the file was recorded
+     */
+    public void settle(boolean fileRecorded) {
+        List<StoredReplica> late;
+        synchronized(this) {
+            recorded = fileRecorded;
+            late = List.copyOf(unsettled);
+            unsettled.clear();
+        }
+        late.forEach(replica -> lateReplica.accept(replica, fileRecorded));
+    }
+
+    /**
+     * Getter for the copies stored before the outcome was decided, which the caller removes if the quorum failed.
+     *
+     * @return the stored copies
+     */
+    public synchronized List<StoredReplica> getStored() {
+        return List.copyOf(stored);
+    }
+
+    private void finish(CapacityReservation reservation, String storedPath, Throwable error) {
+        if(error != null) {
+            reservation.release();
+            logger.warn("Could not store replica on storage server " + reservation.getServer().getName() + ": " + error.getMessage());
+        }
+        StoredReplica replica = (error == null) ? new StoredReplica(reservation, storedPath) : null;
+        boolean fileRecorded;
+        synchronized(this) {
+            if(!acknowledged.isDone()) {
+                if(replica != null) {
+                    stored.add(replica);
+                    if(stored.size() == quorum) acknowledged.complete(List.copyOf(stored));
+                } else if(++failed > reservations.size() - quorum) {
+                    recorded = false;
+                    acknowledged.completeExceptionally(error);
+                }
+                return;
+            }
+            if(replica == null) return;
+            if(recorded == null) {
+                unsettled.add(replica);
+                return;
+            }
+            fileRecorded = recorded;
+        }
+        lateReplica.accept(replica, fileRecorded);
+    }
+}
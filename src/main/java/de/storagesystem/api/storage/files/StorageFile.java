@@ -1,11 +1,15 @@
 package de.storagesystem.api.storage.files;
 
 import com.sun.istack.NotNull;
+import de.storagesystem.api.cryptography.EncryptionFormat;
 import de.storagesystem.api.storage.StorageItem;
 import de.storagesystem.api.servers.StorageServer;
 import de.storagesystem.api.users.User;
 
 import javax.persistence.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -14,16 +18,29 @@ import java.util.Objects;
 @Entity
 @Table(
         name = "storage_files",
-        uniqueConstraints = {@UniqueConstraint(columnNames = {"bucket_id", "path"})}
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"bucket_id", "path"}),
+                @UniqueConstraint(name = "uk_storage_files_parent_name", columnNames = {"bucket_id", "parent_id", "name"})
+        },
+        indexes = {
+                @Index(name = "idx_storage_files_parent_name", columnList = "parent_id, name"),
+                @Index(name = "idx_storage_files_deleted", columnList = "deleted, deleteAfter")
+        }
 )
 public class StorageFile extends StorageItem {
 
     /**
      * The Server where this file is phiysically stored.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private StorageServer storageServer;
 
+    /**
+     * The copies of the file on further storage servers.
+     */
+    @OneToMany(mappedBy = "file", fetch = FetchType.LAZY)
+    private List<StorageFileReplica> replicas = new ArrayList<>();
+
     /**
      * The type of the file.
      */
@@ -48,6 +65,23 @@ public class StorageFile extends StorageItem {
     @NotNull
     private boolean deleted = false;
 
+    /**
+     * The number of failed attempts to remove the deleted file from its storage server.
+     */
+    private int deleteAttempts = 0;
+
+    /**
+     * The time after which the removal of the deleted file from its storage server is attempted again.
+     */
+    private Instant deleteAfter;
+
+    /**
+     * The format in which the file is stored encrypted.
+     * Files stored before the format was recorded have no format and are stored as {@link EncryptionFormat#CBC}.
+     */
+    @Enumerated(EnumType.STRING)
+    private EncryptionFormat encryptionFormat;
+
     /**
      * Instantiates a new Storage file.
      */
@@ -151,6 +185,14 @@ public class StorageFile extends StorageItem {
         this.storageServer = storageServer;
     }
 
+    /**
+     * Getter for the copies of the file on further storage servers.
+     * @return the replicas of the file.
+     */
+    public List<StorageFileReplica> getReplicas() {
+        return replicas;
+    }
+
     /**
      * Getter for state of the file, whether the file has been deleted or not.
      * @return true if the file has been deleted, false if not.
@@ -167,6 +209,54 @@ public class StorageFile extends StorageItem {
         this.deleted = deleted;
     }
 
+    /**
+     * Getter for the number of failed attempts to remove the deleted file from its storage server.
+     * @return the number of failed attempts.
+     */
+    public int getDeleteAttempts() {
+        return deleteAttempts;
+    }
+
+    /**
+     * Setter for the number of failed attempts to remove the deleted file from its storage server.
+     * @param deleteAttempts the number of failed attempts.
+     */
+    public void setDeleteAttempts(int deleteAttempts) {
+        this.deleteAttempts = deleteAttempts;
+    }
+
+    /**
+     * Getter for the time after which the removal of the deleted file is attempted again.
+     * @return the time of the next attempt, or null if the file can be removed immediately.
+     */
+    public Instant getDeleteAfter() {
+        return deleteAfter;
+    }
+
+    /**
+     * Setter for the time after which the removal of the deleted file is attempted again.
+     * @param deleteAfter the time of the next attempt.
+     */
+    public void setDeleteAfter(Instant deleteAfter) {
+        this.deleteAfter = deleteAfter;
+    }
+
+    /**
+     * Getter for the format in which the file is stored encrypted.
+     * @return the format in which the file is stored encrypted.
+     */
+    public EncryptionFormat getEncryptionFormat() {
+        return encryptionFormat != null ? encryptionFormat : EncryptionFormat.CBC;
+    }
+
+    /**
+     * Setter for the format in which the file is stored encrypted.
+     * @param encryptionFormat the format in which the file is stored encrypted.
+     */
+    public void setEncryptionFormat(EncryptionFormat encryptionFormat) {
+        this.encryptionFormat = encryptionFormat;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -9,13 +9,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 /**
  * @author Simon Brebeck
@@ -57,7 +60,8 @@ public class StorageFileController {
      * @param authentication the authentication token of the user
      * @param bucket the bucket name where the file is located
      * @param path the path of the file
-     * @return the file as a {@link ResponseEntity<Resource>}
+     * @param range the optional range header, a single byte range is answered with 206 Partial Content
+     * @return the file as a {@link ResponseEntity<StreamingResponseBody>}
      * @throws StorageEntityNotFoundException if the bucket, folder or file does not exist
      * @throws UserNotFoundException if the user does not exist
      * @throws UserInputValidationException if the bucket, folder or file name is invalid
@@ -65,10 +69,11 @@ public class StorageFileController {
      */
     @GetMapping("/{bucket}/{path}/download")
     @ResponseBody
-    public ResponseEntity<Resource> serveFile(
+    public ResponseEntity<StreamingResponseBody> serveFile(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
             @PathVariable String bucket,
-            @PathVariable String path)
+            @PathVariable String path,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range)
             throws
             StorageEntityNotFoundException,
             UserNotFoundException,
@@ -80,9 +85,19 @@ public class StorageFileController {
         if(!inputValidation.validateFilePath(path))
             throw new UserInputValidationException("Invalid file path");
 
+        // Only single ranges are served partially, otherwise the whole file is returned
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            // An invalid range header is ignored (RFC 9110), unsatisfiable ranges are answered with 416 later
+            ranges = List.of();
+        }
+        HttpRange requestedRange = ranges.size() == 1 ? ranges.get(0) : null;
+
         String pathToParent = (path == null) ? "/" + bucket : "/" + bucket + "/" + path;
         logger.info("Download file " + pathToParent + " from bucket " + bucket);
-        return storageService.loadFile(userService.getUserId(authentication), bucket, pathToParent);
+        return storageService.loadFile(userService.getUserId(authentication), bucket, pathToParent, requestedRange);
     }
 
     /**
@@ -120,6 +135,52 @@ public class StorageFileController {
         return storageService.deleteFile(userService.getUserId(authentication), bucket, pathToParent);
     }
 
+    /**
+     * Moves a file to another folder inside its bucket and renames it
+     *
+     * @param authentication the authentication token of the user
+     * @param bucket the bucket name where the file is located
+     * @param path the path of the file
+     * @param parent the path of the new folder, "/" for the root of the bucket, or null to keep the folder
+     * @param name the new name of the file, or null to keep the name
+     * @return the new path of the file as a {@link ResponseEntity<ObjectNode>}
+     * @throws StorageEntityNotFoundException if the bucket, folder or file does not exist
+     * @throws UserNotFoundException if the user does not exist
+     * @throws UserInputValidationException if the bucket, folder or file name is invalid
+     * @throws InvalidTokenException if the authentication token is invalid
+     */
+    @PatchMapping("/{bucket}/{path}")
+    @ResponseBody
+    public ResponseEntity<ObjectNode> moveFile(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @PathVariable String bucket,
+            @PathVariable String path,
+            @RequestParam(value = "parent", required = false) String parent,
+            @RequestParam(value = "name", required = false) String name)
+            throws
+            StorageEntityNotFoundException,
+            UserNotFoundException,
+            UserInputValidationException,
+            InvalidTokenException {
+
+        StorageInputValidation inputValidation = new StorageInputValidationImpl();
+        if(!inputValidation.validateBucketName(bucket))
+            throw new UserInputValidationException("Invalid bucket name");
+        if(!inputValidation.validateFilePath(path))
+            throw new UserInputValidationException("Invalid file path");
+        if(parent == null && name == null)
+            throw new IllegalArgumentException("Either a new folder or a new name is required");
+        if(parent != null && !parent.equals("/") && !inputValidation.validateFolderPath(parent))
+            throw new UserInputValidationException("Invalid folder path");
+        if(name != null && !inputValidation.validateFileName(name))
+            throw new UserInputValidationException("Invalid file name");
+
+        String filePath = "/" + bucket + "/" + path;
+        String parentPath = (parent == null) ? null : parent.equals("/") ? "/" + bucket : "/" + bucket + "/" + parent;
+        logger.info("Move file " + filePath + " in bucket " + bucket);
+        return storageService.moveFile(userService.getUserId(authentication), bucket, filePath, parentPath, name);
+    }
+
     /**
      * Uploads a file to a folder inside a bucket for a user
      *
@@ -166,7 +227,8 @@ public class StorageFileController {
      * @param authentication the authentication token of the user
      * @param bucketName the bucket name where the file is located
      * @param relativePath the folder path where the file is located
-     * @param page the page number
+     * @param cursor the cursor returned by the previous listing, continues after its last file
+     * @param page the page number, if no cursor is given
      * @param limit the number of files to return
      * @return the list of files as a {@link ResponseEntity<ObjectNode>}
      * @throws StorageEntityNotFoundException if the bucket or folder does not exist
@@ -180,6 +242,7 @@ public class StorageFileController {
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
             @PathVariable String bucketName,
             @PathVariable(value = "relativePath", required = false) String relativePath,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "limit", defaultValue = "100") int limit)
             throws
@@ -200,7 +263,54 @@ public class StorageFileController {
 
         String pathToParent = (relativePath == null) ? "/" + bucketName : "/" + bucketName + "/" + relativePath;
         logger.info("Getting file list of folder: " + pathToParent);
-        return storageService.loadFiles(userService.getUserId(authentication), bucketName, pathToParent, page, limit);
+        return storageService.loadFiles(userService.getUserId(authentication), bucketName, pathToParent, cursor, page, limit);
+    }
+
+    /**
+     * Lists the files of a whole bucket by their keys with the semantics of S3 ListObjectsV2, selected by the
+     * parameter list-type=2. Keys are the paths of the files relative to the bucket.
+     *
+     * @param authentication the authentication token of the user
+     * @param bucketName the bucket name to list
+     * @param prefix the prefix of the listed keys
+     * @param delimiter the delimiter that groups the keys behind the prefix to common prefixes
+     * @param continuationToken the token returned by the previous listing
+     * @param startAfter the key to start behind, if no continuation token is given
+     * @param maxKeys the maximum number of keys and common prefixes to return
+     * @return the keys and common prefixes as a {@link ResponseEntity<ObjectNode>}
+     * @throws StorageEntityNotFoundException if the bucket does not exist
+     * @throws UserInputValidationException if the bucket name is invalid
+     * @throws InvalidTokenException if the authentication token is invalid
+     */
+    @GetMapping(value = "/{bucketName}", params = "list-type=2")
+    public ResponseEntity<ObjectNode> handleObjectList(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @PathVariable String bucketName,
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "delimiter", required = false) String delimiter,
+            @RequestParam(value = "continuation-token", required = false) String continuationToken,
+            @RequestParam(value = "start-after", required = false) String startAfter,
+            @RequestParam(value = "max-keys", defaultValue = "1000") int maxKeys)
+            throws
+            StorageEntityNotFoundException,
+            UserInputValidationException,
+            InvalidTokenException {
+
+        StorageInputValidation inputValidation = new StorageInputValidationImpl();
+        if(!inputValidation.validateBucketName(bucketName))
+            throw new UserInputValidationException("Invalid bucket name");
+        if(maxKeys < 1 || maxKeys > 1000)
+            throw new IllegalArgumentException("Max keys must be between 1 and 1000");
+
+        logger.info("Getting object list of bucket " + bucketName + " with prefix " + prefix);
+        return storageService.loadObjects(
+                userService.getUserId(authentication),
+                bucketName,
+                prefix,
+                (delimiter == null || delimiter.isEmpty()) ? null : delimiter,
+                continuationToken,
+                startAfter,
+                maxKeys);
     }
 
     /**
@@ -208,7 +318,8 @@ public class StorageFileController {
      *
      * @param authentication the authentication token of the user
      * @param bucketName the bucket name where the file is located
-     * @param page the page number
+     * @param cursor the cursor returned by the previous listing, continues after its last file
+     * @param page the page number, if no cursor is given
      * @param limit the number of files to return
      * @return the list of files as a {@link ResponseEntity<ObjectNode>}
      * @throws StorageEntityNotFoundException if the bucket or folder does not exist
@@ -221,6 +332,7 @@ public class StorageFileController {
     public ResponseEntity<ObjectNode> handleFileList(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
             @PathVariable String bucketName,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "limit", defaultValue = "100") int limit)
             throws
@@ -229,7 +341,7 @@ public class StorageFileController {
             StorageEntityAlreadyExistsException,
             UserInputValidationException,
             InvalidTokenException {
-        return handleFileList(authentication, bucketName, null, page, limit);
+        return handleFileList(authentication, bucketName, null, cursor, page, limit);
     }
 
     /**
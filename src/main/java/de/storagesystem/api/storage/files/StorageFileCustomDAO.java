@@ -1,7 +1,11 @@
 package de.storagesystem.api.storage.files;
 
 import de.storagesystem.api.storage.buckets.Bucket;
+import de.storagesystem.api.storage.folders.StorageFolder;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -9,8 +13,18 @@ import java.util.Optional;
  */
 public interface StorageFileCustomDAO {
 
+    /**
+     * The files of a batch that were marked as deleted.
+     *
+     * @param bytes the total size of the files in bytes
+     * @param freedStorage the bytes of the files and their replicas by the id of their storage server
+     */
+    record DeletedBatch(long bytes, Map<Long, Long> freedStorage) {
+    }
+
     /**
      * Loads an optional containing the file from a bucket and a path, if it exists.
+     * Files that are reserved but not yet stored on a storage server are not loaded.
      * @param bucket The bucket where the file is located.
      * @param filePath The path to the file.
      * @return an optional containing the file, if it exists.
@@ -26,6 +40,15 @@ public interface StorageFileCustomDAO {
      */
     boolean exists(Bucket bucket, String parentPath, String filename);
 
+    /**
+     * Checks if a file with the name filename exists inside a folder.
+     * The check is a single lookup on the (bucket, parent, name) unique constraint.
+     * @param parent The folder where the file is located.
+     * @param filename The name of the file.
+     * @return true if the file exists, false otherwise.
+     */
+    boolean exists(StorageFolder parent, String filename);
+
     /**
      * Returns the file with the name from a bucket and a path, if it exists.
      * @param bucket The bucket where the file is located.
@@ -33,4 +56,130 @@ public interface StorageFileCustomDAO {
      * @return the file, if it exists, else null.
      */
     StorageFile getBucketFileByPath(Bucket bucket, String filePath);
+
+    /**
+     * Resolves the file at a path inside a bucket of a user with a single query,
+     * the bucket, parent folder and storage server of the file are loaded with it.
+     * @param userId The id of the user who created the bucket.
+     * @param bucketName The name of the bucket.
+     * @param filePath The path to the file.
+     * @return an optional containing the file, if the bucket and the file exist.
+     */
+    Optional<StorageFile> resolveFile(long userId, String bucketName, String filePath);
+
+    /**
+     * Loads a page of the {@link StorageFile}s inside a parent folder, ordered by name.
+     * @param parent The folder to list.
+     * @param page The page to load, later pages have to skip all previous rows.
+     * @param limit The maximum amount of files to load.
+     * @return the files of the page.
+     */
+    List<StorageFile> findPageByParent(StorageFolder parent, int page, int limit);
+
+    /**
+     * Loads the {@link StorageFile}s inside a parent folder whose name follows the given name, ordered by name.
+     * The query seeks on the (parent, name) index, so every page costs the same.
+     * @param parent The folder to list.
+     * @param afterName The name of the last file of the previous page, or null to start at the first file.
+     * @param limit The maximum amount of files to load.
+     * @return the files following the given name.
+     */
+    List<StorageFile> findPageByParentAfter(StorageFolder parent, String afterName, int limit);
+
+    /**
+     * Counts the {@link StorageFile}s inside a parent folder.
+     * @param parent The folder to count the files of.
+     * @return the amount of files inside the folder.
+     */
+    long countByParent(StorageFolder parent);
+
+    /**
+     * Loads deleted files that are due to be removed from their storage servers, ordered by storage server.
+     * @param now The current time, files whose next attempt is later are skipped.
+     * @param limit The maximum number of files to load.
+     * @return the deleted files together with their storage servers and creators.
+     */
+    List<StorageFile> findDeletedBatch(Instant now, int limit);
+
+    /**
+     * Removes the rows of files that have been removed from their storage servers with a single statement.
+     * @param ids The ids of the files.
+     */
+    void deleteByIds(List<Long> ids);
+
+    /**
+     * Loads the ids of stored files anywhere inside a folder that is being deleted with an index range scan
+     * on their path. Files in folders created at the same path after the deletion started are not loaded.
+     * @param bucketId The id of the bucket of the folder.
+     * @param path The path of the folder.
+     * @param limit The maximum number of ids to load.
+     * @return the ids of the files inside the folder.
+     */
+    List<Long> findIdsInside(long bucketId, String path, int limit);
+
+    /**
+     * Marks files as deleted and detaches them from their buckets and folders with a single statement
+     * and removes them from the counters of their buckets. The freed storage is returned instead of being
+     * written to the storage servers, so that the caller credits it where all freed storage is counted.
+     * The files are removed from the storage servers later.
+     * @param ids The ids of the files.
+     * @return the total size of the files and the storage freed on each storage server.
+     */
+    DeletedBatch markDeleted(List<Long> ids);
+
+    /**
+     * Stores an uploaded file together with the rows of its replicas in one transaction
+     * and adds it to the counters of its folder and bucket.
+     * @param file The file, with its storage server and stored path set.
+     * @param replicas The replicas of the file on further storage servers.
+     * @return the stored file.
+     * @throws de.storagesystem.api.exceptions.StorageEntityNotFoundException if the folder is being deleted.
+     */
+    StorageFile store(StorageFile file, List<StorageFileReplica> replicas);
+
+    /**
+     * Removes the files anywhere inside a folder that is being deleted whose uploads have not finished yet,
+     * so the folders can be deleted. The uploads fail when they try to store their files.
+     * @param bucketId The id of the bucket of the folder.
+     * @param path The path of the folder.
+     * @return the number of removed files.
+     */
+    int deleteReservedInside(long bucketId, String path);
+
+    /**
+     * Removes a stored file and the rows of its replicas in one transaction
+     * and removes it from the counters of its folder and bucket.
+     * @param file The file, which has been removed from its storage servers.
+     */
+    void remove(StorageFile file);
+
+    /**
+     * Marks a stored file as deleted and detaches it from its bucket and folder in one transaction
+     * and removes it from the counters of its folder and bucket. The file is removed from its storage servers later.
+     * @param file The file.
+     */
+    void detach(StorageFile file);
+
+    /**
+     * Moves a file to another folder and renames it in one transaction, the counters of both folders are updated.
+     *
+     * @param file The file to move.
+     * @param parent The new folder of the file, in the bucket of the file.
+     * @param name The new name of the file.
+     * @return the new path of the file.
+     */
+    String move(StorageFile file, StorageFolder parent, String name);
+
+    /**
+     * Loads the stored files of a bucket whose path starts with a prefix, ordered by path. The query is a range scan
+     * on the (bucket, path) index that starts behind the given path.
+     *
+     * @param bucketId The id of the bucket.
+     * @param prefix The prefix of the paths.
+     * @param afterPath The path to start behind, or null to start at the prefix.
+     * @param skippedPrefix A prefix of paths to leave out, or null to leave out nothing.
+     * @param limit The maximum number of files to load.
+     * @return the files following the given path.
+     */
+    List<StorageFile> findPageByPrefix(long bucketId, String prefix, String afterPath, String skippedPrefix, int limit);
 }
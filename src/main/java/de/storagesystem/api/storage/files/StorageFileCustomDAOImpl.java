@@ -1,12 +1,20 @@
 package de.storagesystem.api.storage.files;
 
 import de.storagesystem.api.storage.buckets.Bucket;
+import de.storagesystem.api.storage.folders.StorageFolder;
 import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
 import de.storagesystem.api.exceptions.UserNotFoundException;
+import de.storagesystem.api.util.Util;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -26,7 +34,7 @@ public class StorageFileCustomDAOImpl implements StorageFileCustomDAO {
      */
     @Override
     public Optional<StorageFile> findByPath(Bucket bucket, String path) {
-        return em.createQuery("SELECT b FROM StorageFile b WHERE b.bucket.id = :bucketId AND b.path = :path", StorageFile.class)
+        return em.createQuery("SELECT b FROM StorageFile b WHERE b.bucket.id = :bucketId AND b.path = :path AND b.storedPath IS NOT NULL", StorageFile.class)
                 .setParameter("bucketId", bucket.getId())
                 .setParameter("path", path)
                 .getResultStream()
@@ -40,6 +48,21 @@ public class StorageFileCustomDAOImpl implements StorageFileCustomDAO {
         return findByPath(bucket, parentPath + "/" + filename).isPresent();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists(StorageFolder parent, String filename) {
+        return em.createQuery("SELECT f.id FROM StorageFile f WHERE f.bucket.id = :bucketId AND f.parent.id = :parentId AND f.name = :name", Long.class)
+                .setParameter("bucketId", parent.getBucket().getId())
+                .setParameter("parentId", parent.getId())
+                .setParameter("name", filename)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .isPresent();
+    }
+
     /**
      * {@inheritDoc}
      * @throws StorageEntityNotFoundException if the file does not exist.
@@ -51,4 +74,273 @@ public class StorageFileCustomDAOImpl implements StorageFileCustomDAO {
                 .orElseThrow(() -> new StorageEntityNotFoundException("File not found", "File " + path));
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StorageFile> resolveFile(long userId, String bucketName, String path) {
+        // The replicas are fetched as further rows, results with collection fetches cannot be streamed
+        return em.createQuery("SELECT f FROM StorageFile f JOIN FETCH f.bucket b JOIN FETCH f.parent p " +
+                        "LEFT JOIN FETCH f.storageServer LEFT JOIN FETCH f.replicas r LEFT JOIN FETCH r.storageServer " +
+                        "WHERE b.creator.id = :userId AND b.name = :bucketName " +
+                        "AND f.path = :path AND f.storedPath IS NOT NULL AND p.deleting = false", StorageFile.class)
+                .setParameter("userId", userId)
+                .setParameter("bucketName", bucketName)
+                .setParameter("path", path)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFile> findPageByParent(StorageFolder parent, int page, int limit) {
+        return em.createQuery("SELECT i FROM StorageFile i WHERE i.parent.id = :parentId AND i.storedPath IS NOT NULL ORDER BY i.name", StorageFile.class)
+                .setParameter("parentId", parent.getId())
+                .setFirstResult(page * limit)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFile> findPageByParentAfter(StorageFolder parent, String afterName, int limit) {
+        if(afterName == null) return findPageByParent(parent, 0, limit);
+        return em.createQuery("SELECT i FROM StorageFile i WHERE i.parent.id = :parentId AND i.name > :name AND i.storedPath IS NOT NULL ORDER BY i.name", StorageFile.class)
+                .setParameter("parentId", parent.getId())
+                .setParameter("name", afterName)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countByParent(StorageFolder parent) {
+        return em.createQuery("SELECT COUNT(i) FROM StorageFile i WHERE i.parent.id = :parentId AND i.storedPath IS NOT NULL", Long.class)
+                .setParameter("parentId", parent.getId())
+                .getSingleResult();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFile> findDeletedBatch(Instant now, int limit) {
+        return em.createQuery("SELECT f FROM StorageFile f JOIN FETCH f.storageServer s JOIN FETCH f.creator WHERE f.deleted = true " +
+                        "AND (f.deleteAfter IS NULL OR f.deleteAfter <= :now) ORDER BY s.id, f.id", StorageFile.class)
+                .setParameter("now", now)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void deleteByIds(List<Long> ids) {
+        if(ids.isEmpty()) return;
+        em.createQuery("DELETE FROM StorageFile f WHERE f.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Long> findIdsInside(long bucketId, String path, int limit) {
+        return em.createQuery("SELECT f.id FROM StorageFile f WHERE f.bucket.id = :bucketId " +
+                        "AND f.path LIKE :pattern ESCAPE '!' AND f.storedPath IS NOT NULL AND f.parent.deleting = true", Long.class)
+                .setParameter("bucketId", bucketId)
+                .setParameter("pattern", Util.descendantPattern(path))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public DeletedBatch markDeleted(List<Long> ids) {
+        if(ids.isEmpty()) return new DeletedBatch(0, Map.of());
+        List<Object[]> sizes = em.createQuery("SELECT f.storageServer.id, SUM(f.size) FROM StorageFile f " +
+                        "WHERE f.id IN :ids GROUP BY f.storageServer.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        List<Object[]> replicaSizes = em.createQuery("SELECT r.storageServer.id, SUM(f.size) FROM StorageFileReplica r JOIN r.file f " +
+                        "WHERE f.id IN :ids GROUP BY r.storageServer.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        List<Object[]> buckets = em.createQuery("SELECT f.bucket.id, COUNT(f), SUM(f.size) FROM StorageFile f " +
+                        "WHERE f.id IN :ids GROUP BY f.bucket.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        em.createQuery("UPDATE StorageFile f SET f.deleted = true, f.parent = NULL, f.bucket = NULL WHERE f.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        long bytes = 0;
+        Map<Long, Long> freedStorage = new HashMap<>();
+        for(Object[] size : sizes) {
+            freedStorage.merge((Long) size[0], (Long) size[1], Long::sum);
+            bytes += (Long) size[1];
+        }
+        for(Object[] size : replicaSizes) {
+            freedStorage.merge((Long) size[0], (Long) size[1], Long::sum);
+        }
+        for(Object[] bucket : buckets) {
+            em.createQuery("UPDATE Bucket b SET b.objectCount = b.objectCount - :files, " +
+                            "b.totalBytes = b.totalBytes - :bytes WHERE b.id = :id")
+                    .setParameter("files", bucket[1])
+                    .setParameter("bytes", bucket[2])
+                    .setParameter("id", bucket[0])
+                    .executeUpdate();
+        }
+        return new DeletedBatch(bytes, freedStorage);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFile> findPageByPrefix(long bucketId, String prefix, String afterPath, String skippedPrefix, int limit) {
+        TypedQuery<StorageFile> query = em.createQuery("SELECT f FROM StorageFile f WHERE f.bucket.id = :bucketId " +
+                        "AND f.path LIKE :pattern ESCAPE '!' AND f.storedPath IS NOT NULL" +
+                        (afterPath != null ? " AND f.path > :afterPath" : "") +
+                        (skippedPrefix != null ? " AND f.path NOT LIKE :skippedPattern ESCAPE '!'" : "") +
+                        " ORDER BY f.path", StorageFile.class)
+                .setParameter("bucketId", bucketId)
+                .setParameter("pattern", Util.prefixPattern(prefix))
+                .setMaxResults(limit);
+        if(afterPath != null) query.setParameter("afterPath", afterPath);
+        if(skippedPrefix != null) query.setParameter("skippedPattern", Util.prefixPattern(skippedPrefix));
+        return query.getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public StorageFile store(StorageFile file, List<StorageFileReplica> replicas) {
+        StorageFolder folder = file.getParent();
+        // The update locks the folder, so the folder cannot be detached until the file is stored
+        int updated = em.createQuery("UPDATE StorageFolder f SET f.fileCount = f.fileCount + 1, " +
+                        "f.totalBytes = f.totalBytes + :bytes WHERE f.id = :id AND f.deleting = false")
+                .setParameter("bytes", file.getSize())
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+        if(updated == 0) throw new StorageEntityNotFoundException("Directory not found", "Directory " + folder.getPath());
+        em.createQuery("UPDATE Bucket b SET b.objectCount = b.objectCount + 1, " +
+                        "b.totalBytes = b.totalBytes + :bytes WHERE b.id = :id")
+                .setParameter("bytes", file.getSize())
+                .setParameter("id", folder.getBucket().getId())
+                .executeUpdate();
+
+        StorageFile stored = em.merge(file);
+        replicas.forEach(em::persist);
+        return stored;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int deleteReservedInside(long bucketId, String path) {
+        return em.createQuery("DELETE FROM StorageFile f WHERE f.bucket.id = :bucketId " +
+                        "AND f.path LIKE :pattern ESCAPE '!' AND f.storedPath IS NULL " +
+                        "AND f.parent.id IN (SELECT d.id FROM StorageFolder d WHERE d.bucket.id = :bucketId AND d.deleting = true)")
+                .setParameter("bucketId", bucketId)
+                .setParameter("pattern", Util.descendantPattern(path))
+                .executeUpdate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void remove(StorageFile file) {
+        em.createQuery("DELETE FROM StorageFileReplica r WHERE r.file.id = :id")
+                .setParameter("id", file.getId())
+                .executeUpdate();
+        // A bulk delete does not cascade the removal to the parent folder
+        em.createQuery("DELETE FROM StorageFile f WHERE f.id = :id")
+                .setParameter("id", file.getId())
+                .executeUpdate();
+        updateCounters(file.getParent(), -1, -file.getSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void detach(StorageFile file) {
+        em.createQuery("UPDATE StorageFile f SET f.deleted = true, f.parent = NULL, f.bucket = NULL WHERE f.id = :id")
+                .setParameter("id", file.getId())
+                .executeUpdate();
+        updateCounters(file.getParent(), -1, -file.getSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public String move(StorageFile file, StorageFolder parent, String name) {
+        String newPath = parent.getPath() + "/" + name;
+        em.createQuery("UPDATE StorageFile f SET f.path = :newPath, f.name = :name, f.parent = :parent WHERE f.id = :id")
+                .setParameter("newPath", newPath)
+                .setParameter("name", name)
+                .setParameter("parent", parent)
+                .setParameter("id", file.getId())
+                .executeUpdate();
+
+        if(!parent.getId().equals(file.getParent().getId())) {
+            moveFileCount(file.getParent(), -1, -file.getSize());
+            moveFileCount(parent, 1, file.getSize());
+        }
+        return newPath;
+    }
+
+    /**
+     * Adds deltas to the number and size of the files in a folder and its bucket.
+     * @param folder The folder.
+     * @param files The number of added files, negative for removed files.
+     * @param bytes The number of added bytes, negative for removed bytes.
+     */
+    private void updateCounters(StorageFolder folder, long files, long bytes) {
+        moveFileCount(folder, files, bytes);
+        em.createQuery("UPDATE Bucket b SET b.objectCount = b.objectCount + :files, " +
+                        "b.totalBytes = b.totalBytes + :bytes WHERE b.id = :id")
+                .setParameter("files", files)
+                .setParameter("bytes", bytes)
+                .setParameter("id", folder.getBucket().getId())
+                .executeUpdate();
+    }
+
+    /**
+     * Adds deltas to the number and size of the files in a folder, without changing the counters of its bucket.
+     * @param folder The folder.
+     * @param files The number of added files, negative for removed files.
+     * @param bytes The number of added bytes, negative for removed bytes.
+     */
+    private void moveFileCount(StorageFolder folder, long files, long bytes) {
+        em.createQuery("UPDATE StorageFolder f SET f.fileCount = f.fileCount + :files, " +
+                        "f.totalBytes = f.totalBytes + :bytes WHERE f.id = :id")
+                .setParameter("files", files)
+                .setParameter("bytes", bytes)
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+    }
+}
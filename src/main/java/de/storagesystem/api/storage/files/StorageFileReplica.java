@@ -0,0 +1,104 @@
+package de.storagesystem.api.storage.files;
+
+import com.sun.istack.NotNull;
+import de.storagesystem.api.servers.StorageServer;
+
+import javax.persistence.*;
+
+/**
+ * A further copy of a {@link StorageFile} on another storage server. The copy on the storage server of the file
+ * itself has no replica. All copies of a file are encrypted once, so they are equal byte for byte.
+ *
+ * @author Simon Brebeck
+ */
+@Entity
+@Table(
+        name = "storage_file_replicas",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"file_id", "storage_server_id"})}
+)
+public class StorageFileReplica {
+
+    /**
+     * The id of the replica
+     */
+    @Id
+    @SequenceGenerator(
+            name = "replica_sequence",
+            sequenceName = "replica_sequence",
+            allocationSize = 1)
+    @GeneratedValue(
+            strategy = GenerationType.SEQUENCE,
+            generator = "replica_sequence")
+    private Long id;
+
+    /**
+     * The file this is a copy of.
+     */
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private StorageFile file;
+
+    /**
+     * The server where the copy is stored physically.
+     */
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private StorageServer storageServer;
+
+    /**
+     * The path to the physically stored copy.
+     */
+    @NotNull
+    private String storedPath;
+
+    /**
+     * Instantiates a new Storage file replica.
+     */
+    protected StorageFileReplica() {
+    }
+
+    /**
+     * Instantiates a new Storage file replica.
+     *
+     * @param file          the file this is a copy of
+     * @param storageServer the storage server where the copy is stored physically
+     * @param storedPath    the path of the stored copy
+     */
+    public StorageFileReplica(StorageFile file, StorageServer storageServer, String storedPath) {
+        this.file = file;
+        this.storageServer = storageServer;
+        this.storedPath = storedPath;
+    }
+
+    /**
+     * Getter for the id of the replica.
+     * @return the id of the replica.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Getter for the file this is a copy of.
+     * @return the file this is a copy of.
+     */
+    public StorageFile getFile() {
+        return file;
+    }
+
+    /**
+     * Getter for the storage server where the copy is stored physically.
+     * @return the storage server where the copy is stored physically.
+     */
+    public StorageServer getStorageServer() {
+        return storageServer;
+    }
+
+    /**
+     * Getter for the path of the physically stored copy.
+     * @return the path of the physically stored copy.
+     */
+    public String getStoredPath() {
+        return storedPath;
+    }
+}
@@ -0,0 +1,22 @@
+package de.storagesystem.api.storage.files;
+
+import java.util.List;
+
+/**
+ * @author Simon Brebeck
+ */
+public interface StorageFileReplicaCustomDAO {
+
+    /**
+     * Loads the replicas of files together with the files and their storage servers.
+     * @param fileIds The ids of the files.
+     * @return the replicas of the files.
+     */
+    List<StorageFileReplica> findByFileIds(List<Long> fileIds);
+
+    /**
+     * Removes the rows of replicas that have been removed from their storage servers with a single statement.
+     * @param ids The ids of the replicas.
+     */
+    void deleteByIds(List<Long> ids);
+}
@@ -0,0 +1,45 @@
+package de.storagesystem.api.storage.files;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * @author Simon Brebeck
+ */
+@Repository
+public class StorageFileReplicaCustomDAOImpl implements StorageFileReplicaCustomDAO {
+
+    /**
+     * The {@link EntityManager} used to access the database.
+     */
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFileReplica> findByFileIds(List<Long> fileIds) {
+        if(fileIds.isEmpty()) return List.of();
+        return em.createQuery("SELECT r FROM StorageFileReplica r JOIN FETCH r.file JOIN FETCH r.storageServer " +
+                        "WHERE r.file.id IN :fileIds", StorageFileReplica.class)
+                .setParameter("fileIds", fileIds)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void deleteByIds(List<Long> ids) {
+        if(ids.isEmpty()) return;
+        em.createQuery("DELETE FROM StorageFileReplica r WHERE r.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
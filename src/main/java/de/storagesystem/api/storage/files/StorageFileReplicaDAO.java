@@ -0,0 +1,9 @@
+package de.storagesystem.api.storage.files;
+
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * @author Simon Brebeck
+ */
+public interface StorageFileReplicaDAO extends CrudRepository<StorageFileReplica, Long>, StorageFileReplicaCustomDAO {
+}
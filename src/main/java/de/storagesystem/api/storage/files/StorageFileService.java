@@ -2,9 +2,10 @@ package de.storagesystem.api.storage.files;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.storagesystem.api.exceptions.InvalidTokenException;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * @author Simon Brebeck
@@ -38,23 +39,60 @@ public interface StorageFileService {
     ResponseEntity<ObjectNode> deleteFile(long userId, String bucketName, String filePath) throws InvalidTokenException;
 
     /**
-     * Loads a file from a user as a resource.
+     * Moves a file to another folder in its bucket and renames it, the stored file is not touched.
+     *
+     * @param userId The user id of the user the file belongs to.
+     * @param bucketName The name of the bucket.
+     * @param filePath The path of the file.
+     * @param parentPath The path of the new folder of the file, or null to keep the folder.
+     * @param name The new name of the file, or null to keep the name.
+     * @return the new path of the file.
+     */
+    ResponseEntity<ObjectNode> moveFile(long userId, String bucketName, String filePath, String parentPath, String name);
+
+    /**
+     * Loads a file from a user as a body that is decrypted while it is written to the client.
      *
      * @param userId The user id of the user the file belongs to.
      * @param bucket The name of the bucket the file is stored in.
      * @param filePath The path to the file.
+     * @param range The requested range of the file, or null to load the whole file.
      *
-     * @return the resource
+     * @return the streaming response body
      */
-    ResponseEntity<Resource> loadFile(long userId, String bucket, String filePath) throws InvalidTokenException;
+    ResponseEntity<StreamingResponseBody> loadFile(long userId, String bucket, String filePath, HttpRange range)
+            throws InvalidTokenException;
 
     /**
      * Load the files of a bucket from a user.
      * @param userId The id of the user.
      * @param bucket The name of the bucket.
      * @param pathToParent The path of the parent folder.
-     * @param page The page to load.
-     * @param limit The limit of folders to load per page.
+     * @param cursor The cursor returned by the previous listing, or null to load the page instead.
+     * @param page The page to load, if no cursor is given.
+     * @param limit The limit of files to load per page.
+     */
+    ResponseEntity<ObjectNode> loadFiles(Long userId, String bucket, String pathToParent, String cursor, int page, int limit);
+
+    /**
+     * Lists the files of a whole bucket by their keys like S3 ListObjectsV2. Keys are the paths of the files
+     * relative to the bucket, keys that contain the delimiter after the prefix are grouped to common prefixes.
+     *
+     * @param userId The user id of the user the bucket belongs to.
+     * @param bucket The name of the bucket.
+     * @param prefix The prefix of the listed keys, or null to list all keys.
+     * @param delimiter The delimiter that groups keys, or null to list the keys without grouping.
+     * @param continuationToken The token returned by the previous listing, or null to start at the beginning.
+     * @param startAfter The key to start behind, if no continuation token is given.
+     * @param maxKeys The maximum number of keys and common prefixes to list.
+     * @return the keys and common prefixes, and the token to continue the listing if it was truncated.
      */
-    ResponseEntity<ObjectNode> loadFiles(Long userId, String bucket, String pathToParent, int page, int limit);
+    ResponseEntity<ObjectNode> loadObjects(
+            Long userId,
+            String bucket,
+            String prefix,
+            String delimiter,
+            String continuationToken,
+            String startAfter,
+            int maxKeys);
 }
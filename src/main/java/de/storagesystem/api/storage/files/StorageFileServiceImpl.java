@@ -3,48 +3,85 @@ package de.storagesystem.api.storage.files;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.storagesystem.api.auth.Authentication;
 import de.storagesystem.api.auth.RSAAuthentication;
-import de.storagesystem.api.cryptography.FileAESCryptographer;
-import de.storagesystem.api.cryptography.FileCryptographer;
+import de.storagesystem.api.cryptography.*;
 import de.storagesystem.api.exceptions.*;
+import de.storagesystem.api.properties.CryptographyProperty;
+import de.storagesystem.api.properties.DeletionProperty;
+import de.storagesystem.api.properties.HedgingProperty;
 import de.storagesystem.api.properties.StorageServerConfigProperty;
 import de.storagesystem.api.storage.buckets.Bucket;
 import de.storagesystem.api.storage.buckets.BucketDAO;
 import de.storagesystem.api.storage.StorageService;
 import de.storagesystem.api.storage.folders.StorageFolder;
+import de.storagesystem.api.storage.folders.FolderPathCache;
 import de.storagesystem.api.storage.folders.StorageFolderDAO;
+import de.storagesystem.api.servers.CapacityReservation;
 import de.storagesystem.api.servers.StorageServer;
+import de.storagesystem.api.servers.StorageServerClient;
 import de.storagesystem.api.servers.StorageServerDAO;
+import de.storagesystem.api.servers.StorageServerRegistry;
+import de.storagesystem.api.servers.StorageServerResponse;
 import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
 import de.storagesystem.api.users.UserDAO;
 
 import de.storagesystem.api.util.ResponseBuilder;
 import de.storagesystem.api.util.ResponseState;
 import de.storagesystem.api.util.Util;
 import io.github.cdimascio.dotenv.Dotenv;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.crypto.NoSuchPaddingException;
-import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * @author Simon Brebeck
@@ -62,26 +99,126 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
     private String storageAuth;
 
     private final StorageServerConfigProperty storageServerConfigProperties;
+
+    /**
+     * The {@link StorageServerClient} that pools the connections to the storage servers.
+     */
+    private final StorageServerClient storageServerClient;
     private Authentication auth;
 
+    /**
+     * The {@link FileCryptographerFactory} that creates the cryptographers for the files.
+     */
+    private FileCryptographerFactory cryptographerFactory;
+
+    /**
+     * The bounded {@link ForkJoinPool} the segments of segmented files are encrypted and decrypted on,
+     * or null if they are processed on the transferring thread.
+     */
+    private ForkJoinPool segmentPool;
+
+    /**
+     * The registry that chooses the storage server of an upload without a query to the database.
+     */
+    private final StorageServerRegistry storageServerRegistry;
+
+    /**
+     * The repository of the copies of files on further storage servers.
+     */
+    private final StorageFileReplicaDAO replicaRepository;
+
+    /**
+     * The executor that removes deleted files from the storage servers in the background.
+     */
+    private ScheduledExecutorService deletionExecutor;
+
+    /**
+     * The executor the replicas of uploads are sent to the storage servers on.
+     */
+    private ExecutorService replicationExecutor;
+
+    /**
+     * The executor hedged downloads request the replicas on. Its threads and queue are bounded, downloads that it
+     * rejects are fetched without hedging on the thread of the request.
+     */
+    private ExecutorService hedgeExecutor;
+
+    /**
+     * The percentile of the recent times until the storage servers answered the download of a whole file,
+     * in nanoseconds.
+     */
+    private final LatencyPercentile responseTimes;
+
+    /**
+     * A stored copy of a file, either on the storage server of the file or of one of its replicas.
+     *
+     * @param server the storage server of the copy
+     * @param storedPath the path of the copy on the storage server
+     */
+    private record StoredCopy(StorageServer server, String storedPath) {
+    }
+
+    /**
+     * The open response of a storage server.
+     *
+     * @param response the open response
+     * @param latency the time until the storage server answered, in nanoseconds
+     */
+    private record TimedResponse(StorageServerResponse response, long latency) {
+    }
+
+    /**
+     * A request of a copy on the executor of hedged downloads, which can be aborted while it waits for the storage
+     * server as well as after the storage server answered.
+     *
+     * @param request the request to the storage server
+     * @param response the future of the open response
+     */
+    private record HedgedRequest(HttpGet request, CompletableFuture<TimedResponse> response) {
+
+        /**
+         * Aborts the request, so that neither its answer nor the rest of its body is transferred.
+         */
+        void abort() {
+            request.abort();
+            response.thenAccept(answer -> answer.response().abort());
+        }
+    }
+
     /**
      * Instantiates a new Storage file service.
      *
+     * @param storageServerConfigProperties the configuration of this server
+     * @param storageServerClient     the client for the requests to the storage servers
+     * @param storageServerRegistry   the registry that chooses the storage server of an upload
+     * @param replicaRepository       the repository of the replicas of files
      * @param storageServerRepository the storage server repository
      * @param bucketFolderRepository  the bucket folder repository
      * @param storageFileRepository   the storage file repository
      * @param bucketRepository        the bucket repository
      * @param userRepository          the user repository
+     * @param userCache               the user cache
+     * @param folderPathCache         the folder path cache
      */
     public StorageFileServiceImpl(
             StorageServerConfigProperty storageServerConfigProperties,
+            StorageServerClient storageServerClient,
+            StorageServerRegistry storageServerRegistry,
+            StorageFileReplicaDAO replicaRepository,
             StorageServerDAO storageServerRepository,
             StorageFolderDAO bucketFolderRepository,
             StorageFileDAO storageFileRepository,
             BucketDAO bucketRepository,
-            UserDAO userRepository) {
-        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository);
+            UserDAO userRepository,
+            UserCache userCache,
+            FolderPathCache folderPathCache) {
+        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository, userCache, folderPathCache);
         this.storageServerConfigProperties = storageServerConfigProperties;
+        this.storageServerClient = storageServerClient;
+        this.storageServerRegistry = storageServerRegistry;
+        this.replicaRepository = replicaRepository;
+        HedgingProperty hedging = storageServerConfigProperties.getHedging();
+        this.responseTimes = new LatencyPercentile(hedging.getWindow(), hedging.getPercentile(), hedging.getInitialDelay().toNanos());
     }
 
     /**
@@ -94,6 +231,32 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
         Dotenv dotenv = Dotenv.load();
         protocol = dotenv.get("TRANSFER_PROTOCOL");
         storageAuth = dotenv.get("STORAGE_AUTH");
+        CryptographyProperty cryptography = storageServerConfigProperties.getCryptography();
+        CipherProvider cipherProvider = cryptography.isCipherPooling()
+                ? new CipherPool(cryptography.getMaxIdleCiphers())
+                : new NewCipherProvider();
+        if(cryptography.getParallelism() > 1) segmentPool = new ForkJoinPool(cryptography.getParallelism());
+        // Files of deleted folders are removed in the background, even if single files are deleted synchronously
+        deletionExecutor = Executors.newSingleThreadScheduledExecutor();
+        long interval = storageServerConfigProperties.getDeletion().getInterval().toMillis();
+        deletionExecutor.scheduleWithFixedDelay(this::purgeDeletedFiles, interval, interval, TimeUnit.MILLISECONDS);
+        replicationExecutor = Executors.newFixedThreadPool(storageServerConfigProperties.getReplication().getParallelism());
+        HedgingProperty hedging = storageServerConfigProperties.getHedging();
+        if(hedging.isEnabled()) {
+            BlockingQueue<Runnable> queue = hedging.getQueueCapacity() > 0
+                    ? new ArrayBlockingQueue<>(hedging.getQueueCapacity())
+                    : new SynchronousQueue<>();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    hedging.getParallelism(), hedging.getParallelism(), 60, TimeUnit.SECONDS, queue, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            hedgeExecutor = executor;
+        }
+        cryptographerFactory = new FileCryptographerFactory(
+                cipherProvider,
+                storageServerConfigProperties.getTransfer().getSegmentSize(),
+                segmentPool,
+                cryptography.getSegmentWindow());
+
         String issuer = storageServerConfigProperties.getStorage().getIssuer();
         String publicKeyPath = storageServerConfigProperties.getStorage().getPublicKey();
         String privateKeyPath = storageServerConfigProperties.getStorage().getPrivateKey();
@@ -106,6 +269,18 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
     }
 
 
+    /**
+     * Shuts down the pool the segments are processed on, the removal of deleted files, the uploads of replicas
+     * and the hedged downloads.
+     */
+    @PreDestroy
+    public void destroy() {
+        if(segmentPool != null) segmentPool.shutdown();
+        if(deletionExecutor != null) deletionExecutor.shutdown();
+        if(replicationExecutor != null) replicationExecutor.shutdown();
+        if(hedgeExecutor != null) hedgeExecutor.shutdown();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -121,12 +296,169 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
             StorageEntityCreationException,
             StorageEntityAlreadyExistsException,
             UserNotFoundException {
-        StorageServer server = storageServerRepository.findStorageServerByFreeCapacity(file.getSize())
-                .orElseThrow(() -> new StorageEntityNotFoundException("No storage server with enough free capacity found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
-        Bucket bucket = bucketRepository.getBucketByName(user, bucketName);
-        StorageFolder folder = bucketFolderRepository.getFolder(bucket, folderName);
+        User user = getUser(userId);
+        StorageFolder folder = resolveFolder(user, bucketName, folderName);
+        Bucket bucket = folder.getBucket();
+        int factor = (bucket.getReplicationFactor() != null)
+                ? bucket.getReplicationFactor()
+                : storageServerConfigProperties.getReplication().getFactor();
+        if(factor > 1) {
+            int quorum = (bucket.getWriteQuorum() != null) ? bucket.getWriteQuorum() : factor / 2 + 1;
+            return storeReplicatedFile(user, folder, file, factor, Math.min(quorum, factor));
+        }
+
+        // Reserve the storage until the upload is finished, so concurrent uploads are spread over the servers
+        try(CapacityReservation reservation = storageServerRegistry.reserve(file.getSize())
+                .orElseThrow(() -> new StorageEntityNotFoundException("No storage server with enough free capacity found"))) {
+            return storeFileOnServer(reservation, user, folder, file);
+        }
+    }
+
+    /**
+     * Reserves the name of an uploaded file, sends the file to a storage server and stores it in the database.
+     * @param reservation the storage reserved for the file, committed once the file is stored
+     * @param user the user who uploads the file
+     * @param folder the folder of the file
+     * @param file the uploaded file
+     * @return the response
+     */
+    private ResponseEntity<ObjectNode> storeFileOnServer(
+            CapacityReservation reservation,
+            User user,
+            StorageFolder folder,
+            MultipartFile file) {
+        StorageServer server = reservation.getServer();
+        StorageFile storageFile = reserveFile(server, user, folder, file);
+
+        ResponseEntity<ObjectNode> response;
+        try {
+            logger.info("Sending file to storage server: " + server.getName() + " (" + server.getHost() + ":" + server.getPort() + ")");
+            response = uploadFileToStorageServer(server, user, storageFile, file);
+        } catch (RuntimeException e) {
+            storageFileRepository.delete(storageFile);
+            throw e;
+        }
+        if (response.getStatusCode() != HttpStatus.OK || !response.hasBody()) {
+            storageFileRepository.delete(storageFile);
+            throw new StorageEntityCreationException("Could not upload file to storage server");
+        }
+
+        String storedPath = Objects.requireNonNull(response.getBody()).get("path").asText();
+        storageFile.setStoredPath(storedPath);
+        ResponseEntity<ObjectNode> stored;
+        try {
+            stored = insertFileIntoDatabase(storageFile);
+        } catch (RuntimeException e) {
+            removeReplica(user.getId(), new ReplicatedUpload.StoredReplica(reservation, storedPath));
+            storageFileRepository.delete(storageFile);
+            throw e;
+        }
+        reservation.commit();
+        return stored;
+    }
+
+    /**
+     * Encrypts an uploaded file once and sends it to several storage servers in parallel. The upload succeeds once
+     * the write quorum of servers stored the file, the remaining servers are finished in the background.
+     * @param user the user who uploads the file
+     * @param folder the folder of the file
+     * @param file the uploaded file
+     * @param factor the number of servers to store the file on
+     * @param quorum the number of servers that have to store the file before the upload succeeds
+     * @return the response
+     */
+    private ResponseEntity<ObjectNode> storeReplicatedFile(
+            User user,
+            StorageFolder folder,
+            MultipartFile file,
+            int factor,
+            int quorum) {
+        List<CapacityReservation> reservations = storageServerRegistry.reserve(file.getSize(), factor);
+        if(reservations.size() < quorum) {
+            reservations.forEach(CapacityReservation::release);
+            throw new StorageEntityNotFoundException("Not enough storage servers with enough free capacity found");
+        }
+        if(reservations.size() < factor) {
+            logger.warn("Storing file on " + reservations.size() + " instead of " + factor + " storage servers");
+        }
+
+        StorageFile storageFile;
+        Path encryptedFile = null;
+        Object encryptedBody;
+        try {
+            storageFile = reserveFile(reservations.get(0).getServer(), user, folder, file);
+            // The copies are read from the multipart file after the request finished, so they are encrypted up front
+            try {
+                if(storageServerConfigProperties.getTransfer().isStreaming()) {
+                    encryptedFile = encryptFileToTemporaryFile(user, storageFile.getEncryptionFormat(), file);
+                    encryptedBody = new FileSystemResource(encryptedFile);
+                } else {
+                    encryptedBody = encryptFile(user, storageFile.getEncryptionFormat(), file);
+                }
+            } catch (RuntimeException e) {
+                storageFileRepository.delete(storageFile);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            reservations.forEach(CapacityReservation::release);
+            throw e;
+        }
+
+        long fileId = storageFile.getId();
+        long ownerId = user.getId();
+        String filename = Objects.requireNonNull(file.getOriginalFilename());
+        ReplicatedUpload upload = new ReplicatedUpload(reservations, quorum,
+                (replica, fileRecorded) -> finishLateReplica(fileId, ownerId, replica, fileRecorded));
+        logger.info("Sending file to " + reservations.size() + " storage servers, waiting for " + quorum);
+        CompletableFuture<Void> uploads = upload.start(
+                server -> storeReplica(server, user, filename, encryptedBody),
+                replicationExecutor);
+        Path uploadedFile = encryptedFile;
+        if(uploadedFile != null) uploads.whenComplete((result, error) -> deleteTemporaryFile(uploadedFile));
+
+        List<ReplicatedUpload.StoredReplica> replicas;
+        try {
+            replicas = upload.awaitQuorum();
+        } catch (CompletionException e) {
+            upload.getStored().forEach(replica -> removeReplica(ownerId, replica));
+            storageFileRepository.delete(storageFile);
+            throw new StorageEntityCreationException("Could not upload file to enough storage servers");
+        }
+
+        ReplicatedUpload.StoredReplica primary = replicas.get(0);
+        try {
+            storageFile.setStorageServer(primary.reservation().getServer());
+            storageFile.setStoredPath(primary.storedPath());
+            List<StorageFileReplica> replicaRows = replicas.subList(1, replicas.size()).stream()
+                    .map(replica -> new StorageFileReplica(storageFile, replica.reservation().getServer(), replica.storedPath()))
+                    .toList();
+            storageFileRepository.store(storageFile, replicaRows);
+        } catch (RuntimeException e) {
+            // Copies that are stored later are removed by the callback once the upload is settled
+            upload.settle(false);
+            replicas.forEach(replica -> removeReplica(ownerId, replica));
+            storageFileRepository.delete(storageFile);
+            throw e;
+        }
+        replicas.forEach(replica -> replica.reservation().commit());
+        upload.settle(true);
+
+        ObjectNode response = new ResponseBuilder()
+                .add("path", storageFile.getPath())
+                .build(ResponseState.OK, "File stored.");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Creates a file for an upload and reserves its name in the database.
+     * @param server the storage server the file is sent to
+     * @param user the user who uploads the file
+     * @param folder the folder of the file
+     * @param file the uploaded file
+     * @return the reserved file
+     * @throws StorageEntityAlreadyExistsException if the file already exists
+     */
+    private StorageFile reserveFile(StorageServer server, User user, StorageFolder folder, MultipartFile file) {
         StorageFile storageFile = new StorageFile(
                 server,
                 null,
@@ -134,125 +466,485 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
                 file.getContentType(),
                 file.getSize(),
                 user);
-        storageFile.setBucket(bucket);
+        storageFile.setBucket(folder.getBucket());
         storageFile.setParent(folder);
+        storageFile.setEncryptionFormat(storageServerConfigProperties.getTransfer().getEncryptionFormat());
 
-        if (folder.getFiles().contains(storageFile))
+        if (storageFileRepository.exists(folder, storageFile.getOriginalName()))
             throw new StorageEntityAlreadyExistsException("File already exists");
 
-        logger.info("Sending file to storage server: " + server.getName() + " (" + server.getHost() + ":" + server.getPort() + ")");
-        ResponseEntity<ObjectNode> response = uploadFileToStorageServer(server, user, file);
-        if (response.getStatusCode() == HttpStatus.OK && response.hasBody()) {
-            try {
-                String storedPath = Objects.requireNonNull(response.getBody()).get("path").asText();
-                storageFile.setStoredPath(storedPath);
-                return insertFileIntoDatabase(folder, storageFile);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        // Reserve the name before the upload, so concurrent uploads of the same file do not both reach a storage server
+        return reserveFileInDatabase(storageFile);
+    }
+
+    /**
+     * Records a copy that was stored after the upload was decided, or removes it again if the file was not recorded
+     * or was deleted in the meantime. Runs on the thread of the upload or of the request that settled the upload.
+     * @param fileId the id of the file
+     * @param ownerId the id of the user who uploaded the file
+     * @param replica the stored copy
+     * @param fileRecorded whether the file was recorded
+     */
+    private void finishLateReplica(long fileId, long ownerId, ReplicatedUpload.StoredReplica replica, boolean fileRecorded) {
+        try {
+            Optional<StorageFile> file = fileRecorded ? storageFileRepository.findById(fileId) : Optional.empty();
+            if(file.isPresent() && !file.get().wasDeleted()) {
+                replicaRepository.save(new StorageFileReplica(file.get(), replica.reservation().getServer(), replica.storedPath()));
+                replica.reservation().commit();
+            } else {
+                removeReplica(ownerId, replica);
             }
-        } else {
-            throw new StorageEntityCreationException("Could not upload file to storage server");
+        } catch (RuntimeException e) {
+            logger.error("Could not record replica of file " + fileId, e);
         }
     }
 
+    /**
+     * Removes a copy that is not recorded from its storage server and releases its storage.
+     * @param ownerId the id of the user who uploaded the file
+     * @param replica the stored copy
+     */
+    private void removeReplica(long ownerId, ReplicatedUpload.StoredReplica replica) {
+        StorageServer server = replica.reservation().getServer();
+        try {
+            deleteFileFromStorageServer(server, ownerId, replica.storedPath());
+        } catch (RestClientException e) {
+            logger.warn("Could not remove replica " + replica.storedPath() + " from storage server " + server.getName(), e);
+        }
+        replica.reservation().release();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public ResponseEntity<ObjectNode> deleteFile(long userId, String bucketName, String filePath)
             throws StorageEntityNotFoundException, StorageEntityCreationException, UserNotFoundException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
-        Bucket bucket = bucketRepository.getBucketByName(user, bucketName);
-        StorageFile file = storageFileRepository.getBucketFileByPath(bucket, filePath);
-        StorageServer server = file.getStorageServer();
+        User user = getUser(userId);
+        StorageFile file = resolveFile(user, bucketName, filePath);
+        if(storageServerConfigProperties.getDeletion().isAsynchronous()) return markFileDeleted(file);
+
+        // The replicas are removed before the copy of the file, so a failed deletion leaves a readable file
+        List<StoredCopy> copies = new ArrayList<>();
+        file.getReplicas().forEach(replica -> copies.add(new StoredCopy(replica.getStorageServer(), replica.getStoredPath())));
+        copies.add(new StoredCopy(file.getStorageServer(), file.getStoredPath()));
+        for(StoredCopy copy : copies) {
+            StorageServer server = copy.server();
+            logger.info("Deleting file from storage server: " + server.getName() + "(" + server.getHost() + ":" + server.getPort() + ")");
+            ResponseEntity<ObjectNode> response = deleteFileFromStorageServer(server, file.getCreator().getId(), copy.storedPath());
+            if (response.getStatusCode() != HttpStatus.OK || !response.hasBody()) {
+                throw new StorageEntityCreationException("Could not delete file");
+            }
+        }
+        return deleteFileFromDatabase(file);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<ObjectNode> moveFile(long userId, String bucketName, String filePath, String parentPath, String name)
+            throws StorageEntityNotFoundException, UserNotFoundException {
+        User user = getUser(userId);
+        StorageFile file = resolveFile(user, bucketName, filePath);
+        StorageFolder parent = (parentPath != null) ? resolveFolder(user, bucketName, parentPath) : file.getParent();
+        String filename = (name != null) ? name : file.getOriginalName();
+        if(storageFileRepository.exists(parent, filename)) throw new StorageEntityAlreadyExistsException("File already exists");
 
-        logger.info("Deleting file from storage server: " + server.getName() + "(" + server.getHost() + ":" + server.getPort() + ")");
-        ResponseEntity<ObjectNode> response = deleteFileFromStorageServer(server, file);
-        if (response.getStatusCode() == HttpStatus.OK && response.hasBody()) {
-            return deleteFileFromDatabase(file);
-        } else {
-            throw new StorageEntityCreationException("Could not delete file");
+        String newPath;
+        try {
+            newPath = storageFileRepository.move(file, parent, filename);
+        } catch (DataIntegrityViolationException e) {
+            throw new StorageEntityAlreadyExistsException("File already exists");
         }
+        logger.info("Moved file " + file.getPath() + " to " + newPath);
+
+        ObjectNode response = new ResponseBuilder()
+                .setStatus(ResponseState.OK)
+                .setMessage("File successfully moved.")
+                .add("name", filename)
+                .add("path", newPath)
+                .build();
+        return ResponseEntity.ok(response);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<Resource> loadFile(long userId, String bucketName, String filePath)
+    public ResponseEntity<StreamingResponseBody> loadFile(long userId, String bucketName, String filePath, HttpRange range)
             throws StorageEntityNotFoundException, UserNotFoundException {
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
-        Bucket bucket = bucketRepository.getBucketByName(user, bucketName);
-        StorageFile file = storageFileRepository.getBucketFileByPath(bucket, filePath);
-        StorageServer server = file.getStorageServer();
-        ResponseEntity<Resource> response = fetchFile(server, user, file);
+        User user = getUser(userId);
+        StorageFile file = resolveFile(user, bucketName, filePath);
+        List<StoredCopy> copies = findCopies(file);
 
-        SecretKey secretKey = user.getSecretKey();
         try {
-            FileAESCryptographer cryptographer = new FileAESCryptographer(secretKey, "AES/CBC/PKCS5Padding");
+            FileCryptographer cryptographer = cryptographerFactory.create(file.getEncryptionFormat(), user.getSecretKey());
+            boolean seekable = cryptographer instanceof SeekableFileCryptographer;
+            if(range != null && seekable) {
+                return loadFileRange(copies, user, file, (SeekableFileCryptographer) cryptographer, range);
+            }
 
-            byte[] encryptedData = Objects.requireNonNull(response.getBody()).getInputStream().readAllBytes();
-            byte[] decryptedData = cryptographer.decryptFile(encryptedData);
-            Resource resource = new ByteArrayResource(decryptedData);
+            StorageServerResponse response = fetchFile(copies, user, null);
+            StreamingResponseBody body = storageServerConfigProperties.getTransfer().isStreaming()
+                    ? streamDecryptedFile(response, cryptographer)
+                    : bufferDecryptedFile(response, cryptographer);
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalName()+ "\"")
-                    .contentLength(resource.contentLength())
+                    .header(HttpHeaders.ACCEPT_RANGES, seekable ? "bytes" : "none")
+                    .contentLength(file.getSize())
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(resource);
+                    .body(body);
         } catch (NoSuchPaddingException | NoSuchAlgorithmException | IOException e) {
-            logger.error("Error while creating cryptographer", e);
+            logger.error("Error while loading file from storage server", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Loads a range of a file by fetching the header and only the segments of the encrypted file
+     * that contain the range, and answers with 206 Partial Content.
+     * @param copies the stored copies of the file, in the order they are tried
+     * @param user the user who owns the file
+     * @param file the file to load
+     * @param cryptographer the {@link SeekableFileCryptographer} to decrypt the range with
+     * @param range the requested range of the plain file
+     * @return the range as a {@link ResponseEntity<StreamingResponseBody>}, or 416 if the range is not satisfiable
+     * @throws IOException if the file could not be fetched from the storage server
+     */
+    private ResponseEntity<StreamingResponseBody> loadFileRange(
+            List<StoredCopy> copies,
+            User user,
+            StorageFile file,
+            SeekableFileCryptographer cryptographer,
+            HttpRange range) throws IOException {
+        long size = file.getSize();
+        ByteRange plainRange;
+        try {
+            plainRange = new ByteRange(range.getRangeStart(size), range.getRangeEnd(size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+
+        byte[] header;
+        ByteRange headerRange = new ByteRange(0, cryptographer.headerLength() - 1);
+        StorageServerResponse headerResponse = fetchFile(copies, user, headerRange);
+        try {
+            header = headerResponse.getBody().readNBytes(cryptographer.headerLength());
+        } finally {
+            closeRangeResponse(headerResponse);
+        }
+        ByteRange encryptedRange = cryptographer.encryptedRange(header, size, plainRange);
+        // The copies are equal byte for byte, so the header and the range may come from different servers
+        StorageServerResponse response = fetchFile(copies, user, encryptedRange);
+        // Storage servers that ignore the range header answer with the whole file
+        boolean partial = response.getStatusCode() == HttpStatus.PARTIAL_CONTENT;
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                InputStream encryptedStream = response.getBody();
+                if(!partial) encryptedStream.skipNBytes(encryptedRange.start());
+                InputStream decryptedStream = cryptographer.decryptRange(header, encryptedStream, size, plainRange);
+                try {
+                    decryptedStream.transferTo(outputStream);
+                } finally {
+                    // Closing the decrypted stream closes the body, so the response is finished first
+                    closeRangeResponse(response);
+                    decryptedStream.close();
+                }
+            } finally {
+                closeRangeResponse(response);
+            }
+        };
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getOriginalName()+ "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + plainRange.start() + "-" + plainRange.end() + "/" + size)
+                .contentLength(plainRange.length())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    /**
+     * Closes the response to a range request. A storage server that ignored the range header sends the whole file,
+     * so the connection is aborted instead of reading the rest of the file.
+     * @param response the response to the range request
+     */
+    private void closeRangeResponse(StorageServerResponse response) {
+        if(response.getRawStatusCode() == HttpStatus.PARTIAL_CONTENT.value()) response.close();
+        else response.abort();
+    }
+
+    /**
+     * Creates a {@link StreamingResponseBody} that decrypts the response of the storage server
+     * while it is written to the client. The response is closed after it was transferred.
+     * @param response the open response of the storage server
+     * @param cryptographer the {@link FileCryptographer} to decrypt the file with
+     * @return the {@link StreamingResponseBody}
+     */
+    private StreamingResponseBody streamDecryptedFile(StorageServerResponse response, FileCryptographer cryptographer) {
+        return outputStream -> {
+            try (response; InputStream decryptedStream = cryptographer.decryptStream(response.getBody())) {
+                decryptedStream.transferTo(outputStream);
+            }
+        };
+    }
+
+    /**
+     * Reads and decrypts the whole response of the storage server before returning a {@link StreamingResponseBody}
+     * that writes the decrypted bytes to the client.
+     * @param response the open response of the storage server
+     * @param cryptographer the {@link FileCryptographer} to decrypt the file with
+     * @return the {@link StreamingResponseBody}
+     * @throws IOException if the response could not be read
+     */
+    private StreamingResponseBody bufferDecryptedFile(StorageServerResponse response, FileCryptographer cryptographer)
+            throws IOException {
+        try (response) {
+            byte[] decryptedData = cryptographer.decryptFile(response.getBody().readAllBytes());
+            return outputStream -> outputStream.write(decryptedData);
+        }
+    }
+
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<ObjectNode> loadFiles(Long userId, String bucket, String pathToParent, int page, int limit)
+    public ResponseEntity<ObjectNode> loadFiles(Long userId, String bucket, String pathToParent, String cursor, int page, int limit)
             throws StorageEntityNotFoundException, UserNotFoundException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-        Bucket bucketObj = bucketRepository.findByName(user, bucket)
-                .orElseThrow(() -> new StorageEntityNotFoundException("Bucket not found"));
-        StorageFolder parentObj = bucketFolderRepository.getFolder(bucketObj, pathToParent);
+        User user = getUser(userId);
+        StorageFolder parentObj = resolveFolder(user, bucket, pathToParent);
+
+        if(cursor != null) {
+            logger.info("Load files after cursor with limit " + limit
+                    + " of bucket " + bucket + " for user " + user.getFirstname() + " " + user.getLastname());
+
+            // Seek behind the last file of the previous listing, one more file tells if there are further files
+            List<StorageFile> files = storageFileRepository
+                    .findPageByParentAfter(parentObj, Util.decodeCursor(cursor), limit + 1);
+            return ResponseEntity.ok(Util.createStorageItemSlice(files, limit));
+        }
 
         logger.info("Load file page " + page + " with limit " + limit
                 + " of bucket " + bucket + " for user " + user.getFirstname() + " " + user.getLastname());
 
-        // Fetch all files of a bucket
-        List<StorageFile> files = parentObj.getFiles();
-        ObjectNode response = Util.createStorageItemList(files, page, limit);
+        List<StorageFile> files = storageFileRepository.findPageByParent(parentObj, page, limit);
+        long total = storageFileRepository.countByParent(parentObj);
+        ObjectNode response = Util.createStorageItemList(files, total, page, limit);
         return ResponseEntity.ok(response);
     }
 
-    private ResponseEntity<ObjectNode> deleteFileFromDatabase(StorageFile file) {
-        StorageFolder folder = file.getParent();
-        folder.removeFile(file);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<ObjectNode> loadObjects(
+            Long userId,
+            String bucket,
+            String prefix,
+            String delimiter,
+            String continuationToken,
+            String startAfter,
+            int maxKeys) throws StorageEntityNotFoundException, UserNotFoundException {
+        User user = getUser(userId);
+        StorageFolder root = resolveFolder(user, bucket, null);
+        String bucketPath = root.getPath() + "/";
+        String pathPrefix = bucketPath + (prefix != null ? prefix : "");
+
+        String afterPath = null;
+        String skippedPrefix = null;
+        if(continuationToken != null) {
+            afterPath = Util.decodeCursor(continuationToken);
+            if(!afterPath.startsWith(pathPrefix)) throw new IllegalArgumentException("Invalid continuation token");
+            // A key that contains the delimiter was a common prefix, the keys inside it were already listed
+            if(delimiter != null && afterPath.indexOf(delimiter, pathPrefix.length()) >= 0) skippedPrefix = afterPath;
+        } else if(startAfter != null) {
+            afterPath = bucketPath + startAfter;
+        }
 
-        StorageServer server = file.getStorageServer();
-        server.setFreeStorage(server.getFreeStorage() + file.getSize());
+        List<ObjectNode> contents = new ArrayList<>();
+        List<String> commonPrefixes = new ArrayList<>();
+        String lastPath = null;
+        boolean truncated = false;
+        scan:
+        while(true) {
+            int keys = contents.size() + commonPrefixes.size();
+            List<StorageFile> files = storageFileRepository.findPageByPrefix(
+                    root.getBucket().getId(), pathPrefix, afterPath, skippedPrefix, maxKeys - keys + 1);
+            for(StorageFile file : files) {
+                if(contents.size() + commonPrefixes.size() == maxKeys) {
+                    truncated = true;
+                    break scan;
+                }
+                String key = file.getPath().substring(bucketPath.length());
+                int delimiterIndex = (delimiter != null) ? key.indexOf(delimiter, pathPrefix.length() - bucketPath.length()) : -1;
+                if(delimiterIndex < 0) {
+                    contents.add(new ResponseBuilder()
+                            .add("key", key)
+                            .add("size", file.getSize())
+                            .add("fileType", file.getFileType())
+                            .build());
+                    lastPath = afterPath = file.getPath();
+                    continue;
+                }
 
-        storageServerRepository.save(server);
-        storageFileRepository.delete(file);
-        bucketFolderRepository.save(folder);
+                // Group the key and seek behind all other keys of the common prefix
+                String commonPrefix = key.substring(0, delimiterIndex + delimiter.length());
+                commonPrefixes.add(commonPrefix);
+                lastPath = afterPath = skippedPrefix = bucketPath + commonPrefix;
+                continue scan;
+            }
+            if(files.size() <= maxKeys - keys) break;
+        }
+
+        ObjectNode response = new ResponseBuilder()
+                .add("name", bucket)
+                .add("prefix", prefix)
+                .add("delimiter", delimiter)
+                .add("maxKeys", maxKeys)
+                .add("keyCount", contents.size() + commonPrefixes.size())
+                .add("isTruncated", truncated)
+                .addArray("contents", contents)
+                .addArray("commonPrefixes", commonPrefixes)
+                .add("nextContinuationToken", truncated ? Util.encodeCursor(lastPath) : null)
+                .build(ResponseState.OK, "Objects successfully loaded.");
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<ObjectNode> deleteFileFromDatabase(StorageFile file) {
+        storageFileRepository.remove(file);
+        freeCopies(file);
         ObjectNode response = new ResponseBuilder().build(ResponseState.OK, "File deleted");
         return ResponseEntity.ok(response);
     }
 
-    private ResponseEntity<ObjectNode> insertFileIntoDatabase(
-            StorageFolder folder,
-            StorageFile storageFile) throws IOException {
+    /**
+     * Marks a file as deleted and removes it from its folder, so that its name can be used again immediately.
+     * The file is removed from its storage server in the background by {@link #purgeDeletedFiles()}.
+     * @param file the file to delete
+     * @return the response
+     */
+    private ResponseEntity<ObjectNode> markFileDeleted(StorageFile file) {
+        storageFileRepository.detach(file);
+        freeCopies(file);
+        ObjectNode response = new ResponseBuilder().build(ResponseState.OK, "File deleted");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Credits the size of a deleted file back to the storage servers of the file and its replicas.
+     * @param file the deleted file
+     */
+    private void freeCopies(StorageFile file) {
+        storageServerRegistry.free(file.getStorageServer().getId(), file.getSize());
+        for(StorageFileReplica replica : file.getReplicas()) {
+            storageServerRegistry.free(replica.getStorageServer().getId(), file.getSize());
+        }
+    }
+
+    /**
+     * A stored copy of a deleted file that has to be removed from its storage server.
+     *
+     * @param file the deleted file
+     * @param copy the stored copy
+     * @param replicaId the id of the replica of the copy, or null for the copy on the storage server of the file
+     */
+    private record DeletedCopy(StorageFile file, StoredCopy copy, Long replicaId) {
+    }
 
+    /**
+     * Removes a batch of deleted files and their replicas from their storage servers and then their rows with a
+     * single statement per table. The copies are removed server by server, the remaining copies of an unreachable
+     * server are tried again later. Files with a failed copy are tried again after a backoff that doubles with
+     * every attempt, their removed replicas are not tried again.
+     */
+    private void purgeDeletedFiles() {
+        try {
+            DeletionProperty deletion = storageServerConfigProperties.getDeletion();
+            List<StorageFile> files = storageFileRepository.findDeletedBatch(Instant.now(), deletion.getBatchSize());
+            if(files.isEmpty()) return;
 
-        folder.addFile(storageFile);
-        StorageServer server = storageFile.getStorageServer();
-        server.setFreeStorage(server.getFreeStorage() - storageFile.getSize());
+            List<DeletedCopy> copies = new ArrayList<>();
+            for(StorageFile file : files) {
+                copies.add(new DeletedCopy(file, new StoredCopy(file.getStorageServer(), file.getStoredPath()), null));
+            }
+            List<StorageFileReplica> replicas = replicaRepository.findByFileIds(files.stream().map(StorageFile::getId).toList());
+            Map<Long, StorageFile> filesById = files.stream().collect(Collectors.toMap(StorageFile::getId, file -> file));
+            for(StorageFileReplica replica : replicas) {
+                StorageFile file = filesById.get(replica.getFile().getId());
+                copies.add(new DeletedCopy(file, new StoredCopy(replica.getStorageServer(), replica.getStoredPath()), replica.getId()));
+            }
 
-        storageFileRepository.save(storageFile);
-        bucketFolderRepository.save(folder);
+            Map<Long, List<DeletedCopy>> copiesByServer = copies.stream()
+                    .collect(Collectors.groupingBy(copy -> copy.copy().server().getId(), LinkedHashMap::new, Collectors.toList()));
+            List<Long> removedReplicas = new ArrayList<>();
+            Set<Long> failedIds = new HashSet<>();
+            for(List<DeletedCopy> serverCopies : copiesByServer.values()) {
+                StorageServer server = serverCopies.get(0).copy().server();
+                for(int i = 0; i < serverCopies.size(); i++) {
+                    DeletedCopy copy = serverCopies.get(i);
+                    try {
+                        deleteFileFromStorageServer(server, copy.file().getCreator().getId(), copy.copy().storedPath());
+                        if(copy.replicaId() != null) removedReplicas.add(copy.replicaId());
+                    } catch (HttpClientErrorException.NotFound e) {
+                        if(copy.replicaId() != null) removedReplicas.add(copy.replicaId());
+                    } catch (ResourceAccessException e) {
+                        logger.warn("Storage server " + server.getName() + " is unreachable, deferring " + (serverCopies.size() - i) + " deletions");
+                        serverCopies.subList(i, serverCopies.size()).forEach(deferred -> failedIds.add(deferred.file().getId()));
+                        break;
+                    } catch (RestClientException e) {
+                        logger.warn("Could not delete file " + copy.file().getId() + " from storage server " + server.getName(), e);
+                        failedIds.add(copy.file().getId());
+                    }
+                }
+            }
+
+            List<Long> removed = files.stream().map(StorageFile::getId).filter(id -> !failedIds.contains(id)).toList();
+            List<StorageFile> failed = files.stream().filter(file -> failedIds.contains(file.getId())).toList();
+            replicaRepository.deleteByIds(removedReplicas);
+            storageFileRepository.deleteByIds(removed);
+            for(StorageFile file : failed) {
+                file.setDeleteAttempts(file.getDeleteAttempts() + 1);
+                file.setDeleteAfter(Instant.now().plus(deleteBackoff(deletion, file.getDeleteAttempts())));
+            }
+            storageFileRepository.saveAll(failed);
+            logger.info("Removed " + removed.size() + " deleted files from the storage servers, " + failed.size() + " failed");
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled removal
+            logger.error("Could not remove deleted files from the storage servers", e);
+        }
+    }
+
+    /**
+     * Calculates the time until the next attempt to remove a deleted file.
+     * @param deletion the settings of the deletion
+     * @param attempts the number of failed attempts
+     * @return the backoff, doubled with every failed attempt up to the maximum backoff
+     */
+    private static Duration deleteBackoff(DeletionProperty deletion, int attempts) {
+        Duration backoff = deletion.getBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(deletion.getMaxBackoff()) > 0 ? deletion.getMaxBackoff() : backoff;
+    }
+
+    /**
+     * Inserts the file without a stored path, the unique constraint on its name rejects a concurrent upload.
+     * @param storageFile the file to reserve
+     * @return the reserved file
+     * @throws StorageEntityAlreadyExistsException if the file already exists
+     */
+    private StorageFile reserveFileInDatabase(StorageFile storageFile) throws StorageEntityAlreadyExistsException {
+        try {
+            return storageFileRepository.save(storageFile);
+        } catch (DataIntegrityViolationException e) {
+            throw new StorageEntityAlreadyExistsException("File already exists");
+        }
+    }
+
+    private ResponseEntity<ObjectNode> insertFileIntoDatabase(StorageFile storageFile) {
+        storageFileRepository.store(storageFile, List.of());
 
         ObjectNode response = new ResponseBuilder()
                 .add("path", storageFile.getPath())
@@ -261,8 +953,41 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
         return ResponseEntity.ok(response);
     }
 
-    private ResponseEntity<ObjectNode> uploadFileToStorageServer(StorageServer server, User user, MultipartFile file) {
-        RestTemplate restTemplate = new RestTemplate();
+    private ResponseEntity<ObjectNode> uploadFileToStorageServer(
+            StorageServer server,
+            User user,
+            StorageFile storageFile,
+            MultipartFile file) {
+        Object encryptedFile = storageServerConfigProperties.getTransfer().isStreaming()
+                ? encryptFileStream(user, storageFile.getEncryptionFormat(), file)
+                : encryptFile(user, storageFile.getEncryptionFormat(), file);
+        return uploadToStorageServer(server, user, Objects.requireNonNull(file.getOriginalFilename()), encryptedFile);
+    }
+
+    /**
+     * Sends an encrypted copy of a file to a storage server.
+     * @param server the storage server to store the copy on
+     * @param user the user who uploads the file
+     * @param filename the name of the file
+     * @param encryptedFile the encrypted file
+     * @return the path of the stored copy
+     * @throws StorageEntityCreationException if the storage server did not store the copy
+     */
+    private String storeReplica(StorageServer server, User user, String filename, Object encryptedFile) {
+        logger.info("Sending replica to storage server: " + server.getName() + " (" + server.getHost() + ":" + server.getPort() + ")");
+        ResponseEntity<ObjectNode> response = uploadToStorageServer(server, user, filename, encryptedFile);
+        if(response.getStatusCode() != HttpStatus.OK || !response.hasBody()) {
+            throw new StorageEntityCreationException("Could not upload file to storage server " + server.getName());
+        }
+        return Objects.requireNonNull(response.getBody()).get("path").asText();
+    }
+
+    private ResponseEntity<ObjectNode> uploadToStorageServer(
+            StorageServer server,
+            User user,
+            String filename,
+            Object encryptedFile) {
+        RestTemplate restTemplate = storageServerClient.getRestTemplate();
         String url = protocol + "://" + server.getHost() + ":" + server.getPort() + "/api/files/" + user.getId();
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(storageAuth);
@@ -271,11 +996,11 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
         ContentDisposition contentDisposition = ContentDisposition
                 .builder("form-data")
                 .name("file")
-                .filename(Objects.requireNonNull(file.getOriginalFilename()))
+                .filename(filename)
                 .build();
         fileMap.add(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString());
 
-        HttpEntity<byte[]> fileEntity = new HttpEntity<>(encryptFile(user, file), fileMap);
+        HttpEntity<?> fileEntity = new HttpEntity<>(encryptedFile, fileMap);
 
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         body.add("file", fileEntity);
@@ -287,11 +1012,11 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
     }
 
 
-    private ResponseEntity<ObjectNode> deleteFileFromStorageServer(StorageServer server, StorageFile file) {
-        RestTemplate restTemplate = new RestTemplate();
+    private ResponseEntity<ObjectNode> deleteFileFromStorageServer(StorageServer server, long ownerId, String storedPath) {
+        RestTemplate restTemplate = storageServerClient.getRestTemplate();
         String url = protocol + "://" + server.getHost() + ":" + server.getPort() +
-                "/api/files/" + file.getCreator().getId() +
-                "/" + URLEncoder.encode(file.getStoredPath().substring(1), StandardCharsets.UTF_8);
+                "/api/files/" + ownerId +
+                "/" + URLEncoder.encode(storedPath.substring(1), StandardCharsets.UTF_8);
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(storageAuth);
         HttpEntity<String> requestEntity = new HttpEntity<>(headers);
@@ -300,20 +1025,280 @@ public class StorageFileServiceImpl extends StorageService implements StorageFil
         return restTemplate.exchange(url, HttpMethod.DELETE, requestEntity, responseType);
     }
 
-    private ResponseEntity<Resource> fetchFile(StorageServer server, User user, StorageFile file) {
-        RestTemplate restTemplate = new RestTemplate();
+    /**
+     * Collects the stored copies of a file in the order they are read. Online servers that are not slow come first,
+     * in random order so that the reads of a file are spread over its replicas, offline servers come last.
+     * @param file the file to read
+     * @return the stored copies of the file
+     */
+    private List<StoredCopy> findCopies(StorageFile file) {
+        StoredCopy stored = new StoredCopy(file.getStorageServer(), file.getStoredPath());
+        if(file.getReplicas().isEmpty()) return List.of(stored);
+
+        List<StoredCopy> copies = new ArrayList<>();
+        copies.add(stored);
+        for(StorageFileReplica replica : file.getReplicas()) {
+            copies.add(new StoredCopy(replica.getStorageServer(), replica.getStoredPath()));
+        }
+        Collections.shuffle(copies);
+        copies.sort(Comparator.comparingInt(copy -> storageServerRegistry.find(copy.server().getId())
+                .map(server -> !server.isOnline() ? 2 : server.isSlow() ? 1 : 0)
+                .orElse(2)));
+        return copies;
+    }
+
+    /**
+     * Requests a file from the first copy that answers and returns the open response, so that its body can be streamed.
+     * The caller is responsible for closing the response.
+     * @param copies the stored copies of the file, in the order they are tried
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the open {@link StorageServerResponse}
+     * @throws IOException if the storage server of the last copy could not be reached
+     * @throws HttpClientErrorException if the storage server of the last copy answered with a client error
+     */
+    private StorageServerResponse fetchFile(List<StoredCopy> copies, User user, ByteRange range) throws IOException {
+        TimedResponse answer = fetchFirstCopy(copies, user, range);
+        // Headers and ranges answer faster than whole files, they would shorten the hedge delay of whole files
+        if(range == null) responseTimes.record(answer.latency());
+        return answer.response();
+    }
+
+    /**
+     * Requests a file from the first copy that answers, hedged over the first two copies if hedging is enabled.
+     * @param copies the stored copies of the file, in the order they are tried
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the open response of the copy that answered
+     * @throws IOException if the storage server of the last copy could not be reached
+     * @throws HttpClientErrorException if the storage server of the last copy answered with a client error
+     */
+    private TimedResponse fetchFirstCopy(List<StoredCopy> copies, User user, ByteRange range) throws IOException {
+        if(copies.size() > 1 && hedgeExecutor != null) {
+            try {
+                return fetchHedged(copies.get(0), copies.get(1), user, range);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Too many hedged downloads, fetching file without hedging");
+            } catch (IOException | RestClientException e) {
+                if(copies.size() == 2) throw e;
+                logger.warn("Could not fetch file from the first two replicas, trying the next replica", e);
+                copies = copies.subList(2, copies.size());
+            }
+        }
+        for(int i = 0; ; i++) {
+            StoredCopy copy = copies.get(i);
+            try {
+                return fetchCopy(copy, user, range);
+            } catch (IOException | RestClientException e) {
+                if(i == copies.size() - 1) throw e;
+                logger.warn("Could not fetch file from storage server " + copy.server().getName() + ", trying the next replica", e);
+            }
+        }
+    }
+
+    /**
+     * Requests a file from a first copy and, if it did not answer within the hedge delay, also from a second copy.
+     * The first successful answer is returned and the other request is aborted, whether it still waits for the
+     * storage server or already answered, so that its body is not transferred. The hedge delay is a percentile
+     * of the recent response times, so only the slowest downloads send a second request. If the executor rejects
+     * the second request, the first one is awaited alone.
+     * @param first the copy that is requested first
+     * @param second the copy that is requested after the hedge delay
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the open response of the copy that answered first
+     * @throws IOException if no storage server could be reached
+     * @throws HttpClientErrorException if the storage servers answered with a client error
+     * @throws RejectedExecutionException if the executor rejected the first request, nothing was requested then
+     */
+    private TimedResponse fetchHedged(StoredCopy first, StoredCopy second, User user, ByteRange range)
+            throws IOException {
+        HedgingProperty hedging = storageServerConfigProperties.getHedging();
+        long delay = Math.max(hedging.getMinDelay().toNanos(), Math.min(hedging.getMaxDelay().toNanos(), responseTimes.getValue()));
+        HedgedRequest primary = fetchCopyAsync(first, user, range);
+        try {
+            return primary.response().get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.debug("Storage server " + first.server().getName() + " did not answer within the hedge delay");
+        } catch (ExecutionException e) {
+            // The first copy failed before the hedge delay, the second copy is requested without hedging
+            logger.warn("Could not fetch file from storage server " + first.server().getName() + ", trying the next replica", e.getCause());
+            return fetchCopy(second, user, range);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.abort();
+            throw new IOException("Interrupted while waiting for storage server " + first.server().getName(), e);
+        }
+
+        HedgedRequest backup;
+        try {
+            backup = fetchCopyAsync(second, user, range);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Too many hedged downloads, waiting for storage server " + first.server().getName() + " alone");
+            try {
+                return join(primary.response());
+            } catch (IOException | RestClientException failure) {
+                logger.warn("Could not fetch file from storage server " + first.server().getName() + ", trying the next replica", failure);
+                return fetchCopy(second, user, range);
+            }
+        }
+        CompletableFuture<TimedResponse> answer = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<HedgedRequest, HedgedRequest> race = (request, other) -> request.response().whenComplete((response, error) -> {
+            if(error == null) {
+                if(answer.complete(response)) other.abort();
+                else response.response().abort();
+            } else if(failures.incrementAndGet() == 2) {
+                answer.completeExceptionally(error);
+            }
+        });
+        race.accept(primary, backup);
+        race.accept(backup, primary);
+        return join(answer);
+    }
+
+    /**
+     * Waits for a request on the executor of hedged downloads and rethrows its failure.
+     * @param request the future of the request
+     * @return the open response
+     * @throws IOException if the storage server could not be reached
+     * @throws HttpClientErrorException if the storage server answered with a client error
+     */
+    private TimedResponse join(CompletableFuture<TimedResponse> request) throws IOException {
+        try {
+            return request.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof UncheckedIOException unchecked) throw unchecked.getCause();
+            if(cause instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+    }
+
+    /**
+     * Requests a copy of a file on the executor of hedged downloads.
+     * @param copy the stored copy
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the request and the future of its open response
+     * @throws RejectedExecutionException if the executor is saturated
+     */
+    private HedgedRequest fetchCopyAsync(StoredCopy copy, User user, ByteRange range) {
+        HttpGet request = createFetchRequest(copy, user, range);
+        return new HedgedRequest(request, CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchCopy(request);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, hedgeExecutor));
+    }
+
+    /**
+     * Requests a copy of a file from its storage server and returns the open response.
+     * The caller is responsible for closing the response.
+     * @param copy the stored copy
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the open response and the time until the storage server answered
+     * @throws IOException if the storage server could not be reached
+     * @throws HttpClientErrorException if the storage server answered with a client error
+     */
+    private TimedResponse fetchCopy(StoredCopy copy, User user, ByteRange range) throws IOException {
+        return fetchCopy(createFetchRequest(copy, user, range));
+    }
+
+    /**
+     * Sends the request of a copy of a file and returns the open response.
+     * The caller is responsible for closing the response.
+     * @param request the request created by {@link #createFetchRequest(StoredCopy, User, ByteRange)}
+     * @return the open response and the time until the storage server answered
+     * @throws IOException if the storage server could not be reached or the request was aborted
+     * @throws HttpClientErrorException if the storage server answered with a client error
+     */
+    private TimedResponse fetchCopy(HttpGet request) throws IOException {
+        long start = System.nanoTime();
+        StorageServerResponse response = storageServerClient.execute(request);
+        long latency = System.nanoTime() - start;
+        ResponseErrorHandler errorHandler = storageServerClient.getRestTemplate().getErrorHandler();
+        if(errorHandler.hasError(response)) {
+            try (response) {
+                errorHandler.handleError(request.getURI(), HttpMethod.GET, response);
+            }
+        }
+        return new TimedResponse(response, latency);
+    }
+
+    /**
+     * Creates the request of a copy of a file from its storage server.
+     * @param copy the stored copy
+     * @param user the user who owns the file
+     * @param range the range of the stored file to fetch, or null to fetch the whole file
+     * @return the request
+     */
+    private HttpGet createFetchRequest(StoredCopy copy, User user, ByteRange range) {
+        StorageServer server = copy.server();
         String url = protocol + "://" + server.getHost() + ":" + server.getPort() +
                 "/api/files/" + user.getId() +
-                "/" + URLEncoder.encode(file.getStoredPath().substring(1), StandardCharsets.UTF_8);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(storageAuth);
-        HttpEntity<Void> request = new HttpEntity<>(headers);
-        return restTemplate.exchange(url, HttpMethod.GET, request, Resource.class);
+                "/" + URLEncoder.encode(copy.storedPath().substring(1), StandardCharsets.UTF_8);
+        URI uri = storageServerClient.getRestTemplate().getUriTemplateHandler().expand(url);
+        HttpGet request = new HttpGet(uri);
+        request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + storageAuth);
+        if(range != null) request.setHeader(HttpHeaders.RANGE, "bytes=" + range.start() + "-" + range.end());
+        return request;
+    }
+
+    /**
+     * Wraps the content of a multipart file into a {@link Resource} that encrypts the content while it is read.
+     * @param user the user whose secret key is used to encrypt the file
+     * @param format the format in which the file is encrypted
+     * @param file the file to encrypt
+     * @return the {@link Resource} of the encrypted file
+     */
+    private Resource encryptFileStream(User user, EncryptionFormat format, MultipartFile file) {
+        try {
+            FileCryptographer cryptographer = cryptographerFactory.create(format, user.getSecretKey());
+            return new EncryptedFileResource(
+                    cryptographer.encryptStream(file.getInputStream()),
+                    file.getOriginalFilename());
+        } catch (IOException | NoSuchPaddingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Encrypts a multipart file into a temporary file, so that it can be sent to several storage servers.
+     * @param user the user whose secret key is used to encrypt the file
+     * @param format the format in which the file is encrypted
+     * @param file the file to encrypt
+     * @return the path of the temporary file, deleted by the caller
+     */
+    private Path encryptFileToTemporaryFile(User user, EncryptionFormat format, MultipartFile file) {
+        Path encryptedFile = null;
+        try {
+            encryptedFile = Files.createTempFile("upload-", ".enc");
+            FileCryptographer cryptographer = cryptographerFactory.create(format, user.getSecretKey());
+            try (InputStream encryptedStream = cryptographer.encryptStream(file.getInputStream())) {
+                Files.copy(encryptedStream, encryptedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return encryptedFile;
+        } catch (IOException | NoSuchPaddingException | NoSuchAlgorithmException e) {
+            if(encryptedFile != null) deleteTemporaryFile(encryptedFile);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void deleteTemporaryFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary file " + file, e);
+        }
     }
 
-    private byte[] encryptFile(User user, MultipartFile file) {
+    private byte[] encryptFile(User user, EncryptionFormat format, MultipartFile file) {
         try {
-            FileCryptographer cryptographer = new FileAESCryptographer(user.getSecretKey(), "AES/CBC/PKCS5Padding");
+            FileCryptographer cryptographer = cryptographerFactory.create(format, user.getSecretKey());
             return cryptographer.encryptFile(file.getBytes());
         } catch (IOException | NoSuchPaddingException | NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
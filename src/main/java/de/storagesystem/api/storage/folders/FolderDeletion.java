@@ -0,0 +1,113 @@
+package de.storagesystem.api.storage.folders;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.storagesystem.api.util.ResponseBuilder;
+
+import java.time.Instant;
+
+/**
+ * The progress of the deletion of a folder with everything inside it.
+ * The deletion runs in the background, so the progress is updated by one thread and read by others.
+ *
+ * @author Simon Brebeck
+ */
+public class FolderDeletion {
+
+    /**
+     * The state of a folder deletion.
+     */
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    /**
+     * The path of the deleted folder.
+     */
+    private final String path;
+
+    /**
+     * The time the deletion was started.
+     */
+    private final Instant startedAt = Instant.now();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile long deletedFiles = 0;
+
+    private volatile long deletedFolders = 0;
+
+    private volatile long deletedBytes = 0;
+
+    private volatile Instant finishedAt;
+
+    private volatile String error;
+
+    /**
+     * Instantiates a new FolderDeletion.
+     * @param path the path of the deleted folder
+     */
+    public FolderDeletion(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Counts a batch of files that were marked as deleted.
+     * @param files the number of files
+     * @param bytes the size of the files in bytes
+     */
+    void addFiles(long files, long bytes) {
+        deletedFiles += files;
+        deletedBytes += bytes;
+    }
+
+    /**
+     * Counts a batch of deleted folders.
+     * @param folders the number of folders
+     */
+    void addFolders(long folders) {
+        deletedFolders += folders;
+    }
+
+    /**
+     * Finishes the deletion.
+     */
+    void done() {
+        finishedAt = Instant.now();
+        state = State.DONE;
+    }
+
+    /**
+     * Finishes the deletion with an error, the deletion is resumed when the server restarts.
+     * @param error the error message
+     */
+    void failed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    /**
+     * Getter for the state of the deletion.
+     * @return the state of the deletion
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Creates the json representation of the progress.
+     * @return the progress as {@link ObjectNode}
+     */
+    public ObjectNode toJson() {
+        return new ResponseBuilder()
+                .add("path", path)
+                .add("state", state.name())
+                .add("deletedFiles", deletedFiles)
+                .add("deletedFolders", deletedFolders)
+                .add("deletedBytes", deletedBytes)
+                .add("startedAt", startedAt.toString())
+                .add("finishedAt", finishedAt != null ? finishedAt.toString() : null)
+                .add("error", error)
+                .build();
+    }
+}
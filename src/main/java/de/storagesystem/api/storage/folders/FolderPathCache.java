@@ -0,0 +1,133 @@
+package de.storagesystem.api.storage.folders;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.storagesystem.api.properties.CacheProperty;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * A bounded cache of the folder ids that paths inside the buckets of a user resolved to, so that hot folders
+ * are loaded by their id instead of a query on their path. Caffeine evicts the entries with its W-TinyLFU policy.
+ * Callers have to check that the folder loaded by a cached id still has the requested path, entries are
+ * invalidated when folders are deleted or moved, but other instances of this server do not see these invalidations.
+ *
+ * @author Simon Brebeck
+ */
+@Component
+public class FolderPathCache {
+
+    /**
+     * The path of a folder inside a bucket of a user, as it is requested.
+     *
+     * @param userId the id of the user who created the bucket
+     * @param bucketName the name of the bucket
+     * @param path the path to the folder
+     */
+    private record FolderPath(long userId, String bucketName, String path) {
+    }
+
+    /**
+     * The folder a path resolved to.
+     *
+     * @param bucketId the id of the bucket of the folder
+     * @param folderId the id of the folder
+     * @param path the path of the folder
+     */
+    private record ResolvedFolder(long bucketId, long folderId, String path) {
+    }
+
+    /**
+     * The resolved folders by their requested path, or null if paths are not cached.
+     */
+    private final Cache<FolderPath, ResolvedFolder> folders;
+
+    /**
+     * Instantiates a new FolderPathCache.
+     *
+     * @param storageServerConfigProperties the configuration of this server
+     */
+    public FolderPathCache(StorageServerConfigProperty storageServerConfigProperties) {
+        CacheProperty cache = storageServerConfigProperties.getCache();
+        this.folders = cache.getPathMaximumSize() > 0
+                ? Caffeine.newBuilder()
+                    .maximumSize(cache.getPathMaximumSize())
+                    .expireAfterAccess(cache.getPathTtl())
+                    .recordStats()
+                    .build()
+                : null;
+    }
+
+    /**
+     * Returns the id of the folder a path resolved to before.
+     *
+     * @param userId the id of the user who created the bucket
+     * @param bucketName the name of the bucket
+     * @param path the requested path to the folder
+     * @return the id of the folder, or an empty {@link Optional} if the path is not cached
+     */
+    public Optional<Long> findFolderId(long userId, String bucketName, String path) {
+        if(folders == null) return Optional.empty();
+        ResolvedFolder folder = folders.getIfPresent(new FolderPath(userId, bucketName, path));
+        return folder != null ? Optional.of(folder.folderId()) : Optional.empty();
+    }
+
+    /**
+     * Remembers the folder a path resolved to.
+     *
+     * @param userId the id of the user who created the bucket
+     * @param bucketName the name of the bucket
+     * @param path the requested path to the folder
+     * @param folder the folder the path resolved to
+     */
+    public void put(long userId, String bucketName, String path, StorageFolder folder) {
+        if(folders == null) return;
+        folders.put(
+                new FolderPath(userId, bucketName, path),
+                new ResolvedFolder(folder.getBucket().getId(), folder.getId(), folder.getPath()));
+    }
+
+    /**
+     * Removes a folder and all folders inside it from the cache, after it was deleted or moved.
+     *
+     * @param bucketId the id of the bucket of the folder
+     * @param path the path of the folder
+     */
+    public void invalidate(long bucketId, String path) {
+        if(folders == null) return;
+        // Scans the bounded cache, deletes and moves are rare compared to lookups
+        folders.asMap().values().removeIf(folder -> folder.bucketId() == bucketId
+                && (folder.path().equals(path) || folder.path().startsWith(path + "/")));
+    }
+
+    /**
+     * Removes all folders of a bucket from the cache, after the bucket was deleted.
+     *
+     * @param bucketId the id of the bucket
+     */
+    public void invalidateBucket(long bucketId) {
+        if(folders == null) return;
+        folders.asMap().values().removeIf(folder -> folder.bucketId() == bucketId);
+    }
+
+    /**
+     * Getter for the number of cached paths.
+     *
+     * @return the estimated number of cached paths
+     */
+    public long size() {
+        return folders != null ? folders.estimatedSize() : 0;
+    }
+
+    /**
+     * Getter for the statistics of the cache.
+     *
+     * @return the {@link CacheStats}, or empty statistics if paths are not cached
+     */
+    public CacheStats getStats() {
+        return folders != null ? folders.stats() : CacheStats.empty();
+    }
+}
@@ -4,10 +4,8 @@ import de.storagesystem.api.storage.StorageItem;
 import de.storagesystem.api.storage.files.StorageFile;
 import de.storagesystem.api.users.User;
 
-import javax.persistence.Entity;
-import javax.persistence.OneToMany;
-import javax.persistence.Table;
-import javax.persistence.UniqueConstraint;
+import javax.persistence.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,15 +14,48 @@ import java.util.List;
 @Entity
 @Table(
         name = "storage_folders",
-        uniqueConstraints = {@UniqueConstraint(columnNames = {"bucket_id", "path"})}
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"bucket_id", "path"})},
+        indexes = {@Index(name = "idx_storage_folders_parent_name", columnList = "parent_id, name")}
 )
 public class StorageFolder extends StorageItem {
 
-    @OneToMany
-    private List<StorageFolder> folders;
+    @OneToMany(mappedBy = "parent")
+    private List<StorageFolder> folders = new ArrayList<>();
 
-    @OneToMany
-    private List<StorageFile> files;
+    @OneToMany(mappedBy = "parent")
+    private List<StorageFile> files = new ArrayList<>();
+
+    /**
+     * The number of files directly in the folder, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long fileCount = 0;
+
+    /**
+     * The number of folders directly in the folder, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long folderCount = 0;
+
+    /**
+     * The size of the files directly in the folder in bytes, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private long totalBytes = 0;
+
+    /**
+     * Whether the counters were calculated from the content of the folder, false for folders created before the
+     * counters were maintained until they are calculated once on startup.
+     */
+    @Column(nullable = false, updatable = false)
+    private boolean countersInitialized = true;
+
+    /**
+     * Whether the folder is being deleted, because it or a folder above it was detached.
+     * Folders that are being deleted are not resolved anymore, only changed by atomic updates of the database.
+     */
+    @Column(nullable = false, updatable = false)
+    private boolean deleting = false;
 
     /**
      * Instantiates a new StorageFolder.
@@ -59,6 +90,46 @@ public class StorageFolder extends StorageItem {
         return folders;
     }
 
+    /**
+     * Getter for the number of {@link StorageFile}s that are in the folder.
+     * @return long the number of {@link StorageFile}s that are in the folder.
+     */
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Getter for the number of {@link StorageFolder}s that are in the folder.
+     * @return long the number of {@link StorageFolder}s that are in the folder.
+     */
+    public long getFolderCount() {
+        return folderCount;
+    }
+
+    /**
+     * Getter for the size of the {@link StorageFile}s that are in the folder.
+     * @return long the size of the {@link StorageFile}s that are in the folder in bytes.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Getter for whether the folder is being deleted.
+     * @return true if the folder or a folder above it was detached to be deleted.
+     */
+    public boolean isDeleting() {
+        return deleting;
+    }
+
+    /**
+     * Setter for whether the folder is being deleted, which is only stored by {@link StorageFolderDAO#detach}.
+     * @param deleting true if the folder is being deleted.
+     */
+    public void setDeleting(boolean deleting) {
+        this.deleting = deleting;
+    }
+
     /**
      * Adds a {@link StorageFile} to the folder.
      * @param file The {@link StorageFile} to add.
@@ -96,7 +96,8 @@ public class StorageFolderController {
      * @param authentication the authentication token
      * @param bucketName the bucket to list the folders in
      * @param relativePath the path to the parent folder to list the folders in
-     * @param page the page to list
+     * @param cursor the cursor returned by the previous listing, continues after its last folder
+     * @param page the page to list, if no cursor is given
      * @param limit the limit of folders to list
      * @return the response as a {@link ResponseEntity<ObjectNode>}
      * @throws StorageEntityNotFoundException if the bucket or parent folder does not exist
@@ -110,6 +111,7 @@ public class StorageFolderController {
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
             @PathVariable String bucketName,
             @PathVariable(value = "relativePath", required = false) String relativePath,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "limit", defaultValue = "100") int limit)
             throws
@@ -130,7 +132,7 @@ public class StorageFolderController {
 
         String pathToParent = (relativePath == null) ? "/" + bucketName : "/" + bucketName + "/" + relativePath;
         logger.info("Getting folder list of folder: " + pathToParent);
-        return storageService.loadFolders(userService.getUserId(authentication), bucketName, pathToParent, page, limit);
+        return storageService.loadFolders(userService.getUserId(authentication), bucketName, pathToParent, cursor, page, limit);
     }
 
     /**
@@ -164,7 +166,8 @@ public class StorageFolderController {
      * Lists all folders inside a given folder
      * @param authentication the authentication token
      * @param bucketName the bucket to list the folders in
-     * @param page the page to list
+     * @param cursor the cursor returned by the previous listing, continues after its last folder
+     * @param page the page to list, if no cursor is given
      * @param limit the limit of folders to list
      * @return the response as a {@link ResponseEntity<ObjectNode>}
      * @throws StorageEntityNotFoundException if the bucket or parent folder does not exist
@@ -177,6 +180,7 @@ public class StorageFolderController {
     public ResponseEntity<ObjectNode> handleFolderList(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
             @PathVariable String bucketName,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "limit", defaultValue = "100") int limit)
             throws
@@ -185,7 +189,104 @@ public class StorageFolderController {
             UserNotFoundException,
             UserInputValidationException,
             InvalidTokenException {
-        return handleFolderList(authentication, bucketName, null, page, limit);
+        return handleFolderList(authentication, bucketName, null, cursor, page, limit);
+    }
+
+    /**
+     * Deletes a folder with everything inside it, the content is deleted in the background
+     * @param authentication the authentication token
+     * @param bucket the bucket of the folder
+     * @param relativePath the path to the folder to delete
+     * @return the response with the progress of the deletion as a {@link ResponseEntity<ObjectNode>}
+     * @throws StorageEntityNotFoundException if the bucket or folder does not exist
+     * @throws UserNotFoundException if the user does not exist
+     * @throws UserInputValidationException if the folder path or bucket name is invalid
+     * @throws InvalidTokenException if the token is invalid
+     */
+    @DeleteMapping(value = "/{bucket}/{relativePath}")
+    public ResponseEntity<ObjectNode> handleFolderDeletion(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @PathVariable("bucket") String bucket,
+            @PathVariable("relativePath") String relativePath)
+            throws
+            StorageEntityNotFoundException,
+            UserNotFoundException,
+            UserInputValidationException,
+            InvalidTokenException {
+
+        StorageInputValidation inputValidation = new StorageInputValidationImpl();
+        if(!inputValidation.validateBucketName(bucket))
+            throw new UserInputValidationException("Invalid bucket name: " + bucket);
+        if(!inputValidation.validateFolderPath(relativePath))
+            throw new UserInputValidationException("Invalid folder path: " + relativePath);
+
+        String folderPath = "/" + bucket + "/" + relativePath;
+        logger.info("Deleting folder " + folderPath);
+        return storageService.deleteFolder(userService.getUserId(authentication), bucket, folderPath);
+    }
+
+    /**
+     * Moves a folder to another parent folder in its bucket and renames it
+     * @param authentication the authentication token
+     * @param bucket the bucket of the folder
+     * @param relativePath the path to the folder to move
+     * @param parent the path to the new parent folder, "/" for the root of the bucket, or null to keep the parent
+     * @param name the new name of the folder, or null to keep the name
+     * @return the response with the new path as a {@link ResponseEntity<ObjectNode>}
+     * @throws StorageEntityNotFoundException if the bucket, folder or parent folder does not exist
+     * @throws UserNotFoundException if the user does not exist
+     * @throws UserInputValidationException if the folder paths, bucket- or foldername are invalid
+     * @throws InvalidTokenException if the token is invalid
+     */
+    @PatchMapping(value = "/{bucket}/{relativePath}")
+    public ResponseEntity<ObjectNode> handleFolderMove(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @PathVariable("bucket") String bucket,
+            @PathVariable("relativePath") String relativePath,
+            @RequestParam(value = "parent", required = false) String parent,
+            @RequestParam(value = "name", required = false) String name)
+            throws
+            StorageEntityNotFoundException,
+            UserNotFoundException,
+            UserInputValidationException,
+            InvalidTokenException {
+
+        StorageInputValidation inputValidation = new StorageInputValidationImpl();
+        if(!inputValidation.validateBucketName(bucket))
+            throw new UserInputValidationException("Invalid bucket name: " + bucket);
+        if(!inputValidation.validateFolderPath(relativePath))
+            throw new UserInputValidationException("Invalid folder path: " + relativePath);
+        if(parent == null && name == null)
+            throw new IllegalArgumentException("Either a new parent or a new name is required");
+        if(parent != null && !parent.equals("/") && !inputValidation.validateFolderPath(parent))
+            throw new UserInputValidationException("Invalid folder path: " + parent);
+        if(name != null && !inputValidation.validateFolderName(name))
+            throw new UserInputValidationException("Invalid folder name: " + name);
+
+        String folderPath = "/" + bucket + "/" + relativePath;
+        String parentPath = (parent == null) ? null : parent.equals("/") ? "/" + bucket : "/" + bucket + "/" + parent;
+        logger.info("Moving folder " + folderPath);
+        return storageService.moveFolder(userService.getUserId(authentication), bucket, folderPath, parentPath, name);
+    }
+
+    /**
+     * Loads the progress of the deletion of a folder
+     * @param authentication the authentication token
+     * @param bucket the bucket of the deleted folder
+     * @param relativePath the path to the deleted folder
+     * @return the response with the progress of the deletion as a {@link ResponseEntity<ObjectNode>}
+     * @throws StorageEntityNotFoundException if no deletion of the folder is known
+     * @throws InvalidTokenException if the token is invalid
+     */
+    @GetMapping(value = "/{bucket}/{relativePath}/deletion")
+    public ResponseEntity<ObjectNode> handleFolderDeletionProgress(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authentication,
+            @PathVariable("bucket") String bucket,
+            @PathVariable("relativePath") String relativePath)
+            throws
+            StorageEntityNotFoundException,
+            InvalidTokenException {
+        return storageService.loadFolderDeletion(userService.getUserId(authentication), "/" + bucket + "/" + relativePath);
     }
 
 }
@@ -2,6 +2,7 @@ package de.storagesystem.api.storage.folders;
 
 import de.storagesystem.api.storage.buckets.Bucket;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +12,7 @@ public interface StorageFolderCustomDAO {
 
     /**
      * Returns an optional containing the {@link StorageFolder} with the name from a bucket and a path, if it exists.
+     * Folders that are being deleted are skipped, so their paths can be used again immediately.
      * @param bucket The bucket where the folder is located.
      * @param path The relative Path to the folder from the bucket.
      * @return an optional containing the {@link StorageFolder}, if it exists.
@@ -51,4 +53,123 @@ public interface StorageFolderCustomDAO {
      * @see Bucket
      */
     StorageFolder getFolder(Bucket bucket, String path);
+
+    /**
+     * Resolves the {@link StorageFolder} at a path inside a bucket of a user with a single query,
+     * the bucket of the folder is loaded with it. Folders that are being deleted are not resolved.
+     *
+     * @param userId The id of the user who created the bucket.
+     * @param bucketName The name of the bucket.
+     * @param path The path to the folder, null or "/" for the root folder of the bucket.
+     * @return an optional containing the {@link StorageFolder}, if the bucket and the folder exist.
+     */
+    Optional<StorageFolder> resolveFolder(long userId, String bucketName, String path);
+
+    /**
+     * Loads the {@link StorageFolder} with the id together with its bucket, unless it is being deleted.
+     *
+     * @param id The id of the folder.
+     * @return an optional containing the {@link StorageFolder}, if it exists and is not being deleted.
+     */
+    Optional<StorageFolder> findByIdWithBucket(long id);
+
+    /**
+     * Loads a page of the {@link StorageFolder}s inside a parent folder, ordered by name.
+     * @param parent The folder to list.
+     * @param page The page to load, later pages have to skip all previous rows.
+     * @param limit The maximum amount of folders to load.
+     * @return the folders of the page.
+     */
+    List<StorageFolder> findPageByParent(StorageFolder parent, int page, int limit);
+
+    /**
+     * Loads the {@link StorageFolder}s inside a parent folder whose name follows the given name, ordered by name.
+     * The query seeks on the (parent, name) index, so every page costs the same.
+     * @param parent The folder to list.
+     * @param afterName The name of the last folder of the previous page, or null to start at the first folder.
+     * @param limit The maximum amount of folders to load.
+     * @return the folders following the given name.
+     */
+    List<StorageFolder> findPageByParentAfter(StorageFolder parent, String afterName, int limit);
+
+    /**
+     * Counts the {@link StorageFolder}s inside a parent folder.
+     * @param parent The folder to count the folders of.
+     * @return the amount of folders inside the folder.
+     */
+    long countByParent(StorageFolder parent);
+
+    /**
+     * Atomically adds the deltas to the counters of a {@link StorageFolder} and its {@link Bucket} in one transaction.
+     *
+     * @param folder The folder whose content changed.
+     * @param files The number of added files, negative for removed files.
+     * @param folders The number of added folders, negative for removed folders.
+     * @param bytes The number of added bytes, negative for removed bytes.
+     */
+    void updateCounters(StorageFolder folder, long files, long folders, long bytes);
+
+    /**
+     * Inserts a new folder and adds it to the counters of its parent folder and bucket in one transaction.
+     *
+     * @param folder The new folder, with its bucket and parent folder set.
+     * @return the inserted folder.
+     */
+    StorageFolder create(StorageFolder folder);
+
+    /**
+     * Calculates the counters of the folders created before the counters were maintained from their content.
+     * Folders whose counters are initialized are not changed, so later calls do nothing.
+     *
+     * @return the number of folders whose counters were calculated.
+     */
+    int initializeCounters();
+
+    /**
+     * Loads the ids of the folders anywhere inside a folder that is being deleted with an index range scan
+     * on their path. Folders created at the same path after the deletion started are not loaded.
+     *
+     * @param bucketId The id of the bucket of the folder.
+     * @param path The path of the folder.
+     * @param limit The maximum number of ids to load.
+     * @return the ids of the folders inside the folder.
+     */
+    List<Long> findIdsInside(long bucketId, String path, int limit);
+
+    /**
+     * Deletes folders with a single statement and removes them from the counters of their buckets.
+     * Folders inside them are detached first, so the folders of a tree can be deleted in any order.
+     *
+     * @param ids The ids of the folders.
+     */
+    void deleteByIds(List<Long> ids);
+
+    /**
+     * Loads the folders that are detached from their parent, but are not the root folder of their bucket.
+     * These are the folders whose deletion has been started.
+     *
+     * @return the detached folders together with their buckets and the creators of the buckets.
+     */
+    List<StorageFolder> findDetached();
+
+    /**
+     * Marks a folder and everything inside it as being deleted, detaches the folder from its parent folder
+     * and removes it from the counters of the parent folder in one transaction, so it is no longer listed or
+     * resolved while it is being deleted. A folder that is already detached is only marked.
+     *
+     * @param folder The folder.
+     */
+    void detach(StorageFolder folder);
+
+    /**
+     * Moves a folder to another parent folder and renames it in one transaction. The paths of everything
+     * inside the folder are rewritten with one update per table, instead of loading and updating every item.
+     * Subfolders that are being deleted and their files keep their paths, so their deletion still finds them.
+     *
+     * @param folder The folder to move.
+     * @param parent The new parent folder, in the bucket of the folder.
+     * @param name The new name of the folder.
+     * @return the new path of the folder.
+     */
+    String move(StorageFolder folder, StorageFolder parent, String name);
 }
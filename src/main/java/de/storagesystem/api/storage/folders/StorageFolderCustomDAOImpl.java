@@ -2,10 +2,15 @@ package de.storagesystem.api.storage.folders;
 
 import de.storagesystem.api.storage.buckets.Bucket;
 import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
+import de.storagesystem.api.util.Util;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,7 +30,8 @@ public class StorageFolderCustomDAOImpl implements StorageFolderCustomDAO {
      */
     @Override
     public Optional<StorageFolder> findByPath(Bucket bucket, String path) {
-        return em.createQuery("SELECT b FROM StorageFolder b WHERE b.bucket.id = :bucketId AND b.path = :path", StorageFolder.class)
+        return em.createQuery("SELECT b FROM StorageFolder b WHERE b.bucket.id = :bucketId AND b.path = :path " +
+                        "AND b.deleting = false", StorageFolder.class)
                 .setParameter("bucketId", bucket.getId())
                 .setParameter("path", path)
                 .getResultStream()
@@ -59,4 +65,251 @@ public class StorageFolderCustomDAOImpl implements StorageFolderCustomDAO {
         if(path == null || path.equalsIgnoreCase("/")) return bucket.getRootFolder();
         return getFolderByPath(bucket, path);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StorageFolder> resolveFolder(long userId, String bucketName, String path) {
+        TypedQuery<StorageFolder> query = (path == null || path.equalsIgnoreCase("/"))
+                ? em.createQuery("SELECT f FROM Bucket b JOIN b.rootFolder f JOIN FETCH f.bucket " +
+                        "WHERE b.creator.id = :userId AND b.name = :bucketName", StorageFolder.class)
+                : em.createQuery("SELECT f FROM StorageFolder f JOIN FETCH f.bucket b " +
+                        "WHERE b.creator.id = :userId AND b.name = :bucketName AND f.path = :path " +
+                        "AND f.deleting = false", StorageFolder.class)
+                        .setParameter("path", path);
+        return query
+                .setParameter("userId", userId)
+                .setParameter("bucketName", bucketName)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<StorageFolder> findByIdWithBucket(long id) {
+        return em.createQuery("SELECT f FROM StorageFolder f JOIN FETCH f.bucket WHERE f.id = :id " +
+                        "AND f.deleting = false", StorageFolder.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFolder> findPageByParent(StorageFolder parent, int page, int limit) {
+        return em.createQuery("SELECT i FROM StorageFolder i WHERE i.parent.id = :parentId ORDER BY i.name", StorageFolder.class)
+                .setParameter("parentId", parent.getId())
+                .setFirstResult(page * limit)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFolder> findPageByParentAfter(StorageFolder parent, String afterName, int limit) {
+        if(afterName == null) return findPageByParent(parent, 0, limit);
+        return em.createQuery("SELECT i FROM StorageFolder i WHERE i.parent.id = :parentId AND i.name > :name ORDER BY i.name", StorageFolder.class)
+                .setParameter("parentId", parent.getId())
+                .setParameter("name", afterName)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countByParent(StorageFolder parent) {
+        return em.createQuery("SELECT COUNT(i) FROM StorageFolder i WHERE i.parent.id = :parentId", Long.class)
+                .setParameter("parentId", parent.getId())
+                .getSingleResult();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void updateCounters(StorageFolder folder, long files, long folders, long bytes) {
+        em.createQuery("UPDATE StorageFolder f SET f.fileCount = f.fileCount + :files, " +
+                        "f.folderCount = f.folderCount + :folders, f.totalBytes = f.totalBytes + :bytes WHERE f.id = :id")
+                .setParameter("files", files)
+                .setParameter("folders", folders)
+                .setParameter("bytes", bytes)
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+        em.createQuery("UPDATE Bucket b SET b.objectCount = b.objectCount + :files, " +
+                        "b.folderCount = b.folderCount + :folders, b.totalBytes = b.totalBytes + :bytes WHERE b.id = :id")
+                .setParameter("files", files)
+                .setParameter("folders", folders)
+                .setParameter("bytes", bytes)
+                .setParameter("id", folder.getBucket().getId())
+                .executeUpdate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public StorageFolder create(StorageFolder folder) {
+        em.persist(folder);
+        updateCounters(folder.getParent(), 0, 1, 0);
+        return folder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int initializeCounters() {
+        int folders = em.createQuery("UPDATE StorageFolder f SET f.folderCount = 0, " +
+                        "f.fileCount = (SELECT COUNT(i) FROM StorageFile i WHERE i.parent = f AND i.storedPath IS NOT NULL), " +
+                        "f.totalBytes = (SELECT COALESCE(SUM(i.size), 0) FROM StorageFile i WHERE i.parent = f AND i.storedPath IS NOT NULL) " +
+                        "WHERE f.countersInitialized = false")
+                .executeUpdate();
+        if(folders == 0) return 0;
+
+        // MySQL cannot update a table with a subquery on the same table, so the child folders are counted first
+        List<Object[]> children = em.createQuery("SELECT c.parent.id, COUNT(c) FROM StorageFolder c " +
+                        "WHERE c.parent.countersInitialized = false GROUP BY c.parent.id", Object[].class)
+                .getResultList();
+        for(Object[] child : children) {
+            em.createQuery("UPDATE StorageFolder f SET f.folderCount = :folders WHERE f.id = :id")
+                    .setParameter("folders", child[1])
+                    .setParameter("id", child[0])
+                    .executeUpdate();
+        }
+        em.createQuery("UPDATE StorageFolder f SET f.countersInitialized = true WHERE f.countersInitialized = false")
+                .executeUpdate();
+        return folders;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Long> findIdsInside(long bucketId, String path, int limit) {
+        return em.createQuery("SELECT f.id FROM StorageFolder f WHERE f.bucket.id = :bucketId " +
+                        "AND f.path LIKE :pattern ESCAPE '!' AND f.deleting = true", Long.class)
+                .setParameter("bucketId", bucketId)
+                .setParameter("pattern", Util.descendantPattern(path))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void deleteByIds(List<Long> ids) {
+        if(ids.isEmpty()) return;
+        List<Object[]> buckets = em.createQuery("SELECT f.bucket.id, COUNT(f) FROM StorageFolder f " +
+                        "WHERE f.id IN :ids GROUP BY f.bucket.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for(Object[] bucket : buckets) {
+            em.createQuery("UPDATE Bucket b SET b.folderCount = b.folderCount - :folders WHERE b.id = :id")
+                    .setParameter("folders", bucket[1])
+                    .setParameter("id", bucket[0])
+                    .executeUpdate();
+        }
+        em.createQuery("UPDATE StorageFolder f SET f.parent = NULL WHERE f.parent.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        em.createQuery("DELETE FROM StorageFolder f WHERE f.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<StorageFolder> findDetached() {
+        return em.createQuery("SELECT f FROM StorageFolder f JOIN FETCH f.bucket b JOIN FETCH b.creator WHERE f.parent IS NULL " +
+                        "AND f.id NOT IN (SELECT r.rootFolder.id FROM Bucket r WHERE r.rootFolder IS NOT NULL)", StorageFolder.class)
+                .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void detach(StorageFolder folder) {
+        em.createQuery("UPDATE StorageFolder f SET f.deleting = true WHERE f.bucket.id = :bucketId " +
+                        "AND (f.id = :id OR f.path LIKE :pattern ESCAPE '!')")
+                .setParameter("bucketId", folder.getBucket().getId())
+                .setParameter("id", folder.getId())
+                .setParameter("pattern", Util.descendantPattern(folder.getPath()))
+                .executeUpdate();
+        if(folder.getParent() == null) return;
+        em.createQuery("UPDATE StorageFolder f SET f.folderCount = f.folderCount - 1 WHERE f.id = :id")
+                .setParameter("id", folder.getParent().getId())
+                .executeUpdate();
+        em.createQuery("UPDATE StorageFolder f SET f.parent = NULL WHERE f.id = :id")
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public String move(StorageFolder folder, StorageFolder parent, String name) {
+        String oldPath = folder.getPath();
+        String newPath = parent.getPath() + "/" + name;
+        long bucketId = folder.getBucket().getId();
+
+        // Replaces the prefix of the paths, the rest starts at the slash after the old path. Subfolders that are
+        // being deleted keep their paths, as their deletion selects their content by the path they had when detached
+        Map<String, String> notDeleting = Map.of(
+                "StorageFolder", "i.deleting = false",
+                "StorageFile", "i.parent.id NOT IN " +
+                        "(SELECT d.id FROM StorageFolder d WHERE d.bucket.id = :bucketId AND d.deleting = true)");
+        for(Map.Entry<String, String> entity : notDeleting.entrySet()) {
+            em.createQuery("UPDATE " + entity.getKey() + " i SET i.path = CONCAT(:newPath, SUBSTRING(i.path, :rest)) " +
+                            "WHERE i.bucket.id = :bucketId AND i.path LIKE :pattern ESCAPE '!' AND " + entity.getValue())
+                    .setParameter("newPath", newPath)
+                    .setParameter("rest", oldPath.length() + 1)
+                    .setParameter("bucketId", bucketId)
+                    .setParameter("pattern", Util.descendantPattern(oldPath))
+                    .executeUpdate();
+        }
+        em.createQuery("UPDATE StorageFolder f SET f.path = :newPath, f.name = :name, f.parent = :parent WHERE f.id = :id")
+                .setParameter("newPath", newPath)
+                .setParameter("name", name)
+                .setParameter("parent", parent)
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+
+        if(!parent.getId().equals(folder.getParent().getId())) {
+            moveFolderCount(folder.getParent(), -1);
+            moveFolderCount(parent, 1);
+        }
+        return newPath;
+    }
+
+    /**
+     * Adds a delta to the number of folders in a folder, without changing the counters of its bucket.
+     * @param folder The folder.
+     * @param delta The number of added folders, negative for removed folders.
+     */
+    private void moveFolderCount(StorageFolder folder, long delta) {
+        em.createQuery("UPDATE StorageFolder f SET f.folderCount = f.folderCount + :delta WHERE f.id = :id")
+                .setParameter("delta", delta)
+                .setParameter("id", folder.getId())
+                .executeUpdate();
+    }
 }
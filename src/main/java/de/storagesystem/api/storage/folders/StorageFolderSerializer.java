@@ -29,8 +29,9 @@ public class StorageFolderSerializer extends JsonSerializer<StorageFolder> {
         jsonGenerator.writeNumberField("id", folder.getId());
         jsonGenerator.writeStringField("name", folder.getOriginalName());
         jsonGenerator.writeStringField("path", folder.getPath());
-        jsonGenerator.writeNumberField("folders", folder.getFolders().size());
-        jsonGenerator.writeNumberField("files", folder.getFiles().size());
+        jsonGenerator.writeNumberField("folders", folder.getFolderCount());
+        jsonGenerator.writeNumberField("files", folder.getFileCount());
+        jsonGenerator.writeNumberField("size", folder.getTotalBytes());
         jsonGenerator.writeEndObject();
     }
 }
\ No newline at end of file
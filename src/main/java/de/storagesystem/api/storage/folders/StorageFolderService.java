@@ -28,23 +28,42 @@ public interface StorageFolderService {
     ResponseEntity<ObjectNode> createFolder(Long userId, String bucketName, String parentDirectoryPath, String bucketDirectoryName);
 
     /**
-     * Deletes a directory from a user bucket
+     * Deletes a directory with everything inside it from a user bucket.
+     * The directory disappears immediately, its content is deleted in the background.
      * @param userId        The id of the user.
      * @param bucketName    The name of the bucket.
      * @param directoryPath The path of the directory.
-     * @return true if the bucket was deleted successfully, false otherwise.
+     * @return the progress of the deletion.
      */
     ResponseEntity<ObjectNode> deleteFolder(Long userId, String bucketName, String directoryPath);
 
+    /**
+     * Load the progress of the deletion of a directory.
+     * @param userId        The id of the user.
+     * @param directoryPath The path of the deleted directory.
+     * @return the progress of the deletion.
+     */
+    ResponseEntity<ObjectNode> loadFolderDeletion(Long userId, String directoryPath);
+
     /**
      * Load the folders of a parent folder or bucket from a user.
      * @param userId The id of the user.
      * @param bucket The name of the bucket.
      * @param pathToParent The path of the parent folder.
-     * @param page The page to load.
+     * @param cursor The cursor returned by the previous listing, or null to load the page instead.
+     * @param page The page to load, if no cursor is given.
      * @param limit The limit of folders to load per page.
      */
-    ResponseEntity<ObjectNode> loadFolders(Long userId, String bucket, String pathToParent, int page, int limit);
-
+    ResponseEntity<ObjectNode> loadFolders(Long userId, String bucket, String pathToParent, String cursor, int page, int limit);
 
+    /**
+     * Moves a directory to another parent directory in its bucket and renames it.
+     * @param userId        The id of the user.
+     * @param bucketName    The name of the bucket.
+     * @param directoryPath The path of the directory.
+     * @param parentPath    The path of the new parent directory, or null to keep the parent.
+     * @param name          The new name of the directory, or null to keep the name.
+     * @return the new path of the directory.
+     */
+    ResponseEntity<ObjectNode> moveFolder(Long userId, String bucketName, String directoryPath, String parentPath, String name);
 }
@@ -1,31 +1,44 @@
 package de.storagesystem.api.storage.folders;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.storagesystem.api.exceptions.StorageEntityAlreadyExistsException;
 import de.storagesystem.api.exceptions.StorageEntityCreationException;
 import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
 import de.storagesystem.api.exceptions.UserNotFoundException;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
 import de.storagesystem.api.storage.StorageItem;
 import de.storagesystem.api.storage.buckets.Bucket;
 import de.storagesystem.api.storage.buckets.BucketDAO;
 import de.storagesystem.api.storage.buckets.BucketServiceImpl;
 import de.storagesystem.api.storage.StorageService;
 import de.storagesystem.api.storage.files.StorageFile;
+import de.storagesystem.api.storage.files.StorageFileCustomDAO;
 import de.storagesystem.api.storage.files.StorageFileDAO;
 import de.storagesystem.api.servers.StorageServerDAO;
+import de.storagesystem.api.servers.StorageServerRegistry;
 import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
 import de.storagesystem.api.users.UserDAO;
 import de.storagesystem.api.util.ResponseBuilder;
 import de.storagesystem.api.util.ResponseState;
 import de.storagesystem.api.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
 /**
@@ -39,30 +52,86 @@ public class StorageFolderServiceImpl extends StorageService implements StorageF
      */
     private static final Logger logger = LogManager.getLogger(BucketServiceImpl.class);
 
+    private final StorageServerConfigProperty storageServerConfigProperties;
+
+    /**
+     * The registry that counts the storage freed by deleted files.
+     */
+    private final StorageServerRegistry storageServerRegistry;
+
+    /**
+     * The progress of the folder deletions by the id of the user and the path of the folder.
+     */
+    private final Cache<String, FolderDeletion> folderDeletions = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    /**
+     * The executor that deletes the content of deleted folders in the background.
+     */
+    private final ExecutorService folderDeletionExecutor = Executors.newSingleThreadExecutor();
 
     /**
      * Instantiates a new Storage folder service.
+     * @param storageServerConfigProperties the configuration of this server
+     * @param storageServerRegistry the registry that counts the storage freed by deleted files
      * @param storageServerRepository the storage server repository
      * @param bucketFolderRepository the bucket folder repository
      * @param storageFileRepository the storage file repository
      * @param bucketRepository the bucket repository
      * @param userRepository the user repository
+     * @param userCache the user cache
+     * @param folderPathCache the folder path cache
      */
     public StorageFolderServiceImpl(
+            StorageServerConfigProperty storageServerConfigProperties,
+            StorageServerRegistry storageServerRegistry,
             StorageServerDAO storageServerRepository,
             StorageFolderDAO bucketFolderRepository,
             StorageFileDAO storageFileRepository,
             BucketDAO bucketRepository,
-            UserDAO userRepository) {
-        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository);
+            UserDAO userRepository,
+            UserCache userCache,
+            FolderPathCache folderPathCache) {
+        super(storageServerRepository, bucketFolderRepository, storageFileRepository, bucketRepository, userRepository, userCache, folderPathCache);
+        this.storageServerConfigProperties = storageServerConfigProperties;
+        this.storageServerRegistry = storageServerRegistry;
     }
 
     /**
      * {@inheritDoc}
+     * Calculates the counters of folders created before the counters were maintained
+     * and resumes the deletions of folders that were interrupted by a restart.
      */
     @Override
+    @PostConstruct
     public void init() {
         super.init();
+        try {
+            int initialized = bucketFolderRepository.initializeCounters();
+            if(initialized > 0) logger.info("Initialized the counters of " + initialized + " folders");
+        } catch (RuntimeException e) {
+            logger.error("Could not initialize the counters of folders", e);
+        }
+        try {
+            for(StorageFolder folder : bucketFolderRepository.findDetached()) {
+                logger.info("Resuming deletion of folder " + folder.getPath());
+                // Folders detached before they were marked are marked now
+                bucketFolderRepository.detach(folder);
+                startFolderDeletion(folder.getBucket().getCreator().getId(), folder);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not resume the deletion of folders", e);
+        }
+    }
+
+    /**
+     * Stops the deletion of folders, interrupted deletions are resumed on the next start.
+     */
+    @PreDestroy
+    public void destroy() {
+        folderDeletionExecutor.shutdownNow();
     }
 
     /**
@@ -71,22 +140,19 @@ public class StorageFolderServiceImpl extends StorageService implements StorageF
     @Override
     public ResponseEntity<ObjectNode> createFolder(Long userId, String bucketName, String parentFolderPath, String folderName)
             throws StorageEntityNotFoundException, StorageEntityCreationException, UserNotFoundException {
-        User user = userRepository
-                .findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
-        Bucket bucketObj = bucketRepository
-                .getBucketByName(user, bucketName);
-        StorageFolder parentObj = bucketFolderRepository
-                .getFolder(bucketObj, parentFolderPath);
+        User user = getUser(userId);
+        StorageFolder parentObj = resolveFolder(user, bucketName, parentFolderPath);
+        Bucket bucketObj = parentObj.getBucket();
 
         // Check if the folder already exists
         boolean existsInDatabase = bucketFolderRepository.exists(bucketObj, parentObj.getPath(), folderName);
         if(!existsInDatabase) {
             // Create the folder in the database if it does not exist
             StorageFolder folder = new StorageFolder(folderName, user);
-            parentObj.addFolder(folder);
+            folder.setBucket(bucketObj);
+            folder.setParent(parentObj);
 
-            bucketFolderRepository.save(folder);
-            bucketFolderRepository.save(parentObj);
+            bucketFolderRepository.create(folder);
             logger.info("Created folder: " + parentObj.getPath() + "/" + folderName);
 
             ObjectNode response = new ResponseBuilder()
@@ -105,27 +171,170 @@ public class StorageFolderServiceImpl extends StorageService implements StorageF
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<ObjectNode> deleteFolder(Long userId, String bucketName, String folderPath) {
-        return null;
+    public ResponseEntity<ObjectNode> deleteFolder(Long userId, String bucketName, String folderPath)
+            throws StorageEntityNotFoundException, UserNotFoundException {
+        User user = getUser(userId);
+        FolderDeletion deletion = folderDeletions.getIfPresent(userId + ":" + folderPath);
+        if(deletion != null && deletion.getState() == FolderDeletion.State.FAILED) {
+            // A folder that is being deleted is not resolved anymore, so a failed deletion is found by its path
+            Bucket bucket = bucketRepository.getBucketByName(user, bucketName);
+            Optional<StorageFolder> detached = bucketFolderRepository.findDetached().stream()
+                    .filter(folder -> folder.getBucket().getId().equals(bucket.getId()) && folder.getPath().equals(folderPath))
+                    .findFirst();
+            if(detached.isPresent()) {
+                deletion = startFolderDeletion(userId, detached.get());
+                logger.info("Restarted deletion of folder " + folderPath);
+                ObjectNode response = new ResponseBuilder()
+                        .add("deletion", deletion.toJson())
+                        .build(ResponseState.OK, "Folder deletion started.");
+                return ResponseEntity.accepted().body(response);
+            }
+        }
+
+        StorageFolder folder = resolveFolder(user, bucketName, folderPath);
+        if(folder.getParent() == null) {
+            throw new IllegalArgumentException("The root folder of a bucket cannot be deleted");
+        }
+
+        // Detach the folder first, so it disappears from its parent and is not resolved while its content is deleted
+        bucketFolderRepository.detach(folder);
+        folderPathCache.invalidate(folder.getBucket().getId(), folder.getPath());
+        deletion = startFolderDeletion(userId, folder);
+        logger.info("Started deletion of folder " + folder.getPath());
+
+        ObjectNode response = new ResponseBuilder()
+                .add("deletion", deletion.toJson())
+                .build(ResponseState.OK, "Folder deletion started.");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<ObjectNode> loadFolderDeletion(Long userId, String folderPath)
+            throws StorageEntityNotFoundException {
+        FolderDeletion deletion = folderDeletions.getIfPresent(userId + ":" + folderPath);
+        if(deletion == null) throw new StorageEntityNotFoundException("Folder deletion not found", "Deletion of " + folderPath);
+
+        ObjectNode response = new ResponseBuilder()
+                .add("deletion", deletion.toJson())
+                .build(ResponseState.OK);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts the deletion of the content of a detached folder in the background.
+     * @param userId the id of the user who created the bucket of the folder
+     * @param folder the detached folder
+     * @return the progress of the deletion
+     */
+    private FolderDeletion startFolderDeletion(long userId, StorageFolder folder) {
+        FolderDeletion deletion = new FolderDeletion(folder.getPath());
+        folderDeletions.put(userId + ":" + folder.getPath(), deletion);
+        folderDeletionExecutor.execute(() -> deleteFolderTree(folder, deletion));
+        return deletion;
+    }
+
+    /**
+     * Deletes a detached folder with everything inside it, in batches of set-based statements that select
+     * the content by the prefix of its path. Files are marked as deleted and removed from their storage servers
+     * in the background, grouped by storage server. Folders are deleted afterwards, the folder itself last.
+     * @param folder the detached folder
+     * @param deletion the progress of the deletion
+     */
+    private void deleteFolderTree(StorageFolder folder, FolderDeletion deletion) {
+        try {
+            int batchSize = storageServerConfigProperties.getDeletion().getFolderBatchSize();
+            long bucketId = folder.getBucket().getId();
+
+            List<Long> files;
+            while(!(files = storageFileRepository.findIdsInside(bucketId, folder.getPath(), batchSize)).isEmpty()) {
+                StorageFileCustomDAO.DeletedBatch batch = storageFileRepository.markDeleted(files);
+                batch.freedStorage().forEach(storageServerRegistry::free);
+                deletion.addFiles(files.size(), batch.bytes());
+            }
+            // Uploads into the folder that started before it was detached would keep the folders from being deleted
+            storageFileRepository.deleteReservedInside(bucketId, folder.getPath());
+
+            List<Long> folders;
+            while(!(folders = bucketFolderRepository.findIdsInside(bucketId, folder.getPath(), batchSize)).isEmpty()) {
+                bucketFolderRepository.deleteByIds(folders);
+                deletion.addFolders(folders.size());
+            }
+            bucketFolderRepository.deleteByIds(List.of(folder.getId()));
+            deletion.addFolders(1);
+            deletion.done();
+            logger.info("Deleted folder " + folder.getPath());
+        } catch (RuntimeException e) {
+            logger.error("Could not delete folder " + folder.getPath(), e);
+            deletion.failed(e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<ObjectNode> moveFolder(Long userId, String bucketName, String folderPath, String parentPath, String name)
+            throws StorageEntityNotFoundException, UserNotFoundException {
+        User user = getUser(userId);
+        StorageFolder folder = resolveFolder(user, bucketName, folderPath);
+        if(folder.getParent() == null) throw new IllegalArgumentException("The root folder of a bucket cannot be moved");
+
+        StorageFolder parent = (parentPath != null) ? resolveFolder(user, bucketName, parentPath) : folder.getParent();
+        String folderName = (name != null) ? name : folder.getOriginalName();
+        if(parent.getPath().equals(folder.getPath()) || parent.getPath().startsWith(folder.getPath() + "/")) {
+            throw new IllegalArgumentException("A folder cannot be moved into itself");
+        }
+        if(bucketFolderRepository.exists(parent.getBucket(), parent.getPath(), folderName)) {
+            throw new StorageEntityAlreadyExistsException("Folder already exists");
+        }
+
+        String oldPath = folder.getPath();
+        String newPath;
+        try {
+            newPath = bucketFolderRepository.move(folder, parent, folderName);
+        } catch (DataIntegrityViolationException e) {
+            throw new StorageEntityAlreadyExistsException("Folder already exists");
+        }
+        folderPathCache.invalidate(folder.getBucket().getId(), oldPath);
+        logger.info("Moved folder " + oldPath + " to " + newPath);
+
+        ObjectNode response = new ResponseBuilder()
+                .setStatus(ResponseState.OK)
+                .setMessage("Folder successfully moved.")
+                .add("name", folderName)
+                .add("path", newPath)
+                .build();
+        return ResponseEntity.ok(response);
     }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<ObjectNode> loadFolders(Long userId, String bucket, String pathToParent, int page, int limit)
+    public ResponseEntity<ObjectNode> loadFolders(Long userId, String bucket, String pathToParent, String cursor, int page, int limit)
             throws StorageEntityNotFoundException, StorageEntityCreationException, UserNotFoundException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-        Bucket bucketObj = bucketRepository.findByName(user, bucket)
-                .orElseThrow(() -> new StorageEntityNotFoundException("Bucket not found"));
-        StorageFolder parentObj = bucketFolderRepository.getFolder(bucketObj, pathToParent);
+        User user = getUser(userId);
+        StorageFolder parentObj = resolveFolder(user, bucket, pathToParent);
+
+        if(cursor != null) {
+            logger.info("Load folders after cursor with limit " + limit
+                    + " of bucket " + bucket + " for user " + user.getFirstname() + " " + user.getLastname());
+
+            // Seek behind the last folder of the previous listing, one more folder tells if there are further folders
+            List<StorageFolder> folders = bucketFolderRepository
+                    .findPageByParentAfter(parentObj, Util.decodeCursor(cursor), limit + 1);
+            return ResponseEntity.ok(Util.createStorageItemSlice(folders, limit));
+        }
 
         logger.info("Load folder page " + page + " with limit " + limit
                 + " of bucket " + bucket + " for user " + user.getFirstname() + " " + user.getLastname());
 
-        // Fetch all folders of a bucket
-        List<StorageFolder> folders = parentObj.getFolders();
-        ObjectNode response = Util.createStorageItemList(folders, page, limit);
+        List<StorageFolder> folders = bucketFolderRepository.findPageByParent(parentObj, page, limit);
+        long total = bucketFolderRepository.countByParent(parentObj);
+        ObjectNode response = Util.createStorageItemList(folders, total, page, limit);
         return ResponseEntity.ok(response);
     }
 
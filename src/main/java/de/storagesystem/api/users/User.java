@@ -62,11 +62,10 @@ public class User {
 
 
     /**
-     * Instantiates a new User.
-     * @throws NoSuchAlgorithmException if AES is not supported to generate the secret key
+     * Instantiates a new User without a secret key. Used by JPA to load users and by Jackson to read users
+     * from requests, so it must not generate a key, see {@link #initSecretKey()}.
      */
-    public User() throws NoSuchAlgorithmException {
-        this.secretKey = KeyGenerator.getInstance("AES").generateKey();
+    public User() {
     }
 
     /**
@@ -80,7 +79,7 @@ public class User {
         this.firstname = firstname;
         this.lastname = lastname;
         this.email = email;
-        this.secretKey = KeyGenerator.getInstance("AES").generateKey();
+        this.secretKey = generateSecretKey();
     }
 
     /**
@@ -163,6 +162,23 @@ public class User {
         this.secretKey = secretKey;
     }
 
+    /**
+     * Generates the secret key of a new user, if the user has none yet.
+     * @throws NoSuchAlgorithmException if AES is not supported to generate the secret key
+     */
+    public void initSecretKey() throws NoSuchAlgorithmException {
+        if(secretKey == null) secretKey = generateSecretKey();
+    }
+
+    /**
+     * Generates a new secret key to encrypt the data of a user.
+     * @return the secret key
+     * @throws NoSuchAlgorithmException if AES is not supported to generate the secret key
+     */
+    private static SecretKey generateSecretKey() throws NoSuchAlgorithmException {
+        return KeyGenerator.getInstance("AES").generateKey();
+    }
+
     /**
      * Updaes the user with the data of the given {@link User}
      * @param user the user to update the data from
@@ -194,7 +210,11 @@ public class User {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         User user = (User) o;
-        return id == user.id && firstname.equals(user.firstname) && lastname.equals(user.lastname) && email.equals(user.email) && secretKey.equals(user.secretKey);
+        return id == user.id
+                && Objects.equals(firstname, user.firstname)
+                && Objects.equals(lastname, user.lastname)
+                && Objects.equals(email, user.email)
+                && Objects.equals(secretKey, user.secretKey);
     }
 
     /**
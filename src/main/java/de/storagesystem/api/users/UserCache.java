@@ -0,0 +1,80 @@
+package de.storagesystem.api.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.storagesystem.api.properties.CacheProperty;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * A short-lived cache of users by id, so that a request resolves its user at most once instead of once
+ * while authenticating and once more in the service. The cached users are detached from the persistence
+ * context, so they can be used to query and reference other entities, but not to load their lazy
+ * associations. Users are invalidated explicitly when they are updated or deleted.
+ *
+ * @author Simon Brebeck
+ */
+@Component
+public class UserCache {
+
+    /**
+     * The {@link UserDAO} user repository
+     */
+    private final UserDAO userRepository;
+
+    /**
+     * The cached users by id, or null if users are not cached.
+     */
+    private final Cache<Long, User> users;
+
+    /**
+     * Instantiates a new UserCache.
+     *
+     * @param storageServerConfigProperties the configuration of this server
+     * @param userRepository the user repository
+     */
+    public UserCache(StorageServerConfigProperty storageServerConfigProperties, UserDAO userRepository) {
+        this.userRepository = userRepository;
+        CacheProperty cache = storageServerConfigProperties.getCache();
+        this.users = cache.getUserMaximumSize() > 0
+                ? Caffeine.newBuilder()
+                    .maximumSize(cache.getUserMaximumSize())
+                    .expireAfterWrite(cache.getUserTtl())
+                    .recordStats()
+                    .build()
+                : null;
+    }
+
+    /**
+     * Returns the user with the given id from the cache, or loads it from the database.
+     *
+     * @param id the id of the user
+     * @return the user, or an empty {@link Optional} if the user does not exist
+     */
+    public Optional<User> findById(long id) {
+        if(users == null) return userRepository.findById(id);
+        // Missing users are not cached, so a user created afterwards is found immediately
+        return Optional.ofNullable(users.get(id, key -> userRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Removes a user from the cache, so that the next request loads it from the database again.
+     *
+     * @param id the id of the user
+     */
+    public void invalidate(long id) {
+        if(users != null) users.invalidate(id);
+    }
+
+    /**
+     * Getter for the statistics of the cache.
+     *
+     * @return the {@link CacheStats}, or empty statistics if users are not cached
+     */
+    public CacheStats getStats() {
+        return users != null ? users.stats() : CacheStats.empty();
+    }
+}
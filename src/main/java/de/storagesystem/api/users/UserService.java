@@ -7,8 +7,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.storagesystem.api.auth.Authentication;
 import de.storagesystem.api.auth.RSAAuthentication;
+import de.storagesystem.api.auth.VerifiedTokenCache;
 import de.storagesystem.api.exceptions.InvalidTokenException;
+import de.storagesystem.api.exceptions.PermissionDeniedException;
 import de.storagesystem.api.exceptions.UserNotFoundException;
+import de.storagesystem.api.properties.CacheProperty;
 import de.storagesystem.api.properties.StorageServerConfigProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -46,17 +49,25 @@ public class UserService {
      */
     private final UserDAO userRepository;
 
+    /**
+     * The {@link UserCache} of recently resolved users
+     */
+    private final UserCache userCache;
+
     private final StorageServerConfigProperty storageServerConfigProperties;
 
     /**
      * Instantiates a new User service.
      * @param userRepository the user repository
+     * @param userCache the user cache
      */
     @Autowired
     public UserService(
             StorageServerConfigProperty storageServerConfigProperties,
-            UserDAO userRepository) {
+            UserDAO userRepository,
+            UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
         this.storageServerConfigProperties = storageServerConfigProperties;
     }
 
@@ -65,7 +76,11 @@ public class UserService {
         String issuer = storageServerConfigProperties.getStorage().getIssuer();
         String publicKeyPath = storageServerConfigProperties.getStorage().getPublicKey();
         String privateKeyPath = storageServerConfigProperties.getStorage().getPrivateKey();
-        this.auth = new RSAAuthentication(issuer, publicKeyPath, privateKeyPath);
+        CacheProperty cache = storageServerConfigProperties.getCache();
+        VerifiedTokenCache tokenCache = cache.getTokenMaximumSize() > 0
+                ? new VerifiedTokenCache(cache.getTokenMaximumSize(), cache.getTokenMaxTtl())
+                : null;
+        this.auth = new RSAAuthentication(issuer, publicKeyPath, privateKeyPath, tokenCache);
     }
 
     /**
@@ -111,6 +126,7 @@ public class UserService {
             Map<String, Claim> claims = content.getClaims();
             if(Objects.equals(claims.get("sub").asLong(), id)) {
                 userRepository.deleteById(id);
+                userCache.invalidate(id);
                 response.put("status", "ok");
                 response.put("message", "User deleted");
             } else {
@@ -149,6 +165,8 @@ public class UserService {
         if(repoUserOpt.isPresent()) {
             User repoUser = repoUserOpt.get();
             repoUser.update(user);
+            userRepository.save(repoUser);
+            userCache.invalidate(repoUser.getId());
             response.put("status", "ok");
             response.put("userId", repoUser.getId());
         } else {
@@ -167,7 +185,10 @@ public class UserService {
         logger.info("Creating user: " + user.toString());
         ObjectNode response = new ObjectMapper().createObjectNode();
         try {
+            // The key is only generated for new users, never when users are loaded
+            user.initSecretKey();
             long id = userRepository.save(user).getId();
+            userCache.invalidate(id);
             String token = createTokenForUser(user);
             response.put("status", "ok");
             response.put("userId", id);
@@ -222,7 +243,8 @@ public class UserService {
         Long userId = claims.get("sub").asLong();
         Optional<User> user;
         if(userId != null) {
-            user = userRepository.findById(userId);
+            // Warms the cache for the service that handles the request
+            user = userCache.findById(userId);
         } else {
             throw new InvalidTokenException("No id in token");
         }
@@ -230,4 +252,19 @@ public class UserService {
         if(user.isEmpty()) throw new UserNotFoundException("User not found");
         return user.get().getId();
     }
+
+    /**
+     * Returns the id of the administrator with the authentication token.
+     * @param authentication The authentication header/JWT Token.
+     * @return The id of the administrator.
+     * @throws InvalidTokenException If the token is invalid.
+     * @throws PermissionDeniedException If the user is no administrator.
+     */
+    public Long getAdminId(String authentication) throws InvalidTokenException, PermissionDeniedException {
+        Long userId = getUserId(authentication);
+        if(!storageServerConfigProperties.getAdmin().getUsers().contains(userId)) {
+            throw new PermissionDeniedException("Only administrators can access this resource");
+        }
+        return userId;
+    }
 }
@@ -3,9 +3,9 @@ package de.storagesystem.api.util;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.storagesystem.api.storage.StorageItem;
 
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Stream;
 
 /**
  * @author Simon Brebeck on 15.12.2022
@@ -24,24 +24,95 @@ public class Util {
         return limit;
     }
 
-    public static <T extends StorageItem> ObjectNode createStorageItemList(List<T> content, int page, int limit) {
-        Stream<T> fileStream = content.stream()
-                .sorted(Comparator.comparing(T::getOriginalName))
-                .skip((long) page * limit)
-                .limit(limit);
-
-        long totalItems = content.size();
+    /**
+     * Creates the response for a page of storage items that was loaded with an offset.
+     * @param content the storage items of the page, ordered by name
+     * @param totalItems the total amount of storage items
+     * @param page the loaded page
+     * @param limit the maximum amount of storage items per page
+     * @return the response containing the storage items and the cursor to the next page
+     */
+    public static <T extends StorageItem> ObjectNode createStorageItemList(List<T> content, long totalItems, int page, int limit) {
         long totalPages = Util.calculateTotalPages(totalItems, limit);
         long itemCount = Util.calculateItemCount(totalPages, totalItems, page, limit);
 
         return new ResponseBuilder()
                 .setStatus(ResponseState.OK)
                 .setMessage("Storage items successfully loaded.")
-                .addArray("data", fileStream)
+                .addArray("data", content)
                 .add("count", itemCount)
                 .add("total", totalItems)
                 .add("page", page)
                 .add("pages", totalPages)
+                .add("cursor", page < totalPages - 1 ? nextCursor(content) : null)
                 .build();
     }
+
+    /**
+     * Creates the response for storage items that were loaded after a cursor.
+     * @param content the storage items following the cursor ordered by name, with at most one more item than the limit
+     * @param limit the maximum amount of storage items to return
+     * @return the response containing the storage items and the cursor to the next items, if there are any
+     */
+    public static <T extends StorageItem> ObjectNode createStorageItemSlice(List<T> content, int limit) {
+        boolean hasMore = content.size() > limit;
+        List<T> items = hasMore ? content.subList(0, limit) : content;
+
+        return new ResponseBuilder()
+                .setStatus(ResponseState.OK)
+                .setMessage("Storage items successfully loaded.")
+                .addArray("data", items)
+                .add("count", items.size())
+                .add("cursor", hasMore ? nextCursor(items) : null)
+                .build();
+    }
+
+    /**
+     * Encodes the name of the last storage item as an opaque cursor.
+     * @param content the storage items ordered by name
+     * @return the cursor pointing behind the last storage item, or null if there are no storage items
+     */
+    public static String nextCursor(List<? extends StorageItem> content) {
+        if(content.isEmpty()) return null;
+        return encodeCursor(content.get(content.size() - 1).getOriginalName());
+    }
+
+    /**
+     * Encodes a key as an opaque cursor.
+     * @param key the key the cursor points behind
+     * @return the cursor
+     */
+    public static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor to the name of the storage item it points behind.
+     * @param cursor the cursor returned by a previous listing
+     * @return the name of the last storage item of the previous listing
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public static String decodeCursor(String cursor) throws IllegalArgumentException {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a LIKE pattern that matches every path inside the given path, escaping the wildcards of the path.
+     * The pattern has to be used with {@code ESCAPE '!'}, which needs no escaping in any SQL dialect.
+     * @param path the path of the folder
+     * @return the pattern matching the paths of the items inside the folder
+     */
+    public static String descendantPattern(String path) {
+        return prefixPattern(path + "/");
+    }
+
+    /**
+     * Creates a LIKE pattern that matches every path starting with the given prefix, escaping the wildcards
+     * of the prefix. The pattern has to be used with {@code ESCAPE '!'}.
+     * @param prefix the prefix of the paths
+     * @return the pattern matching the paths starting with the prefix
+     */
+    public static String prefixPattern(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
 }
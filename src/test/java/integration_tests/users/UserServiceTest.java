@@ -5,6 +5,7 @@ import de.storagesystem.api.auth.Authentication;
 import de.storagesystem.api.exceptions.InvalidTokenException;
 import de.storagesystem.api.users.User;
 import de.storagesystem.api.users.UserDAO;
+import de.storagesystem.api.users.UserCache;
 import de.storagesystem.api.users.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -24,7 +25,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @RunWith(SpringRunner.class)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @DataJpaTest
-@ContextConfiguration(classes = {UserService.class, Authentication.class, UserDAO.class})
+@ContextConfiguration(classes = {UserService.class, UserCache.class, Authentication.class, UserDAO.class})
 public class UserServiceTest {
 
     /**
@@ -0,0 +1,73 @@
+package unit_tests.api.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import de.storagesystem.api.auth.RSAAuthentication;
+import de.storagesystem.api.auth.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    private RSAPublicKey publicKey;
+    private RSAPrivateKey privateKey;
+    private VerifiedTokenCache tokenCache;
+    private RSAAuthentication auth;
+
+    @BeforeEach
+    public void setUp() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        publicKey = (RSAPublicKey) keyPair.getPublic();
+        privateKey = (RSAPrivateKey) keyPair.getPrivate();
+        tokenCache = new VerifiedTokenCache(100, Duration.ofMinutes(5));
+        auth = new RSAAuthentication("TestIssuer", publicKey, privateKey, tokenCache);
+    }
+
+    /**
+     * Tests if a verified token is served from the cache on the next request
+     */
+    @Test
+    public void cacheVerifiedTokenTest() {
+        String token = auth.createToken(Map.of("sub", 1L));
+
+        DecodedJWT first = auth.verifyToken(token);
+        DecodedJWT second = auth.verifyToken(token);
+        assertSame(first, second);
+        assertEquals(1, tokenCache.getStats().hitCount());
+        assertEquals(1L, second.getClaim("sub").asLong());
+    }
+
+    /**
+     * Tests if modified and expired tokens are still rejected
+     */
+    @Test
+    public void rejectInvalidTokensTest() {
+        String token = auth.createToken(Map.of("sub", 1L));
+        auth.verifyToken(token);
+        String modified = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JWTVerificationException.class, () -> auth.verifyToken(modified));
+
+        String expired = JWT.create()
+                .withIssuer("TestIssuer")
+                .withClaim("sub", 1L)
+                .withExpiresAt(Instant.now().minusSeconds(1))
+                .sign(Algorithm.RSA256(publicKey, privateKey));
+        assertThrows(JWTVerificationException.class, () -> auth.verifyToken(expired));
+        assertNull(tokenCache.get(expired));
+    }
+}
@@ -0,0 +1,90 @@
+package unit_tests.api.cryptography;
+
+import de.storagesystem.api.cryptography.CipherPool;
+import de.storagesystem.api.cryptography.EncryptionFormat;
+import de.storagesystem.api.cryptography.FileCryptographer;
+import de.storagesystem.api.cryptography.FileCryptographerFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CipherPoolTest {
+
+    private static final String TRANSFORMATION = EncryptionFormat.CBC.getTransformation();
+
+    /**
+     * Tests if a released cipher is handed out again instead of creating a new one
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     */
+    @Test
+    public void reuseReleasedCipherTest() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        CipherPool pool = new CipherPool(4);
+        Cipher cipher = pool.acquire(TRANSFORMATION);
+        pool.release(TRANSFORMATION, cipher);
+
+        assertSame(cipher, pool.acquire(TRANSFORMATION));
+        assertNotSame(cipher, pool.acquire(TRANSFORMATION));
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+    }
+
+    /**
+     * Tests if the pool keeps at most the configured number of idle ciphers
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     */
+    @Test
+    public void limitIdleCiphersTest() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        CipherPool pool = new CipherPool(1);
+        Cipher first = pool.acquire(TRANSFORMATION);
+        Cipher second = pool.acquire(TRANSFORMATION);
+        pool.release(TRANSFORMATION, first);
+        pool.release(TRANSFORMATION, second);
+
+        pool.acquire(TRANSFORMATION);
+        pool.acquire(TRANSFORMATION);
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.getMisses());
+    }
+
+    /**
+     * Tests if the cryptographers of all formats hand their ciphers back once an operation is finished
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if a stream could not be read
+     */
+    @Test
+    public void releaseCiphersAfterOperationsTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        byte[] content = new byte[10_000];
+        new Random(42).nextBytes(content);
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        CipherPool pool = new CipherPool(4);
+        FileCryptographerFactory factory = new FileCryptographerFactory(pool, 4096);
+
+        for(EncryptionFormat format : EncryptionFormat.values()) {
+            FileCryptographer cryptographer = factory.create(format, secretKey);
+            long misses = pool.getMisses();
+
+            byte[] encryptedData = cryptographer.encryptFile(content);
+            assertArrayEquals(content, cryptographer.decryptFile(encryptedData));
+            try (InputStream encryptedStream = cryptographer.encryptStream(new ByteArrayInputStream(content))) {
+                encryptedData = encryptedStream.readAllBytes();
+            }
+            try (InputStream decryptedStream = cryptographer.decryptStream(new ByteArrayInputStream(encryptedData))) {
+                assertArrayEquals(content, decryptedStream.readAllBytes());
+            }
+            assertEquals(misses, pool.getMisses(), "Cipher of " + format + " was not handed back");
+        }
+    }
+}
@@ -10,7 +10,9 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class FileAESCryptographerTest {
@@ -33,4 +35,59 @@ public class FileAESCryptographerTest {
         assertEquals(content, decryptedContent);
     }
 
+    /**
+     * Tests if a file encrypted as a stream can be decrypted with the byte array api
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if the stream could not be read
+     */
+    @Test
+    public void encryptStreamAndDecryptToBytesTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        FileAESCryptographer cryptographer = new FileAESCryptographer(secretKey, "AES/CBC/PKCS5Padding");
+        byte[] encryptedData = cryptographer.encryptStream(new ByteArrayInputStream(content)).readAllBytes();
+        assertArrayEquals(content, cryptographer.decryptFile(encryptedData));
+    }
+
+    /**
+     * Tests if encrypted bytes can be decrypted with the stream api
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if the stream could not be read
+     */
+    @Test
+    public void encryptBytesAndDecryptStreamTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        FileAESCryptographer cryptographer = new FileAESCryptographer(secretKey, "AES/CBC/PKCS5Padding");
+        byte[] encryptedData = cryptographer.encryptFile(content);
+        assertArrayEquals(content, cryptographer.decryptStream(new ByteArrayInputStream(encryptedData)).readAllBytes());
+    }
+
+    /**
+     * Tests if the byte array and stream api work with the CTR and GCM transformations
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if the stream could not be read
+     */
+    @Test
+    public void encryptAndDecryptCounterModesTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        for(String transformation : new String[] {"AES/CTR/NoPadding", "AES/GCM/NoPadding"}) {
+            FileAESCryptographer cryptographer = new FileAESCryptographer(secretKey, transformation);
+            byte[] encryptedData = cryptographer.encryptStream(new ByteArrayInputStream(content)).readAllBytes();
+            assertArrayEquals(content, cryptographer.decryptFile(encryptedData));
+            encryptedData = cryptographer.encryptFile(content);
+            assertArrayEquals(content, cryptographer.decryptStream(new ByteArrayInputStream(encryptedData)).readAllBytes());
+        }
+    }
+
 }
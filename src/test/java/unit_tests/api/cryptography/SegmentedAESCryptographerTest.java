@@ -0,0 +1,188 @@
+package unit_tests.api.cryptography;
+
+import de.storagesystem.api.cryptography.ByteRange;
+import de.storagesystem.api.cryptography.CipherPool;
+import de.storagesystem.api.cryptography.SegmentedAESCryptographer;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedAESCryptographerTest {
+
+    /**
+     * The plain segment size used in the tests, small to get many segments
+     */
+    private static final int SEGMENT_SIZE = 1024;
+
+    /**
+     * Tests if files of different lengths around the segment boundaries can be encrypted and decrypted
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if a stream could not be read
+     */
+    @Test
+    public void encryptAndDecryptStreamTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        SegmentedAESCryptographer cryptographer = createCryptographer();
+        for(int length : new int[] {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE}) {
+            byte[] content = randomBytes(length);
+            byte[] encryptedData = cryptographer.encryptStream(new ByteArrayInputStream(content)).readAllBytes();
+
+            assertEquals(SegmentedAESCryptographer.encryptedLength(SEGMENT_SIZE, length), encryptedData.length);
+            assertArrayEquals(content, cryptographer.decryptStream(new ByteArrayInputStream(encryptedData)).readAllBytes());
+            assertArrayEquals(content, cryptographer.decryptFile(cryptographer.encryptFile(content)));
+        }
+    }
+
+    /**
+     * Tests if ranges of a file can be decrypted from the encrypted range only
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if a stream could not be read
+     */
+    @Test
+    public void decryptRangeTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        SegmentedAESCryptographer cryptographer = createCryptographer();
+        int length = 5 * SEGMENT_SIZE + 17;
+        byte[] content = randomBytes(length);
+        byte[] encryptedData = cryptographer.encryptFile(content);
+        byte[] header = Arrays.copyOf(encryptedData, cryptographer.headerLength());
+
+        ByteRange[] ranges = {
+                new ByteRange(0, 0),
+                new ByteRange(0, length - 1),
+                new ByteRange(SEGMENT_SIZE - 1, SEGMENT_SIZE),
+                new ByteRange(2 * SEGMENT_SIZE + 5, 4 * SEGMENT_SIZE + 100),
+                new ByteRange(length - 17, length - 1)};
+        for(ByteRange range : ranges) {
+            ByteRange encryptedRange = cryptographer.encryptedRange(header, length, range);
+            InputStream encryptedStream = new ByteArrayInputStream(encryptedData,
+                    (int) encryptedRange.start(), (int) encryptedRange.length());
+            byte[] decrypted = cryptographer.decryptRange(header, encryptedStream, length, range).readAllBytes();
+
+            assertArrayEquals(Arrays.copyOfRange(content, (int) range.start(), (int) range.end() + 1), decrypted);
+        }
+    }
+
+    /**
+     * Tests if modified or truncated files are detected
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     */
+    @Test
+    public void detectModifiedFileTest() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        SegmentedAESCryptographer cryptographer = createCryptographer();
+        byte[] encryptedData = cryptographer.encryptFile(randomBytes(3 * SEGMENT_SIZE));
+
+        byte[] modified = encryptedData.clone();
+        modified[SegmentedAESCryptographer.HEADER_LENGTH + SEGMENT_SIZE + 20] ^= 1;
+        assertThrows(IOException.class, () ->
+                cryptographer.decryptStream(new ByteArrayInputStream(modified)).readAllBytes());
+
+        byte[] truncated = Arrays.copyOf(encryptedData, encryptedData.length - SEGMENT_SIZE - 16);
+        assertThrows(IOException.class, () ->
+                cryptographer.decryptStream(new ByteArrayInputStream(truncated)).readAllBytes());
+    }
+
+    /**
+     * Tests if segments processed in parallel are returned in order, compatible with the serial format,
+     * and if modifications are still detected
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     * @throws NoSuchPaddingException if the padding is not supported
+     * @throws IOException if a stream could not be read
+     */
+    @Test
+    public void encryptAndDecryptParallelTest() throws NoSuchAlgorithmException, NoSuchPaddingException, IOException {
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        SegmentedAESCryptographer serial = new SegmentedAESCryptographer(secretKey, SEGMENT_SIZE);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SegmentedAESCryptographer parallel = new SegmentedAESCryptographer(
+                    secretKey, SEGMENT_SIZE, new CipherPool(8), pool, 3);
+            for(int length : new int[] {0, 1, SEGMENT_SIZE, 2 * SEGMENT_SIZE + 1, 50 * SEGMENT_SIZE + 7}) {
+                byte[] content = randomBytes(length);
+                byte[] encryptedData = parallel.encryptFile(content);
+
+                assertEquals(SegmentedAESCryptographer.encryptedLength(SEGMENT_SIZE, length), encryptedData.length);
+                assertArrayEquals(content, serial.decryptFile(encryptedData));
+                assertArrayEquals(content, parallel.decryptFile(serial.encryptFile(content)));
+            }
+
+            byte[] encryptedData = parallel.encryptFile(randomBytes(10 * SEGMENT_SIZE));
+            encryptedData[SegmentedAESCryptographer.HEADER_LENGTH + 7 * (SEGMENT_SIZE + 16) + 3] ^= 1;
+            byte[] modified = encryptedData;
+            assertThrows(IOException.class, () ->
+                    parallel.decryptStream(new ByteArrayInputStream(modified)).readAllBytes());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests if files of the first version of the format, encrypted with the key of the user, can still be decrypted,
+     * and if newly encrypted files use a key of their own
+     * @throws Exception if the file could not be encrypted or decrypted
+     */
+    @Test
+    public void decryptFirstVersionTest() throws Exception {
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        SegmentedAESCryptographer cryptographer = new SegmentedAESCryptographer(secretKey, SEGMENT_SIZE);
+        int length = 2 * SEGMENT_SIZE + 5;
+        byte[] content = randomBytes(length);
+        byte[] noncePrefix = randomBytes(7);
+
+        ByteBuffer encrypted = ByteBuffer.allocate(16 + length + 3 * 16)
+                .put(new byte[] {'S', 'S', 'E', 'G', 1})
+                .putInt(SEGMENT_SIZE)
+                .put(noncePrefix);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        for(int index = 0; index < 3; index++) {
+            byte[] iv = ByteBuffer.allocate(12).put(noncePrefix).putInt(index).put((byte) (index == 2 ? 1 : 0)).array();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            int start = index * SEGMENT_SIZE;
+            encrypted.put(cipher.doFinal(content, start, Math.min(SEGMENT_SIZE, length - start)));
+        }
+        byte[] encryptedData = encrypted.array();
+
+        assertArrayEquals(content, cryptographer.decryptFile(encryptedData));
+        ByteRange range = new ByteRange(SEGMENT_SIZE - 3, 2 * SEGMENT_SIZE + 2);
+        byte[] header = Arrays.copyOf(encryptedData, cryptographer.headerLength());
+        ByteRange encryptedRange = cryptographer.encryptedRange(header, length, range);
+        InputStream encryptedStream = new ByteArrayInputStream(encryptedData,
+                (int) encryptedRange.start(), (int) encryptedRange.length());
+        assertArrayEquals(Arrays.copyOfRange(content, (int) range.start(), (int) range.end() + 1),
+                cryptographer.decryptRange(header, encryptedStream, length, range).readAllBytes());
+
+        // The segments of new files cannot be decrypted with the key of the user
+        byte[] newFile = cryptographer.encryptFile(content);
+        byte[] iv = ByteBuffer.allocate(12).put(newFile, 41, 7).putInt(0).put((byte) 0).array();
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+        assertThrows(AEADBadTagException.class, () ->
+                cipher.doFinal(newFile, SegmentedAESCryptographer.HEADER_LENGTH, SEGMENT_SIZE + 16));
+    }
+
+    private SegmentedAESCryptographer createCryptographer() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        SecretKey secretKey = KeyGenerator.getInstance("AES").generateKey();
+        return new SegmentedAESCryptographer(secretKey, SEGMENT_SIZE);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
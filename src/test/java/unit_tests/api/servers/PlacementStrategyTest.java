@@ -0,0 +1,64 @@
+package unit_tests.api.servers;
+
+import de.storagesystem.api.servers.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlacementStrategyTest {
+
+    /**
+     * Tests if the servers with fewer bytes in transfer are preferred over emptier servers
+     */
+    @Test
+    public void leastOutstandingBytesTest() {
+        RegisteredServer empty = createServer(1L, 1000);
+        RegisteredServer idle = createServer(2L, 500);
+        CapacityReservation reservation = empty.reserve(100);
+
+        PlacementStrategy strategy = new LeastOutstandingBytesPlacement();
+        assertSame(idle, strategy.choose(List.of(empty, idle), 10));
+        reservation.release();
+        assertSame(empty, strategy.choose(List.of(empty, idle), 10));
+    }
+
+    /**
+     * Tests if power of two choices never chooses the busiest of three servers
+     */
+    @Test
+    public void powerOfTwoChoicesTest() {
+        RegisteredServer busy = createServer(1L, 1000);
+        busy.reserve(500);
+        List<RegisteredServer> servers = List.of(busy, createServer(2L, 1000), createServer(3L, 1000));
+
+        PlacementStrategy strategy = new PowerOfTwoChoicesPlacement();
+        int busyChosen = 0;
+        for(int i = 0; i < 1000; i++) {
+            if(strategy.choose(servers, 10) == busy) busyChosen++;
+        }
+        assertEquals(0, busyChosen);
+    }
+
+    /**
+     * Tests if weighted random only chooses servers with available storage
+     */
+    @Test
+    public void weightedRandomTest() {
+        RegisteredServer full = createServer(1L, 0);
+        RegisteredServer free = createServer(2L, 1000);
+
+        PlacementStrategy strategy = new WeightedRandomPlacement();
+        for(int i = 0; i < 100; i++) {
+            assertSame(free, strategy.choose(List.of(full, free), 10));
+        }
+    }
+
+    private RegisteredServer createServer(long id, long freeStorage) {
+        StorageServer server = new StorageServer("server" + id, "localhost", 8000 + (int) id, freeStorage, 1000L);
+        server.setId(id);
+        server.setOnline(true);
+        return new RegisteredServer(server);
+    }
+}
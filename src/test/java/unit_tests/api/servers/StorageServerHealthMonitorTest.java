@@ -0,0 +1,128 @@
+package unit_tests.api.servers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import de.storagesystem.api.servers.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StorageServerHealthMonitorTest {
+
+    /**
+     * Tests if the first response time is taken as it is and later ones are averaged exponentially
+     */
+    @Test
+    public void averageResponseTimeTest() {
+        StorageServerHealthMonitor monitor = createMonitor();
+        RegisteredServer server = new RegisteredServer(createServer(true, null));
+
+        ServerHealth first = monitor.evaluate(server, true, 100.0, null);
+        assertNotNull(first);
+        assertEquals(100.0, first.responseTime(), 0.001);
+        assertTrue(first.online());
+
+        RegisteredServer written = new RegisteredServer(createServer(true, 100.0));
+        // 0.2 * 200 + 0.8 * 100
+        ServerHealth second = monitor.evaluate(written, true, 200.0, null);
+        assertNotNull(second);
+        assertEquals(120.0, second.responseTime(), 0.001);
+    }
+
+    /**
+     * Tests if a server is only taken offline after the configured number of failed checks in a row
+     */
+    @Test
+    public void offlineAfterFailedChecksTest() {
+        StorageServerHealthMonitor monitor = createMonitor();
+        RegisteredServer server = new RegisteredServer(createServer(true, 100.0));
+
+        assertNull(monitor.evaluate(server, false, 2000.0, null));
+        assertEquals(1, server.getFailedChecks());
+
+        // A successful check resets the failed checks in a row
+        assertNull(monitor.evaluate(server, true, 100.0, null));
+        assertEquals(0, server.getFailedChecks());
+
+        assertNull(monitor.evaluate(server, false, 2000.0, null));
+        ServerHealth offline = monitor.evaluate(server, false, 2000.0, null);
+        assertNotNull(offline);
+        assertFalse(offline.online());
+        assertEquals(2, server.getFailedChecks());
+        // The response time of failed checks is not averaged
+        assertEquals(100.0, offline.responseTime(), 0.001);
+    }
+
+    /**
+     * Tests if an offline server is taken back online after one successful check
+     */
+    @Test
+    public void onlineAfterOneSuccessTest() {
+        StorageServerHealthMonitor monitor = createMonitor();
+        RegisteredServer server = new RegisteredServer(createServer(false, 100.0));
+        assertNull(monitor.evaluate(server, false, 2000.0, null));
+        assertNull(monitor.evaluate(server, false, 2000.0, null));
+
+        ServerHealth online = monitor.evaluate(server, true, 100.0, null);
+        assertNotNull(online);
+        assertTrue(online.online());
+        assertEquals(0, server.getFailedChecks());
+    }
+
+    /**
+     * Tests if a server is flagged as slow while its average response time is above the slow response time
+     */
+    @Test
+    public void slowServerTest() {
+        StorageServerHealthMonitor monitor = createMonitor();
+        RegisteredServer server = new RegisteredServer(createServer(true, 600.0));
+
+        monitor.evaluate(server, true, 600.0, null);
+        assertTrue(server.isSlow());
+
+        // 0.2 * 100 + 0.8 * 600 is not above the slow response time of 500 milliseconds
+        RegisteredServer recovering = new RegisteredServer(createServer(true, 600.0));
+        monitor.evaluate(recovering, true, 100.0, null);
+        assertFalse(recovering.isSlow());
+    }
+
+    /**
+     * Tests if nothing is written if neither the state, the reported storage nor the response time changed
+     */
+    @Test
+    public void unchangedServerTest() {
+        StorageServerHealthMonitor monitor = createMonitor();
+        RegisteredServer server = new RegisteredServer(createServer(true, 100.0));
+        JsonNode body = JsonNodeFactory.instance.objectNode()
+                .put("freeStorage", 1000L)
+                .put("totalStorage", 2000L);
+
+        // 0.2 * 105 + 0.8 * 100 is within the tolerance of the written response time
+        assertNull(monitor.evaluate(server, true, 105.0, body));
+
+        JsonNode changed = JsonNodeFactory.instance.objectNode()
+                .put("freeStorage", 900L)
+                .put("totalStorage", 2000L);
+        ServerHealth health = monitor.evaluate(server, true, 100.0, changed);
+        assertNotNull(health);
+        assertEquals(900L, health.freeStorage());
+        assertEquals(2000L, health.totalStorage());
+    }
+
+    private StorageServerHealthMonitor createMonitor() {
+        return new StorageServerHealthMonitor(
+                new StorageServerConfigProperty(),
+                mock(StorageServerClient.class),
+                mock(StorageServerRegistry.class));
+    }
+
+    private StorageServer createServer(boolean online, Double responseTime) {
+        StorageServer server = new StorageServer("server", "localhost", 8000, 1000L, 2000L);
+        server.setId(1L);
+        server.setOnline(online);
+        server.setResponseTime(responseTime);
+        return server;
+    }
+}
@@ -0,0 +1,110 @@
+package unit_tests.api.servers;
+
+import de.storagesystem.api.properties.PlacementProperty;
+import de.storagesystem.api.servers.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StorageServerRegistryTest {
+
+    /**
+     * Tests if committed and freed storage is written as one delta per server and released storage is not written
+     */
+    @Test
+    public void reserveAndFlushTest() {
+        StorageServer server = new StorageServer("server", "localhost", 8000, 1000L, 1000L);
+        server.setId(1L);
+        server.setOnline(true);
+        StorageServerDAO repository = mock(StorageServerDAO.class);
+        when(repository.findAll()).thenReturn(List.of(server));
+
+        StorageServerRegistry registry = new StorageServerRegistry(
+                repository, new PlacementProperty(), new MostAvailableStoragePlacement());
+        registry.refresh();
+
+        CapacityReservation committed = registry.reserve(300).orElseThrow();
+        CapacityReservation released = registry.reserve(600).orElseThrow();
+        assertTrue(registry.reserve(200).isEmpty());
+
+        committed.commit();
+        released.close();
+        registry.free(1L, 50);
+        RegisteredServer registered = registry.find(1L).orElseThrow();
+        assertEquals(750, registered.getAvailableStorage());
+
+        registry.flush();
+        verify(repository).addFreeStorage(Map.of(1L, -250L));
+        assertEquals(0, registered.getPendingDelta());
+        assertEquals(750, registered.getAvailableStorage());
+
+        registry.flush();
+        verifyNoMoreInteractions(ignoreStubs(repository));
+    }
+
+    /**
+     * Tests if a checked health is written, takes servers offline and replaces the pending storage changes
+     */
+    @Test
+    public void applyHealthTest() {
+        StorageServer server = new StorageServer("server", "localhost", 8000, 1000L, 1000L);
+        server.setId(1L);
+        server.setOnline(true);
+        StorageServerDAO repository = mock(StorageServerDAO.class);
+        when(repository.findAll()).thenReturn(List.of(server));
+
+        StorageServerRegistry registry = new StorageServerRegistry(
+                repository, new PlacementProperty(), new MostAvailableStoragePlacement());
+        registry.refresh();
+        registry.reserve(100).orElseThrow().commit();
+        RegisteredServer registered = registry.find(1L).orElseThrow();
+
+        List<ServerHealth> offline = List.of(new ServerHealth(1L, false, 20.0, null, null));
+        registry.applyHealth(offline);
+        verify(repository).updateHealth(offline);
+        assertFalse(registered.isOnline());
+        // The reload on a failed reservation reads the written health
+        server.setOnline(false);
+        assertTrue(registry.reserve(100).isEmpty());
+
+        registry.applyHealth(List.of(new ServerHealth(1L, true, 20.0, 500L, 2000L)));
+        assertTrue(registered.isOnline());
+        assertEquals(20.0, registered.getResponseTime());
+        assertEquals(0, registered.getPendingDelta());
+        assertEquals(500, registered.getAvailableStorage());
+        assertEquals(2000L, registered.getServer().getTotalStorage());
+    }
+
+    /**
+     * Tests if the replicas of an upload are reserved on distinct servers and fewer are returned if servers are missing
+     */
+    @Test
+    public void reserveReplicasTest() {
+        List<StorageServer> servers = new ArrayList<>();
+        for(long id = 1; id <= 3; id++) {
+            StorageServer server = new StorageServer("server" + id, "localhost", 8000, 1000L, 1000L);
+            server.setId(id);
+            server.setOnline(true);
+            servers.add(server);
+        }
+        StorageServerDAO repository = mock(StorageServerDAO.class);
+        when(repository.findAll()).thenReturn(servers);
+
+        StorageServerRegistry registry = new StorageServerRegistry(
+                repository, new PlacementProperty(), new MostAvailableStoragePlacement());
+        registry.refresh();
+
+        List<CapacityReservation> replicas = registry.reserve(100, 2);
+        assertEquals(2, replicas.size());
+        assertNotEquals(replicas.get(0).getServer().getId(), replicas.get(1).getServer().getId());
+
+        List<CapacityReservation> all = registry.reserve(100, 5);
+        assertEquals(3, all.size());
+        assertEquals(3, all.stream().map(reservation -> reservation.getServer().getId()).distinct().count());
+    }
+}
@@ -0,0 +1,29 @@
+package unit_tests.api.storage;
+
+import de.storagesystem.api.storage.buckets.BucketController;
+import de.storagesystem.api.storage.buckets.BucketService;
+import de.storagesystem.api.users.UserService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BucketControllerTest {
+
+    /**
+     * Tests if an empty page is rejected before it reaches the service, with and without a cursor
+     */
+    @Test
+    public void rejectEmptyPageTest() {
+        BucketService bucketService = mock(BucketService.class);
+        BucketController controller = new BucketController(bucketService, mock(UserService.class));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.handleBucketList("Bearer token", "MQ", 0, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.handleBucketList("Bearer token", null, 0, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.handleBucketList("Bearer token", null, -1, 10, null));
+        verifyNoInteractions(bucketService);
+    }
+}
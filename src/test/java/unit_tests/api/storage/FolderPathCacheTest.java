@@ -0,0 +1,49 @@
+package unit_tests.api.storage;
+
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import de.storagesystem.api.storage.buckets.Bucket;
+import de.storagesystem.api.storage.folders.FolderPathCache;
+import de.storagesystem.api.storage.folders.StorageFolder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FolderPathCacheTest {
+
+    /**
+     * Tests if a folder and the folders inside it are invalidated, but not folders with the same prefix
+     */
+    @Test
+    public void invalidateFolderAndSubfoldersTest() {
+        Bucket bucket = new Bucket(1L, "bucket", null);
+        StorageFolder folder = createFolder(bucket, bucket.getRootFolder(), "a", 2L);
+        StorageFolder subfolder = createFolder(bucket, folder, "b", 3L);
+        StorageFolder sibling = createFolder(bucket, bucket.getRootFolder(), "ab", 4L);
+
+        FolderPathCache cache = new FolderPathCache(new StorageServerConfigProperty());
+        cache.put(1, "bucket", "/bucket/a", folder);
+        cache.put(1, "bucket", "/bucket/a/b", subfolder);
+        cache.put(1, "bucket", "/bucket/ab", sibling);
+
+        assertEquals(3L, cache.findFolderId(1, "bucket", "/bucket/a/b").orElseThrow());
+        assertTrue(cache.findFolderId(2, "bucket", "/bucket/a/b").isEmpty());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+
+        cache.invalidate(1, "/bucket/a");
+        assertTrue(cache.findFolderId(1, "bucket", "/bucket/a").isEmpty());
+        assertTrue(cache.findFolderId(1, "bucket", "/bucket/a/b").isEmpty());
+        assertEquals(4L, cache.findFolderId(1, "bucket", "/bucket/ab").orElseThrow());
+
+        cache.invalidateBucket(1);
+        assertTrue(cache.findFolderId(1, "bucket", "/bucket/ab").isEmpty());
+    }
+
+    private StorageFolder createFolder(Bucket bucket, StorageFolder parent, String name, long id) {
+        StorageFolder folder = new StorageFolder(name, null);
+        folder.setId(id);
+        folder.setBucket(bucket);
+        folder.setParent(parent);
+        return folder;
+    }
+}
@@ -0,0 +1,25 @@
+package unit_tests.api.storage;
+
+import de.storagesystem.api.storage.files.LatencyPercentile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyPercentileTest {
+
+    /**
+     * Tests if the initial value is kept until enough latencies are recorded and old latencies leave the window
+     */
+    @Test
+    public void percentileOfRecentLatenciesTest() {
+        LatencyPercentile percentile = new LatencyPercentile(100, 95, 42);
+        for(long latency = 1; latency < 5; latency++) percentile.record(latency);
+        assertEquals(42, percentile.getValue());
+
+        for(long latency = 5; latency <= 100; latency++) percentile.record(latency);
+        assertEquals(95, percentile.getValue());
+
+        for(int i = 0; i < 100; i++) percentile.record(i < 90 ? 10 : 1000);
+        assertEquals(1000, percentile.getValue());
+    }
+}
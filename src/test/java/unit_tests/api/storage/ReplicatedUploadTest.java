@@ -0,0 +1,149 @@
+package unit_tests.api.storage;
+
+import de.storagesystem.api.servers.CapacityReservation;
+import de.storagesystem.api.servers.StorageServer;
+import de.storagesystem.api.storage.files.ReplicatedUpload;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicatedUploadTest {
+
+    /**
+     * Tests if the quorum is reached with the first copies and a copy that is stored before the upload is settled
+     * is handed to the callback once the file is recorded
+     */
+    @Test
+    public void quorumAndLateReplicaBeforeSettleTest() {
+        List<CapacityReservation> reservations = createReservations(3);
+        List<ReplicatedUpload.StoredReplica> late = new ArrayList<>();
+        List<Boolean> recorded = new ArrayList<>();
+        ReplicatedUpload upload = new ReplicatedUpload(reservations, 2, (replica, fileRecorded) -> {
+            late.add(replica);
+            recorded.add(fileRecorded);
+        });
+        List<Runnable> uploads = new ArrayList<>();
+        CompletableFuture<Void> finished = upload.start(storePath(), uploads::add);
+
+        uploads.get(0).run();
+        assertEquals(1, upload.getStored().size());
+        uploads.get(1).run();
+        List<ReplicatedUpload.StoredReplica> quorum = upload.awaitQuorum();
+        assertEquals(List.of("/server0", "/server1"), quorum.stream().map(ReplicatedUpload.StoredReplica::storedPath).toList());
+
+        // Stored after the quorum, but before the caller recorded the file
+        uploads.get(2).run();
+        assertTrue(finished.isDone());
+        assertTrue(late.isEmpty());
+
+        upload.settle(true);
+        assertEquals(1, late.size());
+        assertEquals("/server2", late.get(0).storedPath());
+        assertSame(reservations.get(2), late.get(0).reservation());
+        assertEquals(List.of(true), recorded);
+        assertEquals(2, upload.getStored().size());
+        reservations.forEach(reservation -> verify(reservation, never()).release());
+    }
+
+    /**
+     * Tests if a copy that is stored after the upload was settled is handed to the callback immediately,
+     * with whether the file was recorded
+     */
+    @Test
+    public void lateReplicaAfterSettleTest() {
+        List<CapacityReservation> reservations = createReservations(3);
+        List<Boolean> recorded = new ArrayList<>();
+        ReplicatedUpload upload = new ReplicatedUpload(reservations, 2, (replica, fileRecorded) -> recorded.add(fileRecorded));
+        List<Runnable> uploads = new ArrayList<>();
+        upload.start(storePath(), uploads::add);
+
+        uploads.get(0).run();
+        uploads.get(1).run();
+        upload.awaitQuorum();
+        upload.settle(false);
+        assertTrue(recorded.isEmpty());
+
+        uploads.get(2).run();
+        assertEquals(List.of(false), recorded);
+    }
+
+    /**
+     * Tests if the quorum fails once more uploads failed than the quorum allows, the reservations of the failed
+     * uploads are released and a copy that is stored afterwards is handed to the callback as not recorded
+     */
+    @Test
+    public void quorumImpossibleTest() {
+        List<CapacityReservation> reservations = createReservations(3);
+        List<Boolean> recorded = new ArrayList<>();
+        ReplicatedUpload upload = new ReplicatedUpload(reservations, 2, (replica, fileRecorded) -> recorded.add(fileRecorded));
+        List<Runnable> uploads = new ArrayList<>();
+        Function<StorageServer, String> store = storePath();
+        upload.start(server -> {
+            if(!server.getName().equals("server2")) throw new IllegalStateException("Storage server not reachable");
+            return store.apply(server);
+        }, uploads::add);
+
+        // One failure still leaves two servers for a quorum of two
+        uploads.get(0).run();
+        verify(reservations.get(0)).release();
+        uploads.get(1).run();
+        verify(reservations.get(1)).release();
+        CompletionException failure = assertThrows(CompletionException.class, upload::awaitQuorum);
+        assertEquals("Storage server not reachable", failure.getCause().getMessage());
+        assertTrue(upload.getStored().isEmpty());
+
+        uploads.get(2).run();
+        assertEquals(List.of(false), recorded);
+        verify(reservations.get(2), never()).release();
+    }
+
+    /**
+     * Tests if an upload that fails after the quorum was reached releases its reservation
+     * without being handed to the callback
+     */
+    @Test
+    public void lateFailureTest() {
+        List<CapacityReservation> reservations = createReservations(3);
+        List<Boolean> recorded = new ArrayList<>();
+        ReplicatedUpload upload = new ReplicatedUpload(reservations, 2, (replica, fileRecorded) -> recorded.add(fileRecorded));
+        List<Runnable> uploads = new ArrayList<>();
+        Function<StorageServer, String> store = storePath();
+        upload.start(server -> {
+            if(server.getName().equals("server2")) throw new IllegalStateException("Storage server not reachable");
+            return store.apply(server);
+        }, uploads::add);
+
+        uploads.get(0).run();
+        uploads.get(1).run();
+        assertEquals(2, upload.awaitQuorum().size());
+
+        uploads.get(2).run();
+        verify(reservations.get(2)).release();
+        upload.settle(true);
+        assertTrue(recorded.isEmpty());
+        assertEquals(2, upload.getStored().size());
+    }
+
+    private List<CapacityReservation> createReservations(int count) {
+        List<CapacityReservation> reservations = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            StorageServer server = new StorageServer("server" + i, "localhost", 8000 + i, 1000L, 1000L);
+            server.setId((long) i);
+            CapacityReservation reservation = mock(CapacityReservation.class);
+            when(reservation.getServer()).thenReturn(server);
+            reservations.add(reservation);
+        }
+        return reservations;
+    }
+
+    private Function<StorageServer, String> storePath() {
+        return server -> "/" + server.getName();
+    }
+}
@@ -0,0 +1,106 @@
+package unit_tests.api.storage;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.storagesystem.api.cryptography.FileCryptographerFactory;
+import de.storagesystem.api.cryptography.NewCipherProvider;
+import de.storagesystem.api.exceptions.StorageEntityNotFoundException;
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import de.storagesystem.api.servers.CapacityReservation;
+import de.storagesystem.api.servers.StorageServer;
+import de.storagesystem.api.servers.StorageServerClient;
+import de.storagesystem.api.servers.StorageServerDAO;
+import de.storagesystem.api.servers.StorageServerRegistry;
+import de.storagesystem.api.storage.buckets.Bucket;
+import de.storagesystem.api.storage.buckets.BucketDAO;
+import de.storagesystem.api.storage.files.StorageFile;
+import de.storagesystem.api.storage.files.StorageFileDAO;
+import de.storagesystem.api.storage.files.StorageFileReplicaDAO;
+import de.storagesystem.api.storage.files.StorageFileServiceImpl;
+import de.storagesystem.api.storage.folders.FolderPathCache;
+import de.storagesystem.api.storage.folders.StorageFolder;
+import de.storagesystem.api.storage.folders.StorageFolderDAO;
+import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
+import de.storagesystem.api.users.UserDAO;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.KeyGenerator;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StorageFileServiceTest {
+
+    /**
+     * Tests if an upload into a folder whose deletion started after the folder was resolved is not stored,
+     * and if its copy, its reserved row and its reserved storage are given back
+     * @throws Exception if the test could not be set up
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void uploadIntoDeletedFolderTest() throws Exception {
+        StorageServerClient client = mock(StorageServerClient.class);
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(client.getRestTemplate()).thenReturn(restTemplate);
+        ObjectNode stored = JsonNodeFactory.instance.objectNode().put("path", "/stored");
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(stored));
+
+        StorageServerRegistry registry = mock(StorageServerRegistry.class);
+        CapacityReservation reservation = mock(CapacityReservation.class);
+        when(reservation.getServer()).thenReturn(new StorageServer("server", "localhost", 8080, 1000L, 1000L));
+        when(registry.reserve(anyLong())).thenReturn(Optional.of(reservation));
+
+        User user = mock(User.class);
+        when(user.getId()).thenReturn(1L);
+        when(user.getSecretKey()).thenReturn(KeyGenerator.getInstance("AES").generateKey());
+        UserCache userCache = mock(UserCache.class);
+        when(userCache.findById(1L)).thenReturn(Optional.of(user));
+
+        Bucket bucket = mock(Bucket.class);
+        StorageFolder folder = mock(StorageFolder.class);
+        when(folder.getBucket()).thenReturn(bucket);
+        when(folder.getPath()).thenReturn("/bucket/folder");
+        StorageFolderDAO folderRepository = mock(StorageFolderDAO.class);
+        when(folderRepository.resolveFolder(1L, "bucket", "/bucket/folder")).thenReturn(Optional.of(folder));
+
+        // The folder is detached while the file is sent to the storage server
+        StorageFileDAO fileRepository = mock(StorageFileDAO.class);
+        when(fileRepository.save(any(StorageFile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(fileRepository.store(any(StorageFile.class), anyList()))
+                .thenThrow(new StorageEntityNotFoundException("Directory not found", "Directory /bucket/folder"));
+
+        StorageFileServiceImpl service = new StorageFileServiceImpl(
+                new StorageServerConfigProperty(),
+                client,
+                registry,
+                mock(StorageFileReplicaDAO.class),
+                mock(StorageServerDAO.class),
+                folderRepository,
+                fileRepository,
+                mock(BucketDAO.class),
+                mock(UserDAO.class),
+                userCache,
+                mock(FolderPathCache.class));
+        ReflectionTestUtils.setField(service, "cryptographerFactory", new FileCryptographerFactory(new NewCipherProvider(), 1024));
+
+        MockMultipartFile file = new MockMultipartFile("file", "file.txt", "text/plain", new byte[] {1, 2, 3});
+        assertThrows(StorageEntityNotFoundException.class,
+                () -> service.storeFile(1L, "bucket", "/bucket/folder", file));
+
+        verify(restTemplate).exchange(contains("/api/files/1/stored"), eq(HttpMethod.DELETE), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+        verify(fileRepository).delete(any(StorageFile.class));
+        verify(reservation, atLeastOnce()).release();
+        verify(reservation, never()).commit();
+    }
+}
@@ -0,0 +1,61 @@
+package unit_tests.api.storage;
+
+import de.storagesystem.api.storage.buckets.Bucket;
+import de.storagesystem.api.storage.folders.StorageFolder;
+import de.storagesystem.api.storage.folders.StorageFolderCustomDAOImpl;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StorageFolderCustomDAOTest {
+
+    /**
+     * Tests if renaming a folder while one of its subfolders is being deleted leaves the paths of the subfolder
+     * and its content unchanged, so that its deletion still selects them by the path it had when it was detached
+     */
+    @Test
+    public void moveFolderWithSubfolderBeingDeletedTest() {
+        EntityManager em = mock(EntityManager.class);
+        Query query = mock(Query.class);
+        when(em.createQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        StorageFolderCustomDAOImpl dao = new StorageFolderCustomDAOImpl();
+        ReflectionTestUtils.setField(dao, "em", em);
+
+        Bucket bucket = new Bucket(1L, "bucket", null);
+        bucket.getRootFolder().setId(1L);
+        StorageFolder folder = createFolder(bucket, bucket.getRootFolder(), "a", 2L);
+        StorageFolder subfolder = createFolder(bucket, folder, "c", 3L);
+        subfolder.setDeleting(true);
+
+        assertEquals("/bucket/b", dao.move(folder, bucket.getRootFolder(), "b"));
+
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(em, atLeastOnce()).createQuery(statements.capture());
+        List<String> rewrites = statements.getAllValues().stream()
+                .filter(statement -> statement.contains("SUBSTRING(i.path"))
+                .toList();
+        assertEquals(2, rewrites.size());
+        assertTrue(rewrites.stream().anyMatch(statement -> statement.startsWith("UPDATE StorageFolder ")
+                && statement.contains("i.deleting = false")));
+        assertTrue(rewrites.stream().anyMatch(statement -> statement.startsWith("UPDATE StorageFile ")
+                && statement.contains("i.parent.id NOT IN (SELECT d.id FROM StorageFolder d WHERE d.bucket.id = :bucketId AND d.deleting = true)")));
+        verify(query, times(2)).setParameter("pattern", "/bucket/a/%");
+    }
+
+    private StorageFolder createFolder(Bucket bucket, StorageFolder parent, String name, long id) {
+        StorageFolder folder = new StorageFolder(name, null);
+        folder.setId(id);
+        folder.setBucket(bucket);
+        folder.setParent(parent);
+        return folder;
+    }
+}
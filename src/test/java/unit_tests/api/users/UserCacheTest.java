@@ -0,0 +1,51 @@
+package unit_tests.api.users;
+
+import de.storagesystem.api.properties.StorageServerConfigProperty;
+import de.storagesystem.api.users.User;
+import de.storagesystem.api.users.UserCache;
+import de.storagesystem.api.users.UserDAO;
+import org.junit.jupiter.api.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserCacheTest {
+
+    /**
+     * Tests if a user is loaded from the database only once until it is invalidated
+     * @throws NoSuchAlgorithmException if the key of the user could not be generated
+     */
+    @Test
+    public void loadUserOnceUntilInvalidatedTest() throws NoSuchAlgorithmException {
+        User user = new User("Test", "User", "test@user.de");
+        user.setId(1);
+        UserDAO userRepository = mock(UserDAO.class);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        UserCache userCache = new UserCache(new StorageServerConfigProperty(), userRepository);
+
+        assertSame(user, userCache.findById(1).orElseThrow());
+        assertSame(user, userCache.findById(1).orElseThrow());
+        verify(userRepository, times(1)).findById(1L);
+
+        userCache.invalidate(1);
+        userCache.findById(1);
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    /**
+     * Tests if missing users are not cached, so that they are found as soon as they are created
+     */
+    @Test
+    public void doNotCacheMissingUserTest() {
+        UserDAO userRepository = mock(UserDAO.class);
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        UserCache userCache = new UserCache(new StorageServerConfigProperty(), userRepository);
+
+        assertTrue(userCache.findById(2).isEmpty());
+        assertTrue(userCache.findById(2).isEmpty());
+        verify(userRepository, times(2)).findById(2L);
+    }
+}
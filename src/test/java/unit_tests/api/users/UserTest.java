@@ -0,0 +1,44 @@
+package unit_tests.api.users;
+
+import de.storagesystem.api.users.User;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserTest {
+
+    /**
+     * Tests if the secret key is only generated for new users and kept afterwards
+     * @throws NoSuchAlgorithmException if the key could not be generated
+     */
+    @Test
+    public void generateSecretKeyOnlyForNewUsersTest() throws NoSuchAlgorithmException {
+        User loaded = new User();
+        assertNull(loaded.getSecretKey());
+
+        loaded.initSecretKey();
+        SecretKey secretKey = loaded.getSecretKey();
+        assertNotNull(secretKey);
+        loaded.initSecretKey();
+        assertSame(secretKey, loaded.getSecretKey());
+
+        assertNotNull(new User("Test", "User", "test@user.de").getSecretKey());
+    }
+
+    /**
+     * Tests if users without a secret key or name can be compared
+     */
+    @Test
+    public void compareIncompleteUsersTest() {
+        User first = new User();
+        User second = new User();
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.setEmail("test@user.de");
+        assertNotEquals(first, second);
+    }
+}
@@ -0,0 +1,58 @@
+package unit_tests.api.util;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.storagesystem.api.storage.folders.StorageFolder;
+import de.storagesystem.api.util.Util;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UtilTest {
+
+    /**
+     * Tests if a slice with more items than the limit points behind its last returned item
+     */
+    @Test
+    public void createStorageItemSliceTest() {
+        List<StorageFolder> folders = List.of(
+                new StorageFolder("a", null),
+                new StorageFolder("b ü", null),
+                new StorageFolder("c", null));
+
+        ObjectNode slice = Util.createStorageItemSlice(folders, 2);
+        assertEquals(2, slice.get("count").asInt());
+        assertEquals("b ü", Util.decodeCursor(slice.get("cursor").asText()));
+
+        ObjectNode last = Util.createStorageItemSlice(folders.subList(2, 3), 2);
+        assertEquals(1, last.get("count").asInt());
+        assertTrue(last.get("cursor").isNull());
+    }
+
+    /**
+     * Tests if only pages before the last page point to the next page
+     */
+    @Test
+    public void createStorageItemListTest() {
+        List<StorageFolder> folders = List.of(new StorageFolder("a", null), new StorageFolder("b", null));
+
+        ObjectNode first = Util.createStorageItemList(folders, 3, 0, 2);
+        assertEquals(2, first.get("pages").asLong());
+        assertEquals("b", Util.decodeCursor(first.get("cursor").asText()));
+
+        ObjectNode last = Util.createStorageItemList(folders.subList(0, 1), 3, 1, 2);
+        assertEquals(1, last.get("count").asLong());
+        assertTrue(last.get("cursor").isNull());
+    }
+
+    /**
+     * Tests if the wildcards of a path are escaped in the pattern of the items inside it
+     */
+    @Test
+    public void descendantPatternTest() {
+        assertEquals("/bucket/a/%", Util.descendantPattern("/bucket/a"));
+        assertEquals("/bucket/a!_b!%c!!/%", Util.descendantPattern("/bucket/a_b%c!"));
+        assertEquals("/bucket/photos/2023!_%", Util.prefixPattern("/bucket/photos/2023_"));
+    }
+}